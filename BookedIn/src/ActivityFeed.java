@@ -0,0 +1,149 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * ActivityFeed - The newest entries of the activity_log table, kept in memory for the
+ * dashboards' recent activity panels.
+ *
+ * The table is written by triggers (see DatabaseSetup.createActivityLog; a database made
+ * before it gets it from CatalogMigration.upgrade), so every workstation's checkouts,
+ * returns, renewals, views and catalog edits are in it. The CAPACITY latest entries by
+ * time are held here and shared by every open dashboard; views are logged in batches
+ * with earlier times, so ids do not follow time. Once invalidated by an event, or
+ * MAX_AGE_MS old, the next read fetches only the rows after the highest id read (less
+ * LATE_COMMIT_MARGIN, for inserts that commit out of order) through the primary key.
+ */
+public class ActivityFeed {
+
+    // Entries kept in memory, the most any feed shows
+    private static final int CAPACITY = 50;
+
+    // How long the entries are used without looking for new rows
+    private static final long MAX_AGE_MS = 5000;
+
+    // Ids below the highest read that are read again, in case they committed late
+    private static final int LATE_COMMIT_MARGIN = 20;
+
+    private static ActivityFeed instance;
+
+    // The latest entries by time, then id (guarded by "this")
+    private final TreeMap<Key, Entry> entries = new TreeMap<>();
+    private long lastId = 0;
+    private long refreshedAt = 0;
+    private volatile boolean stale = true;
+
+    private ActivityFeed() {
+    }
+
+    public static synchronized ActivityFeed getInstance() {
+        if (instance == null) {
+            instance = new ActivityFeed();
+        }
+        return instance;
+    }
+
+    /**
+     * Look for new entries on the next read (call when an event arrives, before reading)
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * The newest entries, newest first
+     *
+     * @param count Maximum number of entries (up to CAPACITY)
+     */
+    public synchronized List<Entry> recent(Connection conn, int count) throws SQLException {
+        if (stale || System.currentTimeMillis() - refreshedAt > MAX_AGE_MS) {
+            refresh(conn);
+        }
+        List<Entry> recent = new ArrayList<>();
+        for (Entry entry : entries.descendingMap().values()) {
+            if (recent.size() == count) {
+                break;
+            }
+            recent.add(entry);
+        }
+        return recent;
+    }
+
+    private void refresh(Connection conn) throws SQLException {
+        // Cleared first, so an event arriving during the read is not lost
+        stale = false;
+        try {
+            if (entries.isEmpty() || readAfter(conn, lastId - LATE_COMMIT_MARGIN) == CAPACITY
+                    + LATE_COMMIT_MARGIN) {
+                // Nothing held yet, or more new rows than are kept
+                entries.clear();
+                lastId = 0;
+                readNewest(conn);
+            }
+        } catch (SQLException e) {
+            stale = true;
+            throw e;
+        }
+
+        while (entries.size() > CAPACITY) {
+            entries.pollFirstEntry();
+        }
+        refreshedAt = System.currentTimeMillis();
+    }
+
+    private void readNewest(Connection conn) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("SELECT id, activity, username, title, occurred_at "
+                + "FROM activity_log ORDER BY occurred_at DESC, id DESC LIMIT ?");
+        stmt.setInt(1, CAPACITY);
+        read(stmt);
+    }
+
+    /**
+     * Read the rows after an id, oldest first
+     *
+     * @return How many rows were read
+     */
+    private int readAfter(Connection conn, long id) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("SELECT id, activity, username, title, occurred_at "
+                + "FROM activity_log WHERE id > ? ORDER BY id LIMIT ?");
+        stmt.setLong(1, id);
+        stmt.setInt(2, CAPACITY + LATE_COMMIT_MARGIN);
+        return read(stmt);
+    }
+
+    private int read(PreparedStatement stmt) throws SQLException {
+        int count = 0;
+        ResultSet rs = stmt.executeQuery();
+        while (rs.next()) {
+            long id = rs.getLong("id");
+            Timestamp occurredAt = rs.getTimestamp("occurred_at");
+            entries.put(new Key(occurredAt.getTime(), id), new Entry(rs.getString("activity"),
+                    rs.getString("username"), rs.getString("title"), occurredAt.getTime()));
+            lastId = Math.max(lastId, id);
+            count++;
+        }
+        rs.close();
+        stmt.close();
+        return count;
+    }
+
+    // Orders entries as readNewest does: by time, then id
+    private record Key(long time, long id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * One logged activity; username is null for catalog edits
+     */
+    public record Entry(String activity, String username, String title, long time) {
+    }
+}
@@ -8,6 +8,8 @@ import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
@@ -18,6 +20,9 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
 
     private Timer refreshTimer;
 
+    // Events arriving within this window are handled together
+    private static final long EVENT_DEBOUNCE_MS = 1000;
+
     // Database connection
     private Connection connection;
     
@@ -31,7 +36,8 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
 
     // Tables
     private JTable booksTable, membersTable, librariansTable, reportsTable;
-    private DefaultTableModel booksTableModel, membersTableModel, librariansTableModel, reportsTableModel;
+    private DefaultTableModel librariansTableModel, reportsTableModel;
+    private PagedTableModel booksTableModel, membersTableModel;
     
     // Search components
     private JTextField bookSearchField, memberSearchField, librarianSearchField;
@@ -40,6 +46,28 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
     // For reports
     private JComboBox<String> reportTypeComboBox;
     private JButton generateReportButton;
+
+    // Background loading
+    private final DashboardStartup startup = new DashboardStartup("AdminDashboard");
+    private JLabel loadingLabel;
+
+    // Change tracking for incremental refreshes, and the filter currently applied to each table
+    private final ChangeTracker changeTracker = new ChangeTracker();
+
+    // Columns of the books and members tables (a book row is a title, with its copy counts)
+    private static final String BOOK_COLUMNS = "t.isbn, t.title, t.author, t.genre, t.year, t.copies, "
+            + "t.available_copies AS available";
+    private static final String MEMBER_COLUMNS = "u.username, u.full_name, u.email, '-' AS phone, u.registration_date, "
+            + "(SELECT COUNT(*) FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL) AS borrowed, "
+            + "CASE WHEN EXISTS (SELECT 1 FROM borrowed_books bb WHERE bb.username = u.username "
+            + "AND bb.return_date IS NULL AND bb.due_date < CURRENT_DATE()) THEN 'Overdue Books' ELSE 'Active' END AS status";
+    private String librarianSearchText = "";
+    private String memberSearchText = "";
+    private final DatabaseWorker worker = new DatabaseWorker(busy -> {
+        if (loadingLabel != null) {
+            loadingLabel.setVisible(busy);
+        }
+    });
     
     /**
      * Constructor for the AdminDashboard
@@ -100,20 +128,30 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
 
         add(mainPanel);
 
-        // Load initial data
-        loadDashboardData();
-        loadLibrariansData();
-        loadBooksData();
-        loadMembersData();
-
-        // Register for database events
+        // Load initial data in parallel
+        startup.track(loadDashboardData());
+        startup.track(loadLibrariansData());
+        startup.track(loadBooksData());
+        startup.track(loadMembersData());
+        startup.track(loadBookGenres());
+        startup.start();
+
+        // Register for database events (weakly, so a disposed dashboard is dropped); changes made
+        // on other workstations arrive through the event manager's transport
+        DatabaseSetup.initEventManager();
+        LibraryStats.getInstance().start();
+        ViewRollup.getInstance().start();
         DatabaseEventManager eventManager = DatabaseEventManager.getInstance();
-        eventManager.addListener(DatabaseEventManager.EVENT_BOOK_CHECKOUT, this);
-        eventManager.addListener(DatabaseEventManager.EVENT_BOOK_RETURN, this);
-        eventManager.addListener(DatabaseEventManager.EVENT_DATA_CHANGED, this);
+        for (EventType eventType : EventType.values()) {
+            eventManager.addWeakListener(eventType, this);
+        }
 
-        // Set up a timer for periodic refresh (every 30 seconds)
-        refreshTimer = new Timer(30000, e -> refreshData());
+        // Changes arrive as events, so the timer only watches for the date to roll over
+        refreshTimer = new Timer(60000, e -> {
+            if (changeTracker.isOutdated()) {
+                reloadAllData();
+            }
+        });
         refreshTimer.start();
 
         // Add window listener to close connection and unregister events
@@ -124,47 +162,136 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
                 if (refreshTimer != null && refreshTimer.isRunning()) {
                     refreshTimer.stop();
                 }
+                // Cancel any loads still in flight
+                worker.dispose();
                 // Unregister from events
-                DatabaseEventManager eventManager = DatabaseEventManager.getInstance();
-                eventManager.removeListener(DatabaseEventManager.EVENT_BOOK_CHECKOUT, AdminDashboard.this);
-                eventManager.removeListener(DatabaseEventManager.EVENT_BOOK_RETURN, AdminDashboard.this);
-                eventManager.removeListener(DatabaseEventManager.EVENT_DATA_CHANGED, AdminDashboard.this);
+                DatabaseEventManager.getInstance().removeAllListeners(AdminDashboard.this);
             }
         });
     }
     
+    /**
+     * Hold the first show until the initial loads have published
+     */
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible && !startup.isReady()) {
+            startup.showWhenReady(() -> super.setVisible(true));
+            return;
+        }
+        if (!visible) {
+            startup.cancelShow();
+        }
+        super.setVisible(visible);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        startup.framePainted();
+    }
+
     /**
      * Implement the event handler method for database events
      */
     @Override
     public void onDatabaseEvent(DatabaseEventManager.DatabaseEvent event) {
-        String eventType = event.getEventType();
+        EventType eventType = event.getEventType();
+        if (eventType == EventType.BOOK_VIEWED) {
+            return; // Nothing on this dashboard shows book views
+        }
+        
+        // Something was just written, make the next version probe go to the database
+        DataVersion.invalidate();
         
         // Use SwingUtilities.invokeLater to ensure UI updates happen on the EDT
         SwingUtilities.invokeLater(() -> {
-            System.out.println("AdminDashboard received event: " + eventType);
+            System.out.println("AdminDashboard received event: " + eventType + " (x" + event.getCount() + ")");
             
-            if (eventType.equals(DatabaseEventManager.EVENT_BOOK_RETURN) ||
-                eventType.equals(DatabaseEventManager.EVENT_BOOK_CHECKOUT)) {
-                // Refresh relevant data
-                loadDashboardData();
-                loadBooksData();
+            // Every event type is handled the same way: only the changed rows are re-read
+            refreshData();
+        });
+    }
+
+    /**
+     * Collect bursts of events (e.g. a class returning books at once) into one refresh
+     */
+    @Override
+    public long getDebounceMillis(EventType eventType) {
+        return EVENT_DEBOUNCE_MS;
+    }
+
+    /**
+     * Refresh the rows that changed since the last refresh
+     */
+    private void refreshData() {
+        long from = changeTracker.getWatermark();
+        if (from == ChangeTracker.NONE) {
+            return; // A full load is still running
+        }
+
+        if (changeTracker.isOutdated()) {
+            // Loans may have become overdue overnight, reload everything
+            reloadAllData();
+            return;
+        }
+
+        // Capture the current filter for the background query
+        String librarianSearch = librarianSearchText;
+
+        worker.load("refresh", conn -> {
+            // Probe the data version first and skip the refresh if nothing was written
+            if (DataVersion.current(conn) <= from) {
+                return null;
             }
-            else if (eventType.equals(DatabaseEventManager.EVENT_DATA_CHANGED)) {
-                // Generic data change event, refresh all data
-                refreshData();
+
+            ChangeTracker.Changes changes = changeTracker.fetchSince(conn, from);
+            if (changes.isEmpty() || changes.isOverflow()) {
+                return changes;
             }
+
+            // Re-read only the librarians whose keys changed; the paged tables reload their visible pages
+            changes.putRows("librarians", queryLibrarians(conn, librarianSearch, changes.keys("users")));
+            return changes;
+        }, changes -> {
+            if (changes == null) {
+                return;
+            }
+            if (changes.isOverflow()) {
+                reloadAllData();
+                return;
+            }
+            if (changes.isEmpty()) {
+                return;
+            }
+
+            // The paged tables re-read the pages in view; librarians are patched in place
+            // (if its filter changed meanwhile it is being reloaded anyway)
+            if (changes.hasChanges("books")) {
+                booksTableModel.reload();
+            }
+            if (Objects.equals(librarianSearch, librarianSearchText)) {
+                ChangeTracker.patch(librariansTableModel, 0, 1, changes.keys("users"), changes.rows("librarians"));
+            }
+            if (changes.hasChanges("users")) {
+                membersTableModel.reload();
+            }
+            changeTracker.advance(from, changes.getWatermark());
+
+            // The stats are small, just reload them
+            loadDashboardData();
         });
     }
 
     /**
-     * Refresh all dashboard data
+     * Reload every table from scratch, keeping the current filters
      */
-    private void refreshData() {
+    private void reloadAllData() {
+        changeTracker.reset();
         loadDashboardData();
-        loadLibrariansData();
+        filterLibrariansTable(librarianSearchText);
         loadBooksData();
-        loadMembersData();
+        filterMembersTable(memberSearchText);
     }
 
     /**
@@ -191,6 +318,12 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
         JLabel adminLabel = new JLabel("Admin: " + adminName);
         adminLabel.setForeground(Color.LIGHT_GRAY);
 
+        // Shown while dashboard data is loading in the background
+        loadingLabel = new JLabel("Loading...");
+        loadingLabel.setForeground(Color.GRAY);
+        loadingLabel.setFont(new Font("Arial", Font.ITALIC, 12));
+        loadingLabel.setVisible(false);
+
         JButton profileButton = new JButton("Profile");
         profileButton.setBackground(new Color(60, 60, 60));
         profileButton.setForeground(Color.black);
@@ -211,7 +344,8 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
 		        "Logout Confirmation", JOptionPane.YES_NO_OPTION);
 
 		    if (option == JOptionPane.YES_OPTION) {
-		        // Close the database connection before disposing the dashboard
+		        // Stop background loads and close the database connection before disposing the dashboard
+		        worker.dispose();
 		        DatabaseConnection.closeConnection();
 		        System.out.println("Connection closed during logout");
 		        
@@ -236,6 +370,8 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
 
         rightPanel.add(adminLabel);
         rightPanel.add(Box.createRigidArea(new Dimension(15, 0)));
+        rightPanel.add(loadingLabel);
+        rightPanel.add(Box.createRigidArea(new Dimension(10, 0)));
         rightPanel.add(profileButton);
         rightPanel.add(Box.createRigidArea(new Dimension(10, 0)));
         rightPanel.add(logoutButton);
@@ -716,9 +852,6 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
         activitiesPanel.add(activityScroll, BorderLayout.CENTER);
         panel.add(activitiesPanel);
         
-        // Load initial data from database
-        loadDashboardData();
-        
         return panel;
     }
 
@@ -783,73 +916,19 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
     /**
      * Load dashboard data from database
      */
-    private void loadDashboardData() {
-        try {
-            // Get total books count
-            String booksSql = "SELECT COUNT(*) FROM books";
-            PreparedStatement booksStmt = connection.prepareStatement(booksSql);
-            ResultSet booksRs = booksStmt.executeQuery();
-
-            if (booksRs.next()) {
-                totalBooksLabel.setText(String.valueOf(booksRs.getInt(1)));
-            }
-
-            booksRs.close();
-            booksStmt.close();
-
-            // Get checked out books count
-            String borrowedSql = "SELECT COUNT(*) FROM borrowed_books WHERE return_date IS NULL";
-            PreparedStatement borrowedStmt = connection.prepareStatement(borrowedSql);
-            ResultSet borrowedRs = borrowedStmt.executeQuery();
-
-            if (borrowedRs.next()) {
-                borrowedBooksLabel.setText(String.valueOf(borrowedRs.getInt(1)));
-            }
-
-            borrowedRs.close();
-            borrowedStmt.close();
-
-            // Get overdue books count
-            String overdueSql = "SELECT COUNT(*) FROM borrowed_books WHERE return_date IS NULL AND due_date < CURRENT_DATE()";
-            PreparedStatement overdueStmt = connection.prepareStatement(overdueSql);
-            ResultSet overdueRs = overdueStmt.executeQuery();
-
-            if (overdueRs.next()) {
-                overdueBooksLabel.setText(String.valueOf(overdueRs.getInt(1)));
-            }
-
-            overdueRs.close();
-            overdueStmt.close();
-
-            // Get active members count
-            String membersSql = "SELECT COUNT(*) FROM users WHERE role = 'member'";
-            PreparedStatement membersStmt = connection.prepareStatement(membersSql);
-            ResultSet membersRs = membersStmt.executeQuery();
-
-            if (membersRs.next()) {
-                activeMembersLabel.setText(String.valueOf(membersRs.getInt(1)));
-            }
-
-            membersRs.close();
-            membersStmt.close();
-            
-            // Get librarians count
-            String librariansSql = "SELECT COUNT(*) FROM users WHERE role = 'librarian'";
-            PreparedStatement librariansStmt = connection.prepareStatement(librariansSql);
-            ResultSet librariansRs = librariansStmt.executeQuery();
-
-            if (librariansRs.next()) {
-                librariansCountLabel.setText(String.valueOf(librariansRs.getInt(1)));
-            }
-
-            librariansRs.close();
-            librariansStmt.close();
-
-        } catch (SQLException e) {
+    private CompletableFuture<Void> loadDashboardData() {
+        // Every card is read from the maintained counters
+        return worker.load("dashboard", conn -> LibraryStats.getInstance().read(conn), counts -> {
+            totalBooksLabel.setText(String.valueOf(counts.getTotalBooks()));
+            borrowedBooksLabel.setText(String.valueOf(counts.getOpenLoans()));
+            overdueBooksLabel.setText(String.valueOf(counts.getOverdueLoans()));
+            activeMembersLabel.setText(String.valueOf(counts.getMembers()));
+            librariansCountLabel.setText(String.valueOf(counts.getLibrarians()));
+        }, e -> {
             JOptionPane.showMessageDialog(this, "Error loading dashboard data: " + e.getMessage(), "Database Error",
                     JOptionPane.ERROR_MESSAGE);
             e.printStackTrace();
-        }
+        });
     }
     
     /**
@@ -980,93 +1059,87 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
     /**
      * Load librarian data from database
      */
-    private void loadLibrariansData() {
-        librariansTableModel.setRowCount(0);
-
-        try {
-            String sql = "SELECT username, full_name, email, registration_date, last_login " +
-                         "FROM users WHERE role = 'librarian' ORDER BY full_name";
-            PreparedStatement stmt = connection.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                String username = rs.getString("username");
-                String fullName = rs.getString("full_name");
-                String email = rs.getString("email");
-                String joinDate = rs.getString("registration_date");
-                String lastLogin = rs.getString("last_login");
-                
-                // For status, we'll just use "Active" for now
-                String status = "Active";
-
-                librariansTableModel.addRow(new Object[] { 
-                    username, fullName, email, joinDate, 
-                    (lastLogin != null ? lastLogin : "Never"), status, "Edit/Remove" 
-                });
-            }
-
-            rs.close();
-            stmt.close();
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading librarians data: " + e.getMessage(), 
-                "Database Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+    private CompletableFuture<Void> loadLibrariansData() {
+        return filterLibrariansTable("");
     }
     
     /**
      * Filter librarians table based on search text
      */
-    private void filterLibrariansTable(String searchText) {
-        librariansTableModel.setRowCount(0);
+    private CompletableFuture<Void> filterLibrariansTable(String searchText) {
+        // Remember the filter so that refreshes only patch in matching rows
+        librarianSearchText = searchText;
+
+        return worker.load("librarians", changeTracker.snapshot(conn -> queryLibrarians(conn, searchText, null)),
+                DatabaseWorker.rowsInto(librariansTableModel), e -> {
+            JOptionPane.showMessageDialog(this, (searchText.isEmpty() ? "Error loading librarians data: "
+                    : "Error filtering librarians: ") + e.getMessage(), 
+                "Database Error", JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
+    }
 
-        try {
-            StringBuilder sqlBuilder = new StringBuilder();
-            sqlBuilder.append("SELECT username, full_name, email, registration_date, last_login ")
-                      .append("FROM users WHERE role = 'librarian' ");
+    /**
+     * Query librarian rows matching a search, optionally limited to the given usernames
+     */
+    private List<Object[]> queryLibrarians(Connection conn, String searchText, Collection<String> usernames)
+            throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        if (usernames != null && usernames.isEmpty()) {
+            return rows;
+        }
 
-            if (!searchText.isEmpty()) {
-                sqlBuilder.append("AND (LOWER(username) LIKE ? OR LOWER(full_name) LIKE ? OR LOWER(email) LIKE ?) ");
-            }
+        StringBuilder sqlBuilder = new StringBuilder();
+        sqlBuilder.append("SELECT username, full_name, email, registration_date, last_login ")
+                  .append("FROM users WHERE role = 'librarian' ");
 
-            sqlBuilder.append("ORDER BY full_name");
+        if (!searchText.isEmpty()) {
+            sqlBuilder.append("AND (LOWER(username) LIKE ? OR LOWER(full_name) LIKE ? OR LOWER(email) LIKE ?) ");
+        }
 
-            PreparedStatement stmt = connection.prepareStatement(sqlBuilder.toString());
+        if (usernames != null) {
+            sqlBuilder.append("AND username IN (").append(ChangeTracker.placeholders(usernames.size())).append(") ");
+        }
 
-            if (!searchText.isEmpty()) {
-                String searchPattern = "%" + searchText.toLowerCase() + "%";
-                stmt.setString(1, searchPattern);
-                stmt.setString(2, searchPattern);
-                stmt.setString(3, searchPattern);
-            }
+        sqlBuilder.append("ORDER BY full_name");
 
-            ResultSet rs = stmt.executeQuery();
+        PreparedStatement stmt = conn.prepareStatement(sqlBuilder.toString());
 
-            while (rs.next()) {
-                String username = rs.getString("username");
-                String fullName = rs.getString("full_name");
-                String email = rs.getString("email");
-                String joinDate = rs.getString("registration_date");
-                String lastLogin = rs.getString("last_login");
-                
-                // For status, we'll just use "Active" for now
-                String status = "Active";
+        int paramIndex = 1;
+        if (!searchText.isEmpty()) {
+            String searchPattern = "%" + searchText.toLowerCase() + "%";
+            stmt.setString(paramIndex++, searchPattern);
+            stmt.setString(paramIndex++, searchPattern);
+            stmt.setString(paramIndex++, searchPattern);
+        }
 
-                librariansTableModel.addRow(new Object[] { 
-                    username, fullName, email, joinDate, 
-                    (lastLogin != null ? lastLogin : "Never"), status, "Edit/Remove" 
-                });
+        if (usernames != null) {
+            for (String username : usernames) {
+                stmt.setString(paramIndex++, username);
             }
+        }
 
-            rs.close();
-            stmt.close();
+        ResultSet rs = stmt.executeQuery();
 
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error filtering librarians: " + e.getMessage(), 
-                "Database Error", JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
+        while (rs.next()) {
+            String username = rs.getString("username");
+            String fullName = rs.getString("full_name");
+            String email = rs.getString("email");
+            String joinDate = rs.getString("registration_date");
+            String lastLogin = rs.getString("last_login");
+            
+            // For status, we'll just use "Active" for now
+            String status = "Active";
+
+            rows.add(new Object[] { 
+                username, fullName, email, joinDate, 
+                (lastLogin != null ? lastLogin : "Never"), status, "Edit/Remove" 
+            });
         }
+
+        rs.close();
+        stmt.close();
+        return rows;
     }
     
     /**
@@ -1239,6 +1312,9 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
                         "Librarian added successfully!",
                         "Success", JOptionPane.INFORMATION_MESSAGE);
                 
+                // Let the other dashboards and workstations know
+                DatabaseEventManager.getInstance().fireEvent(new DataChangedEvent());
+
                 // Refresh data
                 loadDashboardData();
                 loadLibrariansData();
@@ -1595,14 +1671,26 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
         // Books table with proper spacing and centered
         String[] columns = { "ISBN", "Title", "Author", "Genre", "Publication Year", "Copies", "Available Copies", "Actions" };
         
-        booksTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 7; // Only actions column is editable
-            }
-        };
+        // One row per title, read a page at a time as the table scrolls; only actions column is editable
+        booksTableModel = new PagedTableModel(worker, "books", columns, 7, BOOK_COLUMNS, "titles t",
+                "t.id", rs -> new Object[] { rs.getString("isbn"), rs.getString("title"),
+                        rs.getString("author"), rs.getString("genre"), rs.getInt("year"), rs.getInt("copies"),
+                        rs.getInt("available"), "Edit/Delete" });
+        booksTableModel.setSortKey(0, "t.isbn");
+        booksTableModel.setSortKey(1, "t.title");
+        booksTableModel.setSortKey(2, "t.author");
+        booksTableModel.setSortKey(3, "t.genre");
+        booksTableModel.setSortKey(4, "t.year");
+        booksTableModel.setDefaultSort(1, true);
+        booksTableModel.setChangeTracker(changeTracker);
+        booksTableModel.setReloadErrorHandler(e -> {
+            JOptionPane.showMessageDialog(this, "Error loading books data: " + e.getMessage(), "Database Error",
+                    JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
         
         booksTable = new JTable(booksTableModel);
+        booksTableModel.installSortHeader(booksTable);
         booksTable.setBackground(new Color(40, 40, 40));
         booksTable.setForeground(Color.WHITE);
         booksTable.setGridColor(new Color(60, 60, 60));
@@ -1642,76 +1730,45 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
         // Add action listeners for buttons
         // (These would connect to the LibrarianDashboard's methods, which we're not implementing here)
         
-        // Load genre categories from database
-        loadBookGenres();
-        
         return panel;
     }
     
     /**
      * Load book genres
      */
-    private void loadBookGenres() {
-        try {
-            String sql = "SELECT DISTINCT genre FROM books ORDER BY genre";
-            PreparedStatement stmt = connection.prepareStatement(sql);
+    private CompletableFuture<Void> loadBookGenres() {
+        return worker.load("genres", conn -> {
+            String sql = "SELECT DISTINCT genre FROM titles ORDER BY genre";
+            PreparedStatement stmt = conn.prepareStatement(sql);
             ResultSet rs = stmt.executeQuery();
 
-            // Clear existing items but keep "All Genres"
-            bookCategoryFilter.removeAllItems();
-            bookCategoryFilter.addItem("All Genres");
-
+            List<String> genres = new ArrayList<>();
             while (rs.next()) {
                 String genre = rs.getString("genre");
                 if (genre != null && !genre.isEmpty()) {
-                    bookCategoryFilter.addItem(genre);
+                	genres.add(genre);
                 }
             }
 
             rs.close();
             stmt.close();
+            return genres;
+        }, genres -> {
+            // Clear existing items but keep "All Genres"
+            bookCategoryFilter.removeAllItems();
+            bookCategoryFilter.addItem("All Genres");
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            for (String genre : genres) {
+                bookCategoryFilter.addItem(genre);
+            }
+        });
     }
     
     /**
      * Load books data
      */
-    private void loadBooksData() {
-        booksTableModel.setRowCount(0);
-
-        try {
-            String sql = "SELECT isbn, title, author, genre, year, "
-                    + "(SELECT COUNT(*) FROM books b2 WHERE b2.isbn = b.isbn) AS copies, "
-                    + "(SELECT COUNT(*) FROM books b2 WHERE b2.isbn = b.isbn AND b2.available = true) AS available "
-                    + "FROM books b " + "GROUP BY isbn ORDER BY title";
-
-            PreparedStatement stmt = connection.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                String isbn = rs.getString("isbn");
-                String title = rs.getString("title");
-                String author = rs.getString("author");
-                String genre = rs.getString("genre");
-                int year = rs.getInt("year");
-                int copies = rs.getInt("copies");
-                int available = rs.getInt("available");
-
-                booksTableModel
-                        .addRow(new Object[] { isbn, title, author, genre, year, copies, available, "Edit/Delete" });
-            }
-
-            rs.close();
-            stmt.close();
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading books data: " + e.getMessage(), "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+    private CompletableFuture<Void> loadBooksData() {
+        return booksTableModel.setFilter(null);
     }
     
     /**
@@ -1782,14 +1839,26 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
         // Members table with centered positioning
         String[] columns = { "Member ID", "Name", "Email", "Phone", "Join Date", "Books Borrowed", "Status", "Actions" };
         
-        membersTableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 7; // Only actions column is editable
-            }
-        };
+        // Members are read a page at a time as the table scrolls; only actions column is editable
+        membersTableModel = new PagedTableModel(worker, "members", columns, 7, MEMBER_COLUMNS, "users u",
+                "u.username", rs -> new Object[] { rs.getString("username"), rs.getString("full_name"),
+                        rs.getString("email"), rs.getString("phone"), rs.getString("registration_date"),
+                        rs.getInt("borrowed"), rs.getString("status"), "View/Edit" });
+        membersTableModel.setSortKey(0, "u.username");
+        membersTableModel.setSortKey(1, "u.full_name");
+        membersTableModel.setSortKey(2, "u.email");
+        membersTableModel.setSortKey(4, "u.registration_date");
+        membersTableModel.setDefaultSort(1, true);
+        membersTableModel.setChangeTracker(changeTracker);
+        membersTableModel.setReloadErrorHandler(e -> {
+            JOptionPane.showMessageDialog(this, (memberSearchText.isEmpty() ? "Error loading members data: "
+                    : "Error filtering members: ") + e.getMessage(), "Database Error",
+                    JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        });
         
         membersTable = new JTable(membersTableModel);
+        membersTableModel.installSortHeader(membersTable);
         membersTable.setBackground(new Color(40, 40, 40));
         membersTable.setForeground(Color.WHITE);
         membersTable.setGridColor(new Color(60, 60, 60));
@@ -1841,41 +1910,8 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
     /**
      * Load members data
      */
-    private void loadMembersData() {
-        membersTableModel.setRowCount(0);
-
-        try {
-            String sql = "SELECT u.username, u.full_name, u.email, " + "'-' AS phone, " +
-                    "u.registration_date, " +
-                    "(SELECT COUNT(*) FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL) AS borrowed, " +
-                    "CASE WHEN EXISTS (SELECT 1 FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL AND bb.due_date < CURRENT_DATE()) " +
-                    "THEN 'Overdue Books' ELSE 'Active' END AS status " + "FROM users u " + "WHERE u.role = 'member' " +
-                    "ORDER BY u.full_name";
-
-            PreparedStatement stmt = connection.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                String username = rs.getString("username");
-                String fullName = rs.getString("full_name");
-                String email = rs.getString("email");
-                String phone = rs.getString("phone");
-                String joinDate = rs.getString("registration_date");
-                int borrowed = rs.getInt("borrowed");
-                String status = rs.getString("status");
-
-                membersTableModel.addRow(
-                        new Object[] { username, fullName, email, phone, joinDate, borrowed, status, "View/Edit" });
-            }
-
-            rs.close();
-            stmt.close();
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error loading members data: " + e.getMessage(), "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+    private CompletableFuture<Void> loadMembersData() {
+        return filterMembersTable("");
     }
     
     /**
@@ -2235,6 +2271,9 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
                         "Librarian information updated successfully!",
                         "Update Successful", JOptionPane.INFORMATION_MESSAGE);
                     
+                    // Let the other dashboards and workstations know
+                    DatabaseEventManager.getInstance().fireEvent(new DataChangedEvent());
+
                     // Refresh the table
                     loadLibrariansData();
                     
@@ -2292,6 +2331,9 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
                             "Librarian '" + fullName + "' has been removed successfully.",
                             "Librarian Removed", JOptionPane.INFORMATION_MESSAGE);
                     
+                    // Let the other dashboards and workstations know
+                    DatabaseEventManager.getInstance().fireEvent(new DataChangedEvent());
+
                     // Refresh the data
                     loadLibrariansData();
                     loadDashboardData();
@@ -2313,59 +2355,22 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
     /**
      * Filter members table based on search text
      */
-    private void filterMembersTable(String searchText) {
-        membersTableModel.setRowCount(0);
-
-        try {
-            StringBuilder sqlBuilder = new StringBuilder();
-            sqlBuilder.append("SELECT u.username, u.full_name, u.email, ").append("'-' AS phone, ")
-                    .append("u.registration_date, ")
-                    .append("(SELECT COUNT(*) FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL) AS borrowed, ")
-                    .append("CASE WHEN EXISTS (SELECT 1 FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL AND bb.due_date < CURRENT_DATE()) ")
-                    .append("THEN 'Overdue Books' ELSE 'Active' END AS status ")
-                    .append("FROM users u WHERE u.role = 'member' ");
-
-            if (!searchText.isEmpty()) {
-                sqlBuilder.append(
-                        "AND (LOWER(u.username) LIKE ? OR LOWER(u.full_name) LIKE ? OR LOWER(u.email) LIKE ?) ");
-            }
-
-            sqlBuilder.append("ORDER BY u.full_name");
-
-            PreparedStatement stmt = connection.prepareStatement(sqlBuilder.toString());
+    private CompletableFuture<Void> filterMembersTable(String searchText) {
+        // Remember the filter so that refreshes only patch in matching rows
+        memberSearchText = searchText;
 
-            if (!searchText.isEmpty()) {
-                String searchPattern = "%" + searchText.toLowerCase() + "%";
-                stmt.setString(1, searchPattern);
-                stmt.setString(2, searchPattern);
-                stmt.setString(3, searchPattern);
+        return membersTableModel.setFilter((conn, params) -> {
+            if (searchText.isEmpty()) {
+                return "u.role = 'member'";
             }
-
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                String username = rs.getString("username");
-                String fullName = rs.getString("full_name");
-                String email = rs.getString("email");
-                String phone = rs.getString("phone");
-                String joinDate = rs.getString("registration_date");
-                int borrowed = rs.getInt("borrowed");
-                String status = rs.getString("status");
-
-                membersTableModel.addRow(
-                        new Object[] { username, fullName, email, phone, joinDate, borrowed, status, "View/Edit" });
-            }
-
-            rs.close();
-            stmt.close();
-
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this, "Error filtering members: " + e.getMessage(), "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        }
+            String searchPattern = "%" + searchText.toLowerCase() + "%";
+            params.add(searchPattern);
+            params.add(searchPattern);
+            params.add(searchPattern);
+            return "u.role = 'member' AND (LOWER(u.username) LIKE ? OR LOWER(u.full_name) LIKE ? OR LOWER(u.email) LIKE ?)";
+        });
     }
-    
+
     /**
      * Create the footer panel
      */
@@ -2398,7 +2403,7 @@ public class AdminDashboard extends JFrame implements DatabaseEventListener {
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
                 boolean hasFocus, int row, int column) {
-            setText(value.toString());
+            setText(value != null ? value.toString() : "");
             return this;
         }
     }
@@ -0,0 +1,10 @@
+/**
+ * Copies of a book were added to the catalog
+ */
+public record BookAddedEvent(String isbn, String title, int copies) implements LibraryEvent {
+
+    @Override
+    public EventType type() {
+        return EventType.BOOK_ADDED;
+    }
+}
@@ -0,0 +1,151 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookViewRecorder - Records the books members open without a database round trip per view.
+ *
+ * Views are queued in memory and written to book_views by a background thread, one JDBC
+ * batch every FLUSH_INTERVAL_MS (sooner once BATCH_SIZE are waiting), and a BookViewedEvent
+ * is fired for each once it is written. Opening a book the user already opened within
+ * DEDUP_WINDOW_MS is not recorded again. Each user's latest view is kept here too, so the
+ * "Recently Viewed" card is updated without a query.
+ */
+public class BookViewRecorder {
+
+    // Repeat views of a book by the same user within this window count once
+    private static final long DEDUP_WINDOW_MS = 10 * 60 * 1000;
+
+    private static final long FLUSH_INTERVAL_MS = 2000;
+    private static final int BATCH_SIZE = 200;
+
+    // The dedup map is swept of expired entries once it grows past this
+    private static final int MAX_TRACKED = 10000;
+
+    private static BookViewRecorder instance;
+
+    // Views waiting to be written (kept until the batch succeeds)
+    private final Queue<View> pending = new ConcurrentLinkedQueue<>();
+
+    // When each "username bookId" was last recorded (guarded by itself)
+    private final Map<String, Long> lastRecorded = new HashMap<>();
+
+    // Each user's most recent view, recorded or not
+    private final Map<String, View> latest = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor;
+    private boolean failing = false;
+
+    private BookViewRecorder() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "BookedIn-view-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "BookedIn-view-close"));
+    }
+
+    public static synchronized BookViewRecorder getInstance() {
+        if (instance == null) {
+            instance = new BookViewRecorder();
+        }
+        return instance;
+    }
+
+    /**
+     * Record that a user opened a book
+     *
+     * @return Whether the view was recorded (false for a repeat within the dedup window)
+     */
+    public boolean record(int bookId, String title, String author, String username) {
+        long now = System.currentTimeMillis();
+        View view = new View(bookId, title, author, username, now);
+        latest.put(username, view);
+
+        synchronized (lastRecorded) {
+            String key = username + " " + bookId;
+            Long last = lastRecorded.get(key);
+            if (last != null && now - last < DEDUP_WINDOW_MS) {
+                return false;
+            }
+            lastRecorded.put(key, now);
+            if (lastRecorded.size() > MAX_TRACKED) {
+                lastRecorded.values().removeIf(time -> now - time >= DEDUP_WINDOW_MS);
+            }
+        }
+
+        pending.add(view);
+        if (pending.size() >= BATCH_SIZE) {
+            executor.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * The book the user opened last in this session, or null
+     */
+    public View latest(String username) {
+        return latest.get(username);
+    }
+
+    private synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<View> batch = new ArrayList<>();
+            Iterator<View> it = pending.iterator();
+            while (it.hasNext() && batch.size() < BATCH_SIZE) {
+                batch.add(it.next());
+            }
+
+            try (Connection conn = DatabaseConnection.borrowConnection()) {
+                PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT INTO book_views (book_id, username, view_date) VALUES (?, ?, ?)");
+                for (View view : batch) {
+                    stmt.setInt(1, view.bookId());
+                    stmt.setString(2, view.username());
+                    stmt.setTimestamp(3, new Timestamp(view.time()));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                stmt.close();
+            } catch (SQLException e) {
+                // Left in the queue, the next flush tries again
+                if (!failing) {
+                    System.err.println("Error recording book views: " + e.getMessage());
+                    failing = true;
+                }
+                return;
+            }
+
+            // Only this thread removes, so the batch is still at the head of the queue
+            for (int i = 0; i < batch.size(); i++) {
+                pending.poll();
+            }
+            failing = false;
+
+            // Announced once written, so the activity feed finds them
+            for (View view : batch) {
+                DatabaseEventManager.getInstance().fireEvent(
+                        new BookViewedEvent(view.bookId(), view.title(), view.username()));
+            }
+        }
+    }
+
+    /**
+     * One book opened by one user
+     */
+    public record View(int bookId, String title, String author, String username, long time) {
+    }
+}
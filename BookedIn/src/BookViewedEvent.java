@@ -0,0 +1,10 @@
+/**
+ * A member opened the details of a book
+ */
+public record BookViewedEvent(int bookId, String title, String username) implements LibraryEvent {
+
+    @Override
+    public EventType type() {
+        return EventType.BOOK_VIEWED;
+    }
+}
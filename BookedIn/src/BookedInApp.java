@@ -1,48 +1,29 @@
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.JOptionPane;
 
 public class BookedInApp {
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/BookedIN";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "";
     
-    private static Connection connection = null;
+    // Most titles a catalog search returns (the best matches)
+    private static final int MAX_SEARCH_TITLES = 5000;
     
     public static Connection getConnection() {
-        if (connection == null) {
-            try {
-                // Load the MySQL JDBC driver
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                // Create connection
-                connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-                System.out.println("Database connection established");
-            } catch (ClassNotFoundException e) {
-                JOptionPane.showMessageDialog(null, 
-                    "Database driver not found. Please add MySQL connector to your classpath.", 
-                    "Database Error", 
-                    JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(null, 
-                    "Could not connect to database. Please check your database settings.\nError: " + e.getMessage(), 
-                    "Database Error", 
-                    JOptionPane.ERROR_MESSAGE);
-                e.printStackTrace();
-            }
+        try {
+            return DatabaseConnection.getConnection();
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(null, 
+                "Could not connect to database. Please check your database settings.\nError: " + e.getMessage(), 
+                "Database Error", 
+                JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+            return null;
         }
-        return connection;
     }
     
     public static void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                connection = null;
-                System.out.println("Database connection closed");
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-        }
+        DatabaseConnection.closeConnection();
+        System.out.println("Database connection closed");
     }
     
     // Validate user login credentials
@@ -127,10 +108,9 @@ public class BookedInApp {
     
     // Load popular books
     public static ResultSet getPopularBooks() {
-        String query = "SELECT b.id, b.title, b.author, COUNT(bb.book_id) as borrow_count " +
-                      "FROM books b " +
-                      "LEFT JOIN borrowed_books bb ON b.id = bb.book_id " +
-                      "GROUP BY b.id " +
+        // Read from the borrow counts kept on the title rows
+        String query = "SELECT id, title, author, borrow_count " +
+                      "FROM titles " +
                       "ORDER BY borrow_count DESC " +
                       "LIMIT 5";
         
@@ -173,21 +153,46 @@ public class BookedInApp {
     }
     
     // Search books by title, author, or genre
+    // Matches come from the catalog index; without sortBy they are ranked best first
     public static ResultSet searchBooks(String searchTerm, String sortBy) {
-        String query = "SELECT * FROM books WHERE title LIKE ? OR author LIKE ? OR genre LIKE ?";
-        
-        // Add sorting
-        if (sortBy != null && !sortBy.isEmpty()) {
-            query += " ORDER BY " + sortBy;
-        }
-        
         try {
             Connection conn = getConnection();
+            List<Integer> titleIds = new ArrayList<>();
+            boolean searching = searchTerm != null && !searchTerm.trim().isEmpty();
+            if (searching) {
+                for (CatalogIndex.Hit hit : CatalogIndex.getInstance().search(conn, searchTerm, MAX_SEARCH_TITLES)) {
+                    titleIds.add(hit.getTitleId());
+                }
+                if (titleIds.isEmpty()) {
+                    return conn.prepareStatement("SELECT * FROM books WHERE 1 = 0").executeQuery();
+                }
+            }
+            
+            // An empty term lists every book
+            String idList = ChangeTracker.placeholders(titleIds.size());
+            String query = "SELECT * FROM books";
+            if (searching) {
+                query += " WHERE title_id IN (" + idList + ")";
+            }
+            
+            // Add sorting
+            boolean ranked = searching && (sortBy == null || sortBy.isEmpty());
+            if (sortBy != null && !sortBy.isEmpty()) {
+                query += " ORDER BY " + sortBy;
+            } else if (ranked) {
+                query += " ORDER BY FIELD(title_id, " + idList + ")";
+            }
+            
             PreparedStatement pstmt = conn.prepareStatement(query);
-            String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, searchPattern);
+            int paramIndex = 1;
+            for (int id : titleIds) {
+                pstmt.setInt(paramIndex++, id);
+            }
+            if (ranked) {
+                for (int id : titleIds) {
+                    pstmt.setInt(paramIndex++, id);
+                }
+            }
             return pstmt.executeQuery();
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(null, 
@@ -245,7 +250,8 @@ public class BookedInApp {
         String query = "INSERT INTO book_reviews (book_id, username, rating, content, review_date) " +
                       "VALUES (?, ?, ?, ?, CURRENT_DATE())";
         
-        try (Connection conn = getConnection();
+        // Borrow a connection for this insert; closing it returns it to the pool
+        try (Connection conn = DatabaseConnection.borrowConnection();
              PreparedStatement pstmt = conn.prepareStatement(query)) {
             
             pstmt.setInt(1, bookId);
@@ -268,80 +274,23 @@ public class BookedInApp {
     
     // Checkout a book
     public static boolean checkoutBook(int bookId, String username) {
-        // First check if book is available
-        String checkQuery = "SELECT available FROM books WHERE id = ?";
-        String updateBookQuery = "UPDATE books SET available = 0 WHERE id = ?";
-        String borrowQuery = "INSERT INTO borrowed_books (book_id, username, borrow_date, due_date) " +
-                            "VALUES (?, ?, CURRENT_DATE(), DATE_ADD(CURRENT_DATE(), INTERVAL 14 DAY))";
-        
-        Connection conn = null;
-        PreparedStatement checkStmt = null;
-        PreparedStatement updateBookStmt = null;
-        PreparedStatement borrowStmt = null;
-        ResultSet rs = null;
-        
         try {
-            conn = getConnection();
-            conn.setAutoCommit(false); // Start transaction
-            
-            // Check if book is available
-            checkStmt = conn.prepareStatement(checkQuery);
-            checkStmt.setInt(1, bookId);
-            rs = checkStmt.executeQuery();
-            
-            if (rs.next() && rs.getBoolean("available")) {
-                // Update book status to unavailable
-                updateBookStmt = conn.prepareStatement(updateBookQuery);
-                updateBookStmt.setInt(1, bookId);
-                updateBookStmt.executeUpdate();
-                
-                // Create borrow record
-                borrowStmt = conn.prepareStatement(borrowQuery);
-                borrowStmt.setInt(1, bookId);
-                borrowStmt.setString(2, username);
-                borrowStmt.executeUpdate();
-                
-                conn.commit(); // Commit transaction
-                return true;
-            } else {
-                conn.rollback();
-                return false; // Book not available
-            }
-            
+            // Claims the copy only if it is still available, and records the loan with it
+            CirculationService.Checkout checkout = CirculationService.checkOutCopy(getConnection(), bookId, username, null);
+            return checkout.outcome() == CirculationService.Outcome.CHECKED_OUT;
         } catch (SQLException e) {
-            try {
-                if (conn != null) {
-                    conn.rollback();
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-            }
-            
             JOptionPane.showMessageDialog(null, 
                 "Error checking out book: " + e.getMessage(), 
                 "Database Error", 
                 JOptionPane.ERROR_MESSAGE);
             e.printStackTrace();
             return false;
-            
-        } finally {
-            try {
-                if (rs != null) rs.close();
-                if (checkStmt != null) checkStmt.close();
-                if (updateBookStmt != null) updateBookStmt.close();
-                if (borrowStmt != null) borrowStmt.close();
-                if (conn != null) {
-                    conn.setAutoCommit(true);
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-            }
         }
     }
     
     // Return a book
     public static boolean returnBook(int bookId, String username) {
-        String updateBookQuery = "UPDATE books SET available = 1 WHERE id = ?";
+        String updateBookQuery = "UPDATE copies SET available = 1 WHERE id = ?";
         String updateBorrowQuery = "UPDATE borrowed_books SET return_date = CURRENT_DATE() " +
                                   "WHERE book_id = ? AND username = ? AND return_date IS NULL";
         
@@ -0,0 +1,815 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * CatalogIndex - An in-memory full-text index of the book catalog.
+ *
+ * Every title (all copies with one ISBN) is a document made of its title, author, genre,
+ * publisher, description and ISBN. Text is split into lower-case words, and each word's
+ * postings list holds the documents it appears in, weighted by field (a word in the title
+ * counts more than one in the description). Searches rank the documents that contain every
+ * query word with BM25; the last word also matches as a prefix, so partly typed words work.
+ *
+ * A misspelt word that matches nothing is replaced by the title and author words closest to
+ * it: every such word is indexed by its trigrams (three-letter pieces, "tolkien" -> "  t", " to",
+ * "tol", "olk", ...), so candidates sharing enough trigrams are found without comparing
+ * against the whole vocabulary, then checked by edit distance. The closest ones also make
+ * up the "did you mean" suggestion.
+ *
+ * The index is built from one scan of books on first use and then follows change_log: each
+ * search first checks the shared DataVersion, and if books changed it re-reads just the
+ * changed ISBNs and replaces their documents.
+ */
+public class CatalogIndex {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // How much a word counts in each field
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float GENRE_WEIGHT = 1.5f;
+    private static final float OTHER_WEIGHT = 1.0f;
+
+    // Most words a partly typed last word is expanded to (the most common are kept)
+    private static final int MAX_PREFIX_TERMS = 64;
+
+    // Expansions of a partly typed word count for less than the word itself
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    // Typo correction: shortest word corrected, least share of trigrams in common, and the
+    // most corrections a misspelt word is searched as
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final int MAX_FUZZY_TERMS = 8;
+
+    private static final String BOOK_COLUMNS = "id, title_id, isbn, title, author, genre, publisher, description, year";
+
+    private static CatalogIndex instance;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Word -> postings, sorted so that prefixes can be looked up
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+
+    // Documents by ordinal (null once removed) and the ordinal of each key
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private int liveDocs = 0;
+    private double totalLength = 0;
+
+    // Words used in titles and authors, and the words containing each trigram
+    private final Map<String, Word> words = new HashMap<>();
+    private final List<Word> wordList = new ArrayList<>();
+    private final Map<String, WordIds> trigramIndex = new HashMap<>();
+
+    // Follows change_log; NONE until the first build
+    private final ChangeTracker changeTracker = new ChangeTracker();
+
+    private CatalogIndex() {
+    }
+
+    public static synchronized CatalogIndex getInstance() {
+        if (instance == null) {
+            instance = new CatalogIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Search the catalog, bringing the index up to date first
+     *
+     * @param conn  Connection used to check for and read changed books
+     * @param query Words to look for
+     * @param limit Most hits to return (0 for all)
+     * @return Matching titles, best first
+     */
+    public List<Hit> search(Connection conn, String query, int limit) throws SQLException {
+        refresh(conn);
+
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            return rank(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The query with each word that matches nothing replaced by the closest title or author
+     * word, or null if no word needed correcting
+     */
+    public String suggest(Connection conn, String query) throws SQLException {
+        refresh(conn);
+
+        List<String> terms = tokenize(query);
+        lock.readLock().lock();
+        try {
+            List<String> suggested = new ArrayList<>();
+            boolean corrected = false;
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                boolean found = dictionary.containsKey(term);
+                if (!found && i == terms.size() - 1) {
+                    String next = dictionary.higherKey(term);
+                    found = next != null && next.startsWith(term);
+                }
+                List<Correction> corrections = found ? null : corrections(term);
+                if (corrections == null || corrections.isEmpty()) {
+                    suggested.add(term);
+                } else {
+                    suggested.add(corrections.get(0).word);
+                    corrected = true;
+                }
+            }
+            return corrected ? String.join(" ", suggested) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Build the index if needed and apply any changes made to books since it was last updated
+     */
+    public void refresh(Connection conn) throws SQLException {
+        long from = changeTracker.getWatermark();
+        if (from != ChangeTracker.NONE && DataVersion.current(conn) <= from) {
+            return; // Nothing changed
+        }
+
+        lock.writeLock().lock();
+        try {
+            from = changeTracker.getWatermark();
+            if (from == ChangeTracker.NONE) {
+                rebuild(conn);
+                return;
+            }
+
+            ChangeTracker.Changes changes = changeTracker.fetchSince(conn, from);
+            if (changes.isOverflow()) {
+                rebuild(conn);
+                return;
+            }
+            if (changes.hasChanges("books")) {
+                reindex(conn, changes.keys("books"));
+            }
+            changeTracker.advance(from, changes.getWatermark());
+
+            if (docs.size() > 2 * liveDocs + 1024) {
+                // Mostly replaced documents, start again to free them
+                rebuild(conn);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuild(Connection conn) throws SQLException {
+        long start = System.currentTimeMillis();
+        changeTracker.reset();
+
+        dictionary.clear();
+        docs.clear();
+        ordinals.clear();
+        words.clear();
+        wordList.clear();
+        trigramIndex.clear();
+        liveDocs = 0;
+        totalLength = 0;
+
+        changeTracker.snapshot(c -> {
+            Statement stmt = c.createStatement();
+            ResultSet rs = stmt.executeQuery("SELECT " + BOOK_COLUMNS + " FROM books ORDER BY id");
+            addDocs(rs);
+            rs.close();
+            stmt.close();
+            return null;
+        }).run(conn);
+
+        System.out.println("Catalog index built: " + liveDocs + " titles, " + dictionary.size() + " words in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Replace the documents for the given ISBNs with their current rows
+     */
+    private void reindex(Connection conn, Collection<String> isbns) throws SQLException {
+        for (String isbn : isbns) {
+            if (isbn.isEmpty()) {
+                // Books without an ISBN are indexed one per copy, re-read them all
+                for (String key : new ArrayList<>(ordinals.keySet())) {
+                    if (key.startsWith("#")) {
+                        removeDoc(key);
+                    }
+                }
+            } else {
+                removeDoc(isbn);
+            }
+        }
+
+        List<String> withIsbn = new ArrayList<>();
+        boolean withoutIsbn = false;
+        for (String isbn : isbns) {
+            if (isbn.isEmpty()) {
+                withoutIsbn = true;
+            } else {
+                withIsbn.add(isbn);
+            }
+        }
+
+        if (!withIsbn.isEmpty()) {
+            PreparedStatement stmt = conn.prepareStatement("SELECT " + BOOK_COLUMNS + " FROM books WHERE isbn IN ("
+                    + ChangeTracker.placeholders(withIsbn.size()) + ") ORDER BY id");
+            for (int i = 0; i < withIsbn.size(); i++) {
+                stmt.setString(i + 1, withIsbn.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            addDocs(rs);
+            rs.close();
+            stmt.close();
+        }
+        if (withoutIsbn) {
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery(
+                    "SELECT " + BOOK_COLUMNS + " FROM books WHERE isbn IS NULL OR isbn = '' ORDER BY id");
+            addDocs(rs);
+            rs.close();
+            stmt.close();
+        }
+    }
+
+    /**
+     * Index book rows; copies of one ISBN become a single document
+     */
+    private void addDocs(ResultSet rs) throws SQLException {
+        Map<String, Doc> pending = new LinkedHashMap<>();
+        while (rs.next()) {
+            int id = rs.getInt("id");
+            String isbn = rs.getString("isbn");
+            String key = isbn == null || isbn.isEmpty() ? "#" + id : isbn;
+
+            Doc doc = pending.get(key);
+            if (doc == null) {
+                doc = new Doc(key, isbn, rs.getString("title"), rs.getString("author"), rs.getString("genre"),
+                        rs.getInt("year"));
+                doc.titleId = rs.getInt("title_id");
+                doc.publisher = rs.getString("publisher");
+                doc.description = rs.getString("description");
+                pending.put(key, doc);
+            }
+            doc.addCopy(id);
+        }
+        for (Doc doc : pending.values()) {
+            addDoc(doc);
+        }
+    }
+
+    private void addDoc(Doc doc) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, doc.title, TITLE_WEIGHT);
+        addField(weights, doc.author, AUTHOR_WEIGHT);
+        addField(weights, doc.genre, GENRE_WEIGHT);
+        addField(weights, doc.publisher, OTHER_WEIGHT);
+        addField(weights, doc.description, OTHER_WEIGHT);
+        addField(weights, doc.isbn, OTHER_WEIGHT);
+
+        int ordinal = docs.size();
+        docs.add(doc);
+        ordinals.put(doc.key, ordinal);
+        doc.terms = weights.keySet().toArray(new String[0]);
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            dictionary.computeIfAbsent(entry.getKey(), t -> new Postings()).add(ordinal, entry.getValue());
+            doc.length += entry.getValue();
+        }
+
+        Set<String> names = new HashSet<>(tokenize(doc.title));
+        names.addAll(tokenize(doc.author));
+        doc.names = names.toArray(new String[0]);
+        for (String name : doc.names) {
+            addWord(name);
+        }
+
+        // The searchable text is not needed once it is indexed
+        doc.publisher = null;
+        doc.description = null;
+
+        liveDocs++;
+        totalLength += doc.length;
+    }
+
+    private void removeDoc(String key) {
+        Integer ordinal = ordinals.remove(key);
+        if (ordinal == null) {
+            return;
+        }
+        Doc doc = docs.get(ordinal);
+        docs.set(ordinal, null);
+        liveDocs--;
+        totalLength -= doc.length;
+
+        for (String term : doc.terms) {
+            Postings postings = dictionary.get(term);
+            if (postings != null && postings.remove(docs) == 0) {
+                dictionary.remove(term);
+            }
+        }
+        // Unused words stay in the trigram lists and are skipped until the next rebuild
+        for (String name : doc.names) {
+            words.get(name).uses--;
+        }
+    }
+
+    private void addWord(String text) {
+        Word word = words.get(text);
+        if (word == null) {
+            Set<String> trigrams = trigrams(text);
+            word = new Word(text, wordList.size(), trigrams.size());
+            words.put(text, word);
+            wordList.add(word);
+            for (String trigram : trigrams) {
+                trigramIndex.computeIfAbsent(trigram, t -> new WordIds()).add(word.id);
+            }
+        }
+        word.uses++;
+    }
+
+    /**
+     * The distinct trigrams of a word, padded so that its first and last letters count
+     * ("  t", " to", ..., "en ")
+     */
+    private static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Title and author words that are probably what a misspelt word meant, closest first
+     */
+    private List<Correction> corrections(String term) {
+        List<Correction> corrections = new ArrayList<>();
+        if (term.length() < MIN_FUZZY_LENGTH || !term.chars().allMatch(Character::isLetter)) {
+            return corrections; // Too short to guess at, or a number
+        }
+
+        // Count the trigrams each word shares with the term
+        Set<String> trigrams = trigrams(term);
+        int[] shared = new int[wordList.size()];
+        List<Integer> candidates = new ArrayList<>();
+        for (String trigram : trigrams) {
+            WordIds ids = trigramIndex.get(trigram);
+            if (ids == null) {
+                continue;
+            }
+            for (int i = 0; i < ids.size; i++) {
+                if (shared[ids.ids[i]]++ == 0) {
+                    candidates.add(ids.ids[i]);
+                }
+            }
+        }
+
+        int maxEdits = term.length() <= 5 ? 1 : 2;
+        for (int id : candidates) {
+            Word word = wordList.get(id);
+            if (word.uses == 0 || Math.abs(word.text.length() - term.length()) > maxEdits) {
+                continue;
+            }
+            double similarity = (double) shared[id] / (trigrams.size() + word.trigrams - shared[id]);
+            if (similarity < MIN_SIMILARITY) {
+                continue;
+            }
+            int edits = editDistance(term, word.text, maxEdits);
+            if (edits <= maxEdits) {
+                corrections.add(new Correction(word.text, similarity, edits, word.uses));
+            }
+        }
+
+        // Fewest edits first, then the most alike, then the most common
+        corrections.sort(Comparator.comparingInt((Correction c) -> c.edits)
+                .thenComparing(Comparator.comparingDouble((Correction c) -> c.similarity).reversed())
+                .thenComparing(Comparator.comparingInt((Correction c) -> c.uses).reversed()));
+        return corrections;
+    }
+
+    /**
+     * Edits (insert, delete, substitute or swap two neighbouring letters) to turn one word
+     * into the other, or max + 1 once it is certain to be more than max
+     */
+    private static int editDistance(String a, String b, int max) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previous2[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Split text into lower-case words. Hyphens between digits are dropped so that
+     * "978-0-06-112008-4" is one word.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (c == '-' && term.length() > 0 && Character.isDigit(term.charAt(term.length() - 1))
+                    && i + 1 < lower.length() && Character.isDigit(lower.charAt(i + 1))) {
+                continue;
+            } else if (c == '\'') {
+                continue; // "Ender's" -> "enders"
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    private List<Hit> rank(List<String> terms, int limit) {
+        if (liveDocs == 0) {
+            return new ArrayList<>();
+        }
+        double avgLength = totalLength / liveDocs;
+
+        // Every word must match; the last may also be a prefix of a longer word
+        List<List<Match>> groups = new ArrayList<>();
+        for (int i = 0; i < terms.size(); i++) {
+            List<Match> matches = expand(terms.get(i), i == terms.size() - 1);
+            if (matches.isEmpty()) {
+                return new ArrayList<>();
+            }
+            groups.add(matches);
+        }
+
+        // Start from the rarest word so later words only check its documents
+        Integer[] order = new Integer[groups.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> totalPostings(groups.get(i))));
+
+        float[] scores = new float[docs.size()];
+        float[] termScores = new float[docs.size()];
+        int[] matched = new int[docs.size()];
+        int[] candidates = null;
+        int candidateCount = 0;
+
+        for (int round = 0; round < order.length; round++) {
+            List<Match> matches = groups.get(order[round]);
+            int[] touched = new int[round == 0 ? (int) Math.min(totalPostings(matches), docs.size()) : candidateCount];
+            int touchedCount = 0;
+
+            for (Match match : matches) {
+                Postings postings = match.postings;
+                double idf = match.weight * Math.log(1 + (liveDocs - postings.df + 0.5) / (postings.df + 0.5));
+                for (int p = 0; p < postings.size; p++) {
+                    int d = postings.docs[p];
+                    // Only documents that matched every earlier word
+                    if (matched[d] != round) {
+                        continue;
+                    }
+                    Doc doc = docs.get(d);
+                    if (doc == null) {
+                        continue;
+                    }
+                    double tf = postings.weights[p];
+                    float score = (float) (idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length / avgLength)));
+                    if (termScores[d] == 0) {
+                        touched[touchedCount++] = d;
+                    }
+                    // A document matching several expansions of the prefix keeps its best one
+                    termScores[d] = Math.max(termScores[d], score);
+                }
+            }
+
+            for (int t = 0; t < touchedCount; t++) {
+                int d = touched[t];
+                scores[d] += termScores[d];
+                termScores[d] = 0;
+                matched[d] = round + 1;
+            }
+            candidates = touched;
+            candidateCount = touchedCount;
+            if (candidateCount == 0) {
+                return new ArrayList<>();
+            }
+        }
+
+        // Sort by score, best first; equal scores keep catalog order
+        long[] ranked = new long[candidateCount];
+        for (int c = 0; c < candidateCount; c++) {
+            int d = candidates[c];
+            ranked[c] = ((long) Float.floatToIntBits(scores[d]) << 32) | (Integer.MAX_VALUE - d);
+        }
+        Arrays.sort(ranked);
+
+        int count = limit > 0 ? Math.min(limit, ranked.length) : ranked.length;
+        List<Hit> hits = new ArrayList<>(count);
+        for (int r = ranked.length - 1; r >= ranked.length - count; r--) {
+            int d = Integer.MAX_VALUE - (int) ranked[r];
+            hits.add(new Hit(docs.get(d), scores[d]));
+        }
+        return hits;
+    }
+
+    /**
+     * The postings a query word is searched in: the word itself, longer words it is a prefix
+     * of (for the last word), or if neither exists the words it is probably a misspelling of,
+     * weighted by how alike they are
+     */
+    private List<Match> expand(String term, boolean last) {
+        List<Match> matches = new ArrayList<>();
+        Postings exact = dictionary.get(term);
+        if (exact != null) {
+            matches.add(new Match(exact, 1));
+        }
+        if (last) {
+            for (Postings postings : prefixMatches(term)) {
+                matches.add(new Match(postings, PREFIX_WEIGHT));
+            }
+        }
+        if (matches.isEmpty()) {
+            List<Correction> corrections = corrections(term);
+            for (Correction correction : corrections.subList(0, Math.min(MAX_FUZZY_TERMS, corrections.size()))) {
+                Postings postings = dictionary.get(correction.word);
+                if (postings != null) {
+                    matches.add(new Match(postings, correction.similarity));
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static long totalPostings(List<Match> matches) {
+        long total = 0;
+        for (Match match : matches) {
+            total += match.postings.size;
+        }
+        return total;
+    }
+
+    private List<Postings> prefixMatches(String prefix) {
+        List<Postings> matches = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry : dictionary.subMap(prefix, false, prefix + Character.MAX_VALUE, false)
+                .entrySet()) {
+            matches.add(entry.getValue());
+        }
+        if (matches.size() > MAX_PREFIX_TERMS) {
+            matches.sort(Comparator.comparingInt((Postings postings) -> postings.df).reversed());
+            return matches.subList(0, MAX_PREFIX_TERMS);
+        }
+        return matches;
+    }
+
+    /**
+     * Documents containing one word, with the word's field-weighted count in each
+     */
+    private static class Postings {
+        private int[] docs = new int[2];
+        private float[] weights = new float[2];
+        private int size = 0;
+
+        // Live documents in the list (removed ones stay until the list is compacted)
+        private int df = 0;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+            df++;
+        }
+
+        /**
+         * Note that one of the documents was removed, compacting once most entries are dead
+         *
+         * @return The number of live documents left
+         */
+        int remove(List<Doc> allDocs) {
+            df--;
+            if (df > 0 && size > 2 * df + 8) {
+                int kept = 0;
+                for (int p = 0; p < size; p++) {
+                    if (allDocs.get(docs[p]) != null) {
+                        docs[kept] = docs[p];
+                        weights[kept] = weights[p];
+                        kept++;
+                    }
+                }
+                size = kept;
+            }
+            return df;
+        }
+    }
+
+    /**
+     * A postings list searched for one query word, and how much it counts
+     */
+    private static class Match {
+        final Postings postings;
+        final double weight;
+
+        Match(Postings postings, double weight) {
+            this.postings = postings;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A title or author word, numbered for the trigram lists
+     */
+    private static class Word {
+        final String text;
+        final int id;
+        final int trigrams;
+
+        // Live documents with the word in their title or author
+        int uses = 0;
+
+        Word(String text, int id, int trigrams) {
+            this.text = text;
+            this.id = id;
+            this.trigrams = trigrams;
+        }
+    }
+
+    /**
+     * Ids of the words containing one trigram
+     */
+    private static class WordIds {
+        private int[] ids = new int[2];
+        private int size = 0;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    /**
+     * A word a misspelt query word may have meant
+     */
+    private static class Correction {
+        final String word;
+        final double similarity;
+        final int edits;
+        final int uses;
+
+        Correction(String word, double similarity, int edits, int uses) {
+            this.word = word;
+            this.similarity = similarity;
+            this.edits = edits;
+            this.uses = uses;
+        }
+    }
+
+    /**
+     * One indexed title and its copies
+     */
+    private static class Doc {
+        final String key;
+        final String isbn;
+        final String title;
+        final String author;
+        final String genre;
+        final int year;
+        int titleId;
+        String publisher;
+        String description;
+        int[] copyIds = new int[0];
+        String[] terms;
+        String[] names;
+        float length;
+
+        Doc(String key, String isbn, String title, String author, String genre, int year) {
+            this.key = key;
+            this.isbn = isbn;
+            this.title = title;
+            this.author = author;
+            this.genre = genre;
+            this.year = year;
+        }
+
+        void addCopy(int id) {
+            copyIds = Arrays.copyOf(copyIds, copyIds.length + 1);
+            copyIds[copyIds.length - 1] = id;
+        }
+    }
+
+    /**
+     * A title that matched a search
+     */
+    public static class Hit {
+        private final Doc doc;
+        private final double score;
+
+        Hit(Doc doc, double score) {
+            this.doc = doc;
+            this.score = score;
+        }
+
+        public String getIsbn() {
+            return doc.isbn;
+        }
+
+        /**
+         * Id of the title's row in the titles table
+         */
+        public int getTitleId() {
+            return doc.titleId;
+        }
+
+        public String getTitle() {
+            return doc.title;
+        }
+
+        public String getAuthor() {
+            return doc.author;
+        }
+
+        public String getGenre() {
+            return doc.genre;
+        }
+
+        public int getYear() {
+            return doc.year;
+        }
+
+        /**
+         * Ids of the title's copies in the books table, oldest first
+         */
+        public int[] getCopyIds() {
+            return doc.copyIds;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
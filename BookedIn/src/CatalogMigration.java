@@ -0,0 +1,292 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CatalogMigration - Moves a database made before the catalog was split from the old
+ * books table (a full row per copy) to the titles and copies tables.
+ *
+ * Copies sharing an ISBN become one title, taking its details from the lowest book id;
+ * a book without an ISBN becomes a title of its own. Every copy keeps its book id, so
+ * loans, reviews, views and waitlist entries are re-pointed at copies unchanged. The
+ * books view then stands in for the old table.
+ *
+ * The loan and user triggers are recreated with the rest, and the library_stats counters
+ * they keep are added and counted.
+ *
+ * upgrade() then adds what later versions need to a database of any age (each step is
+ * skipped if it is already there).
+ *
+ * MySQL commits each schema change as it goes, so run this with the dashboards closed
+ * and after a backup. Running it again on a migrated database does nothing.
+ */
+public class CatalogMigration {
+
+    // The old books table is renamed to this while its rows are copied
+    private static final String OLD_TABLE = "books_before_titles";
+
+    // Change tracking triggers made before the split, replaced along with the books ones
+    private static final String[] OLD_TRIGGERS = { "borrowed_books_after_insert", "borrowed_books_after_update",
+            "borrowed_books_after_delete", "users_after_insert", "users_after_update", "users_before_delete" };
+
+    /**
+     * Migrate the database if it still has a books table
+     *
+     * @return Whether anything was migrated
+     */
+    public static boolean migrate(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement();
+        try {
+            ResultSet rs = stmt.executeQuery("SELECT TABLE_TYPE FROM information_schema.TABLES "
+                    + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'books'");
+            boolean baseTable = rs.next() && "BASE TABLE".equals(rs.getString(1));
+            rs.close();
+            if (!baseTable) {
+                return false;
+            }
+
+            // Foreign keys follow the table when it is renamed
+            stmt.executeUpdate("DROP TRIGGER IF EXISTS books_after_insert");
+            stmt.executeUpdate("DROP TRIGGER IF EXISTS books_after_update");
+            stmt.executeUpdate("DROP TRIGGER IF EXISTS books_before_delete");
+            stmt.executeUpdate("RENAME TABLE books TO " + OLD_TABLE);
+            DatabaseSetup.createCatalogTables(stmt);
+            System.out.println("Titles and Copies tables created");
+
+            copyBooks(conn, stmt);
+            repointForeignKeys(conn, stmt);
+
+            stmt.executeUpdate("DROP TABLE " + OLD_TABLE);
+
+            // The loan and user triggers also keep the library stats now
+            for (String trigger : OLD_TRIGGERS) {
+                stmt.executeUpdate("DROP TRIGGER IF EXISTS " + trigger);
+            }
+            DatabaseSetup.createStatsTable(stmt);
+            DatabaseSetup.createChangeTriggers(stmt);
+            LibraryStats.getInstance().recount(conn);
+            System.out.println("Catalog migrated to titles and copies");
+            return true;
+        } finally {
+            stmt.close();
+        }
+    }
+
+    /**
+     * Add the tables, columns, indexes and triggers a database made by an older version
+     * is missing
+     *
+     * @return Whether anything was added
+     */
+    public static boolean upgrade(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement();
+        try {
+            boolean changed = false;
+            changed |= addIndex(stmt, "change_log", "idx_change_log_changed", "changed_at");
+            changed |= addActivityLog(stmt);
+            changed |= addBarcodes(stmt);
+            changed |= addViewRollup(stmt);
+
+            // The columns the paged tables sort on
+            changed |= addIndex(stmt, "titles", "idx_titles_author", "author");
+            changed |= addIndex(stmt, "titles", "idx_titles_year", "year");
+            changed |= addIndex(stmt, "users", "idx_users_registration", "registration_date");
+            changed |= addIndex(stmt, "borrowed_books", "idx_borrowed_borrow_date", "borrow_date");
+            return changed;
+        } finally {
+            stmt.close();
+        }
+    }
+
+    /**
+     * Add the activity log table, and its triggers unless all of them are there
+     *
+     * @return Whether anything was added
+     */
+    private static boolean addActivityLog(Statement stmt) throws SQLException {
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM information_schema.TRIGGERS "
+                + "WHERE TRIGGER_SCHEMA = DATABASE() AND TRIGGER_NAME IN ('"
+                + String.join("', '", DatabaseSetup.ACTIVITY_TRIGGERS) + "')");
+        int triggers = rs.next() ? rs.getInt(1) : 0;
+        rs.close();
+        if (triggers == DatabaseSetup.ACTIVITY_TRIGGERS.length) {
+            return false;
+        }
+
+        // A partly made set (e.g. an earlier run failed halfway) is made again whole
+        for (String trigger : DatabaseSetup.ACTIVITY_TRIGGERS) {
+            stmt.executeUpdate("DROP TRIGGER IF EXISTS " + trigger);
+        }
+        DatabaseSetup.createActivityLog(stmt);
+        System.out.println("Activity log added");
+        return true;
+    }
+
+    /**
+     * Add the copies' barcode column and its unique index, and give every copy without a
+     * barcode one
+     *
+     * @return Whether anything was added
+     */
+    private static boolean addBarcodes(Statement stmt) throws SQLException {
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'copies' AND COLUMN_NAME = 'barcode'");
+        boolean exists = rs.next() && rs.getInt(1) > 0;
+        rs.close();
+        if (!exists) {
+            stmt.executeUpdate("ALTER TABLE copies ADD COLUMN barcode VARCHAR(20), "
+                    + "ADD UNIQUE INDEX idx_copies_barcode (barcode)");
+            DatabaseSetup.createBooksView(stmt);
+        }
+        int assigned = DatabaseSetup.assignBarcodes(stmt);
+        if (!exists || assigned > 0) {
+            System.out.println("Barcodes given to " + assigned + " copies");
+        }
+        return !exists || assigned > 0;
+    }
+
+    /**
+     * Add the daily view count tables and the book_views indexes the view rollup reads
+     * through
+     *
+     * @return Whether anything was added
+     */
+    private static boolean addViewRollup(Statement stmt) throws SQLException {
+        boolean changed = false;
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM information_schema.TABLES "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME IN ('title_view_daily', 'member_view_daily')");
+        int tables = rs.next() ? rs.getInt(1) : 0;
+        rs.close();
+        if (tables < 2) {
+            DatabaseSetup.createViewRollupTables(stmt);
+            System.out.println("View rollup tables added");
+            changed = true;
+        }
+
+        changed |= addIndex(stmt, "book_views", "idx_book_views_user_date", "username, view_date");
+        changed |= addIndex(stmt, "book_views", "idx_book_views_date", "view_date");
+        // The username index is a prefix of the (username, view_date) one
+        if (hasIndex(stmt, "book_views", "idx_book_views_username")) {
+            stmt.executeUpdate("DROP INDEX idx_book_views_username ON book_views");
+            System.out.println("Index idx_book_views_username dropped");
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Create an index unless it exists
+     *
+     * @return Whether it was created
+     */
+    private static boolean addIndex(Statement stmt, String table, String index, String columns)
+            throws SQLException {
+        if (hasIndex(stmt, table, index)) {
+            return false;
+        }
+        stmt.executeUpdate("CREATE INDEX " + index + " ON " + table + "(" + columns + ")");
+        System.out.println("Index " + index + " added");
+        return true;
+    }
+
+    private static boolean hasIndex(Statement stmt, String table, String index) throws SQLException {
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM information_schema.STATISTICS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = '" + table + "' AND INDEX_NAME = '" + index + "'");
+        boolean exists = rs.next() && rs.getInt(1) > 0;
+        rs.close();
+        return exists;
+    }
+
+    private static void copyBooks(Connection conn, Statement stmt) throws SQLException {
+        // One title per ISBN, then its copies
+        stmt.executeUpdate("INSERT INTO titles (isbn, title, author, year, genre, description, publisher, "
+                + "cover_image, date_added) SELECT b.isbn, b.title, b.author, b.year, b.genre, b.description, "
+                + "b.publisher, b.cover_image, b.date_added FROM " + OLD_TABLE + " b JOIN (SELECT MIN(id) AS id FROM "
+                + OLD_TABLE + " WHERE isbn IS NOT NULL AND isbn <> '' GROUP BY isbn) f ON b.id = f.id");
+        stmt.executeUpdate("INSERT INTO copies (id, title_id, location, available, date_added) "
+                + "SELECT b.id, t.id, b.location, COALESCE(b.available, TRUE), b.date_added FROM " + OLD_TABLE
+                + " b JOIN titles t ON t.isbn = b.isbn");
+
+        // A book without an ISBN is its own title
+        List<Integer> loose = new ArrayList<>();
+        ResultSet rs = stmt.executeQuery("SELECT id FROM " + OLD_TABLE + " WHERE isbn IS NULL OR isbn = ''");
+        while (rs.next()) {
+            loose.add(rs.getInt(1));
+        }
+        rs.close();
+
+        PreparedStatement titleStmt = conn.prepareStatement("INSERT INTO titles (title, author, year, genre, "
+                + "description, publisher, cover_image, date_added) SELECT title, author, year, genre, description, "
+                + "publisher, cover_image, date_added FROM " + OLD_TABLE + " WHERE id = ?",
+                Statement.RETURN_GENERATED_KEYS);
+        PreparedStatement copyStmt = conn.prepareStatement("INSERT INTO copies (id, title_id, location, available, "
+                + "date_added) SELECT id, ?, location, COALESCE(available, TRUE), date_added FROM " + OLD_TABLE
+                + " WHERE id = ?");
+        try {
+            for (int bookId : loose) {
+                titleStmt.setInt(1, bookId);
+                titleStmt.executeUpdate();
+                ResultSet keys = titleStmt.getGeneratedKeys();
+                keys.next();
+                copyStmt.setInt(1, keys.getInt(1));
+                copyStmt.setInt(2, bookId);
+                copyStmt.executeUpdate();
+                keys.close();
+            }
+        } finally {
+            titleStmt.close();
+            copyStmt.close();
+        }
+
+        DatabaseSetup.assignBarcodes(stmt);
+
+        // The count triggers are created afterwards, so count the copies and loans here
+        stmt.executeUpdate("UPDATE titles t JOIN (SELECT title_id, COUNT(*) AS copies, SUM(available) AS available "
+                + "FROM copies GROUP BY title_id) c ON c.title_id = t.id "
+                + "SET t.copies = c.copies, t.available_copies = c.available");
+        stmt.executeUpdate("UPDATE titles t JOIN (SELECT c.title_id, COUNT(*) AS loans FROM borrowed_books bb "
+                + "JOIN copies c ON bb.book_id = c.id GROUP BY c.title_id) l ON l.title_id = t.id "
+                + "SET t.borrow_count = l.loans");
+        System.out.println("Books copied to titles and copies");
+    }
+
+    private static void repointForeignKeys(Connection conn, Statement stmt) throws SQLException {
+        List<String[]> keys = new ArrayList<>();
+        PreparedStatement keyStmt = conn.prepareStatement("SELECT TABLE_NAME, CONSTRAINT_NAME, COLUMN_NAME "
+                + "FROM information_schema.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA = DATABASE() "
+                + "AND REFERENCED_TABLE_NAME = ?");
+        keyStmt.setString(1, OLD_TABLE);
+        ResultSet rs = keyStmt.executeQuery();
+        while (rs.next()) {
+            keys.add(new String[] { rs.getString(1), rs.getString(2), rs.getString(3) });
+        }
+        rs.close();
+        keyStmt.close();
+
+        for (String[] key : keys) {
+            stmt.executeUpdate("ALTER TABLE " + key[0] + " DROP FOREIGN KEY " + key[1]);
+            stmt.executeUpdate("ALTER TABLE " + key[0] + " ADD FOREIGN KEY (" + key[2]
+                    + ") REFERENCES copies(id) ON DELETE CASCADE");
+            System.out.println("Re-pointed " + key[0] + "." + key[2] + " at copies");
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            Connection conn = DatabaseConnection.getConnection();
+            boolean migrated = migrate(conn);
+            if (!upgrade(conn) && !migrated) {
+                System.out.println("The database is already up to date");
+            }
+        } catch (SQLException e) {
+            System.err.println("Catalog migration failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+}
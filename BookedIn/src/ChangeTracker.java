@@ -0,0 +1,311 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * ChangeTracker - Follows the change_log table so dashboards can refresh only the rows that changed.
+ *
+ * Triggers on books, borrowed_books and users append the key of every changed row to
+ * change_log. A dashboard keeps one tracker whose watermark is the last change_log id it
+ * has applied. Full loads are wrapped with snapshot(), which reads the watermark before the
+ * data so that nothing committed while the load runs is skipped. A refresh then asks for
+ * the keys changed since the watermark, re-reads just those rows and patches them into the
+ * table models with patch().
+ *
+ * Change log inserts that commit out of order leave a short gap below ids that are
+ * already visible, so the watermark stops at the first missing id. The changes above it
+ * are still returned (patching a row twice is harmless) and the gap is read again on the
+ * next refresh, until it fills or is still open after GAP_TIMEOUT_MS and is taken to be a
+ * rolled back insert. Rows older than RETENTION_HOURS are removed by prune().
+ */
+public class ChangeTracker {
+
+    /** Watermark value before any full load has run */
+    public static final long NONE = Long.MAX_VALUE;
+
+    // More changes than this since the last refresh and a full reload is cheaper
+    private static final int MAX_DELTA = 1000;
+
+    // A missing id below a visible change is given this long to commit
+    private static final long GAP_TIMEOUT_MS = 10000;
+
+    // Changes older than this are removed from change_log
+    private static final int RETENTION_HOURS = 24;
+
+    private final AtomicLong watermark = new AtomicLong(NONE);
+    private volatile LocalDate loadedOn = LocalDate.now();
+
+    // The missing id the watermark is waiting on, and since when (guarded by "this")
+    private long gapId = 0;
+    private long gapSince = 0;
+
+    /**
+     * Wrap a full load so that the tracker never skips changes made while it runs
+     */
+    public <T> DatabaseWorker.Query<T> snapshot(DatabaseWorker.Query<T> query) {
+        return conn -> {
+            long before = readWatermark(conn);
+            T result = query.run(conn);
+            watermark.accumulateAndGet(before, Math::min);
+            return result;
+        };
+    }
+
+    /**
+     * The last change_log id applied, or NONE if no full load has finished yet
+     */
+    public long getWatermark() {
+        return watermark.get();
+    }
+
+    /**
+     * Whether the loaded data is from an earlier day (due dates may have become overdue)
+     */
+    public boolean isOutdated() {
+        return !LocalDate.now().equals(loadedOn);
+    }
+
+    /**
+     * Forget the watermark before reloading everything; the reloads set it again
+     */
+    public void reset() {
+        watermark.set(NONE);
+        loadedOn = LocalDate.now();
+    }
+
+    /**
+     * Move the watermark forward after a refresh has been applied. Does nothing if a full
+     * load has lowered it in the meantime.
+     */
+    public void advance(long from, long to) {
+        if (to > from) {
+            watermark.compareAndSet(from, to);
+        }
+    }
+
+    /**
+     * Read the newest change_log id
+     */
+    public static long readWatermark(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM change_log");
+        long id = rs.next() ? rs.getLong(1) : 0;
+        rs.close();
+        stmt.close();
+        return id;
+    }
+
+    /**
+     * Read the keys changed after the given watermark
+     */
+    public Changes fetchSince(Connection conn, long from) throws SQLException {
+        Changes changes = new Changes(from);
+
+        PreparedStatement stmt = conn.prepareStatement(
+                "SELECT id, table_name, row_key FROM change_log WHERE id > ? ORDER BY id LIMIT ?");
+        stmt.setLong(1, from);
+        stmt.setInt(2, MAX_DELTA + 1);
+        ResultSet rs = stmt.executeQuery();
+
+        int count = 0;
+        boolean contiguous = true;
+        while (rs.next()) {
+            if (++count > MAX_DELTA) {
+                changes.overflow = true;
+                break;
+            }
+            long id = rs.getLong("id");
+            if (contiguous && id != changes.watermark + 1 && !gapExpired(changes.watermark + 1)) {
+                // Hold the watermark below the gap until it fills
+                contiguous = false;
+            }
+            if (contiguous) {
+                changes.watermark = id;
+            }
+            changes.keys.computeIfAbsent(rs.getString("table_name"), t -> new LinkedHashSet<>())
+                    .add(rs.getString("row_key"));
+        }
+
+        rs.close();
+        stmt.close();
+        return changes;
+    }
+
+    /**
+     * Whether a missing id has been missing for longer than GAP_TIMEOUT_MS
+     */
+    private synchronized boolean gapExpired(long id) {
+        long now = System.currentTimeMillis();
+        if (gapId != id) {
+            gapId = id;
+            gapSince = now;
+            return false;
+        }
+        return now - gapSince > GAP_TIMEOUT_MS;
+    }
+
+    /**
+     * Remove changes older than RETENTION_HOURS (every dashboard has refreshed past them)
+     */
+    public static void prune(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement();
+        stmt.executeUpdate("DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL "
+                + RETENTION_HOURS + " HOUR");
+        stmt.close();
+    }
+
+    /**
+     * "?, ?, ?" for an IN clause with the given number of values
+     */
+    public static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Patch changed rows into a table model that is sorted on sortColumn
+     *
+     * @param model      The table to update
+     * @param keyColumn  Column holding the row key
+     * @param sortColumn Column the table is sorted on (ascending)
+     * @param keys       Keys that changed
+     * @param rows       Current rows for those keys; a changed key without a row is removed
+     */
+    public static void patch(DefaultTableModel model, int keyColumn, int sortColumn, Collection<String> keys,
+            List<Object[]> rows) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object[]> byKey = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            byKey.put(String.valueOf(row[keyColumn]), row);
+        }
+
+        // Update or remove the rows that are already showing
+        for (int i = model.getRowCount() - 1; i >= 0; i--) {
+            String key = String.valueOf(model.getValueAt(i, keyColumn));
+            if (!keys.contains(key)) {
+                continue;
+            }
+
+            Object[] row = byKey.get(key);
+            if (row == null || !sameValue(model.getValueAt(i, sortColumn), row[sortColumn])) {
+                // Gone, or it moved; a moved row is inserted again below
+                model.removeRow(i);
+                continue;
+            }
+
+            byKey.remove(key);
+            for (int col = 0; col < row.length && col < model.getColumnCount(); col++) {
+                if (!sameValue(model.getValueAt(i, col), row[col])) {
+                    model.setValueAt(row[col], i, col);
+                }
+            }
+        }
+
+        // Insert new (and moved) rows in sort order
+        for (Object[] row : byKey.values()) {
+            model.insertRow(insertionPoint(model, sortColumn, row[sortColumn]), row);
+        }
+    }
+
+    private static int insertionPoint(DefaultTableModel model, int sortColumn, Object value) {
+        int low = 0;
+        int high = model.getRowCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(model.getValueAt(mid, sortColumn), value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compare(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof String && b instanceof String) {
+            // Matches the case-insensitive collation used by ORDER BY
+            return String.CASE_INSENSITIVE_ORDER.compare((String) a, (String) b);
+        }
+        if (a instanceof Comparable && a.getClass() == b.getClass()) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Keys changed since a watermark, grouped by table
+     */
+    public static class Changes {
+        private final Map<String, Set<String>> keys = new HashMap<>();
+        private final Map<String, List<Object[]>> rows = new HashMap<>();
+        private long watermark;
+        private boolean overflow = false;
+
+        Changes(long from) {
+            this.watermark = from;
+        }
+
+        /**
+         * Changed keys for a table (empty if none)
+         */
+        public Set<String> keys(String table) {
+            return keys.getOrDefault(table, Collections.emptySet());
+        }
+
+        public boolean hasChanges(String table) {
+            return keys.containsKey(table);
+        }
+
+        public boolean isEmpty() {
+            return keys.isEmpty() && !overflow;
+        }
+
+        /**
+         * Too many changes to patch; reload everything instead
+         */
+        public boolean isOverflow() {
+            return overflow;
+        }
+
+        /**
+         * The last change_log id covered by these changes
+         */
+        public long getWatermark() {
+            return watermark;
+        }
+
+        /**
+         * Attach the re-read rows for one of the dashboard's tables
+         */
+        public void putRows(String name, List<Object[]> tableRows) {
+            rows.put(name, tableRows);
+        }
+
+        public List<Object[]> rows(String name) {
+            return rows.getOrDefault(name, Collections.emptyList());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * A member checked out a copy of a book
+ */
+public record CheckoutEvent(int bookId, String title, String username) implements LibraryEvent {
+
+    @Override
+    public EventType type() {
+        return EventType.BOOK_CHECKOUT;
+    }
+}
@@ -0,0 +1,186 @@
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CirculationDesk - The queue behind the librarian's batch desk mode.
+ *
+ * The members, the available copies and the open loans are read once when the desk is
+ * loaded, and every scan is checked against them in memory and queued with the copy or
+ * loan it takes, so two scans of one ISBN take different copies and a copy returned
+ * earlier in the queue can be lent again. The queue is written in one transaction by
+ * CirculationService.commitBatch. If a copy or loan was taken at another desk in the
+ * meantime, the transaction is rolled back and the queue is checked again against fresh
+ * caches. A scan may be an ISBN, which takes any copy, or a copy's barcode, which is
+ * resolved through CopyBarcodes without touching the database.
+ */
+public class CirculationDesk {
+
+    /**
+     * What a scan does
+     */
+    public enum Action {
+        CHECK_OUT, RETURN
+    }
+
+    /**
+     * A queued scan (an ISBN or barcode) with the copy (and, for a return, the loan) it takes
+     */
+    public record Item(Action action, String scan, String isbn, String title, String username,
+            java.sql.Date dueDate, int copyId, int loanId) {
+    }
+
+    private record Loan(int loanId, int copyId, String username) {
+    }
+
+    private final Set<String> members = new HashSet<>();
+    private final Map<String, String> titles = new HashMap<>();
+    private final Map<String, Deque<Integer>> availableCopies = new HashMap<>();
+    private final Map<String, Deque<Loan>> openLoans = new HashMap<>();
+    private final List<Item> queue = new ArrayList<>();
+
+    /**
+     * Read the members, available copies, open loans and barcodes, dropping anything queued
+     */
+    public void load(Connection conn) throws SQLException {
+        CopyBarcodes.getInstance().prepare(conn);
+        members.clear();
+        titles.clear();
+        availableCopies.clear();
+        openLoans.clear();
+        queue.clear();
+
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT username FROM users WHERE role = 'member'");
+        while (rs.next()) {
+            members.add(rs.getString(1));
+        }
+        rs.close();
+
+        rs = stmt.executeQuery("SELECT isbn, title FROM titles WHERE isbn IS NOT NULL");
+        while (rs.next()) {
+            titles.put(rs.getString(1), rs.getString(2));
+        }
+        rs.close();
+
+        rs = stmt.executeQuery("SELECT t.isbn, c.id FROM copies c JOIN titles t ON t.id = c.title_id "
+                + "WHERE c.available = TRUE AND t.isbn IS NOT NULL");
+        while (rs.next()) {
+            availableCopies.computeIfAbsent(rs.getString(1), k -> new ArrayDeque<>()).add(rs.getInt(2));
+        }
+        rs.close();
+
+        rs = stmt.executeQuery("SELECT t.isbn, bb.id, bb.book_id, bb.username FROM borrowed_books bb "
+                + "JOIN copies c ON c.id = bb.book_id JOIN titles t ON t.id = c.title_id "
+                + "WHERE bb.return_date IS NULL AND t.isbn IS NOT NULL");
+        while (rs.next()) {
+            openLoans.computeIfAbsent(rs.getString(1), k -> new ArrayDeque<>())
+                    .add(new Loan(rs.getInt(2), rs.getInt(3), rs.getString(4)));
+        }
+        rs.close();
+        stmt.close();
+    }
+
+    /**
+     * Queue a checkout of a copy by barcode, or of any available copy of a title by ISBN
+     *
+     * @throws IllegalArgumentException If the member or an available copy is not found
+     */
+    public Item checkOut(String username, String scan, java.sql.Date dueDate) {
+        if (!members.contains(username)) {
+            throw new IllegalArgumentException("Member ID " + username + " does not exist or is not a valid member");
+        }
+        CopyBarcodes.Copy copy = CopyBarcodes.getInstance().get(scan);
+        String isbn = copy != null ? copy.isbn() : scan;
+        Deque<Integer> copies = availableCopies.get(isbn);
+        int copyId;
+        if (copy != null) {
+            if (copies == null || !copies.remove(copy.copyId())) {
+                throw new IllegalArgumentException("Copy " + scan + " is not available");
+            }
+            copyId = copy.copyId();
+        } else {
+            if (copies == null || copies.isEmpty()) {
+                throw new IllegalArgumentException("Book ISBN " + isbn + " does not exist or no copies are available");
+            }
+            copyId = copies.poll();
+        }
+        Item item = new Item(Action.CHECK_OUT, scan, isbn, titles.get(isbn), username, dueDate, copyId, 0);
+        queue.add(item);
+        return item;
+    }
+
+    /**
+     * Queue the return of a copy by barcode, or of any copy of a title on loan by ISBN
+     *
+     * @throws IllegalArgumentException If the copy, or no copy of the title, is on loan
+     */
+    public Item checkIn(String scan) {
+        CopyBarcodes.Copy copy = CopyBarcodes.getInstance().get(scan);
+        String isbn = copy != null ? copy.isbn() : scan;
+        Deque<Loan> loans = openLoans.get(isbn);
+        Loan loan = null;
+        if (copy != null) {
+            if (loans != null) {
+                for (Loan open : loans) {
+                    if (open.copyId() == copy.copyId()) {
+                        loan = open;
+                        break;
+                    }
+                }
+            }
+            if (loan == null) {
+                throw new IllegalArgumentException("No active loan found for copy " + scan);
+            }
+            loans.remove(loan);
+        } else {
+            if (loans == null || loans.isEmpty()) {
+                throw new IllegalArgumentException("No active loan found for book ISBN " + isbn);
+            }
+            loan = loans.poll();
+        }
+        // Back on the shelf for later scans in this batch
+        availableCopies.computeIfAbsent(isbn, k -> new ArrayDeque<>()).add(loan.copyId());
+        Item item = new Item(Action.RETURN, scan, isbn, titles.get(isbn), loan.username(), null, loan.copyId(),
+                loan.loanId());
+        queue.add(item);
+        return item;
+    }
+
+    /**
+     * Reload the caches and queue the same scans again
+     *
+     * @return A message for each scan that can no longer be queued
+     */
+    public List<String> revalidate(Connection conn) throws SQLException {
+        List<Item> scans = new ArrayList<>(queue);
+        load(conn);
+        List<String> dropped = new ArrayList<>();
+        for (Item scan : scans) {
+            try {
+                if (scan.action() == Action.CHECK_OUT) {
+                    checkOut(scan.username(), scan.scan(), scan.dueDate());
+                } else {
+                    checkIn(scan.scan());
+                }
+            } catch (IllegalArgumentException e) {
+                dropped.add(e.getMessage());
+            }
+        }
+        return dropped;
+    }
+
+    public List<Item> getQueue() {
+        return Collections.unmodifiableList(queue);
+    }
+}
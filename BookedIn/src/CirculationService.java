@@ -0,0 +1,273 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CirculationService - Checks copies out without a check-then-act race.
+ *
+ * A copy is claimed by the statement that marks it unavailable: the UPDATE only matches
+ * while the copy is still available, so when two checkouts race for it exactly one sees a
+ * row change and the other is told it is gone. Checking out by ISBN picks a copy with
+ * SELECT ... FOR UPDATE SKIP LOCKED, so checkouts of the same title take different copies
+ * instead of queueing behind each other. The loan row is inserted in the same transaction,
+ * only if the borrower is a member, and a transaction MySQL picks as a deadlock victim is
+ * run again up to MAX_ATTEMPTS times.
+ */
+public class CirculationService {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Base wait before running a deadlocked transaction again, grows with each attempt
+    private static final long RETRY_DELAY_MS = 50;
+
+    // MySQL's deadlock and lock wait timeout errors
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    /**
+     * How a checkout ended
+     */
+    public enum Outcome {
+        CHECKED_OUT, NOT_A_MEMBER, UNAVAILABLE
+    }
+
+    /**
+     * The result of a checkout; copyId and title are only set when it was checked out
+     */
+    public record Checkout(Outcome outcome, int copyId, String title) {
+    }
+
+    private CirculationService() {
+    }
+
+    /**
+     * Check out a particular copy
+     *
+     * @param dueDate The due date, or null for 14 days from today
+     */
+    public static Checkout checkOutCopy(Connection conn, int copyId, String username, java.sql.Date dueDate)
+            throws SQLException {
+        return inTransaction(conn, c -> {
+            try (PreparedStatement claim = c.prepareStatement(
+                    "UPDATE copies SET available = FALSE WHERE id = ? AND available = TRUE")) {
+                claim.setInt(1, copyId);
+                if (claim.executeUpdate() == 0) {
+                    return new Checkout(Outcome.UNAVAILABLE, 0, null);
+                }
+            }
+            return lend(c, copyId, null, username, dueDate);
+        });
+    }
+
+    /**
+     * Check out any available copy of a title
+     *
+     * @param dueDate The due date, or null for 14 days from today
+     */
+    public static Checkout checkOutTitle(Connection conn, String isbn, String username, java.sql.Date dueDate)
+            throws SQLException {
+        return inTransaction(conn, c -> {
+            // Copies another checkout has locked are skipped rather than waited for
+            int copyId = 0;
+            String title = null;
+            try (PreparedStatement pick = c.prepareStatement("SELECT c.id, t.title FROM titles t "
+                    + "JOIN copies c ON c.title_id = t.id WHERE t.isbn = ? AND c.available = TRUE "
+                    + "LIMIT 1 FOR UPDATE OF c SKIP LOCKED")) {
+                pick.setString(1, isbn);
+                try (ResultSet rs = pick.executeQuery()) {
+                    if (rs.next()) {
+                        copyId = rs.getInt("id");
+                        title = rs.getString("title");
+                    }
+                }
+            }
+            if (title == null) {
+                return new Checkout(Outcome.UNAVAILABLE, 0, null);
+            }
+
+            try (PreparedStatement claim = c.prepareStatement("UPDATE copies SET available = FALSE WHERE id = ?")) {
+                claim.setInt(1, copyId);
+                claim.executeUpdate();
+            }
+            return lend(c, copyId, title, username, dueDate);
+        });
+    }
+
+    /**
+     * Return a particular copy
+     *
+     * @return The member who had it, or null if it was not on loan
+     */
+    public static String returnCopy(Connection conn, int copyId) throws SQLException {
+        return inTransaction(conn, c -> {
+            int loanId = 0;
+            String username = null;
+            try (PreparedStatement find = c.prepareStatement(
+                    "SELECT id, username FROM borrowed_books WHERE book_id = ? AND return_date IS NULL FOR UPDATE")) {
+                find.setInt(1, copyId);
+                try (ResultSet rs = find.executeQuery()) {
+                    if (rs.next()) {
+                        loanId = rs.getInt("id");
+                        username = rs.getString("username");
+                    }
+                }
+            }
+            if (username == null) {
+                return null;
+            }
+
+            try (PreparedStatement close = c.prepareStatement(
+                    "UPDATE borrowed_books SET return_date = CURRENT_DATE() WHERE id = ?")) {
+                close.setInt(1, loanId);
+                close.executeUpdate();
+            }
+            try (PreparedStatement shelve = c.prepareStatement("UPDATE copies SET available = TRUE WHERE id = ?")) {
+                shelve.setInt(1, copyId);
+                shelve.executeUpdate();
+            }
+            return username;
+        });
+    }
+
+    /**
+     * Write a desk's queued returns and checkouts in one transaction, returns first so
+     * their copies can be lent again. If any loan was already closed or any copy already
+     * lent elsewhere, nothing is written.
+     *
+     * @return The items that could not be written (empty once committed)
+     */
+    public static List<CirculationDesk.Item> commitBatch(Connection conn, List<CirculationDesk.Item> items)
+            throws SQLException {
+        List<CirculationDesk.Item> returns = new ArrayList<>();
+        List<CirculationDesk.Item> checkouts = new ArrayList<>();
+        for (CirculationDesk.Item item : items) {
+            (item.action() == CirculationDesk.Action.RETURN ? returns : checkouts).add(item);
+        }
+
+        return inTransaction(conn, c -> {
+            List<CirculationDesk.Item> conflicts = new ArrayList<>();
+
+            try (PreparedStatement close = c.prepareStatement(
+                    "UPDATE borrowed_books SET return_date = CURRENT_DATE() WHERE id = ? AND return_date IS NULL")) {
+                for (CirculationDesk.Item item : returns) {
+                    close.setInt(1, item.loanId());
+                    close.addBatch();
+                }
+                collectConflicts(close.executeBatch(), returns, conflicts);
+            }
+
+            try (PreparedStatement shelve = c.prepareStatement("UPDATE copies SET available = TRUE WHERE id = ?")) {
+                for (CirculationDesk.Item item : returns) {
+                    shelve.setInt(1, item.copyId());
+                    shelve.addBatch();
+                }
+                shelve.executeBatch();
+            }
+
+            try (PreparedStatement claim = c.prepareStatement(
+                    "UPDATE copies SET available = FALSE WHERE id = ? AND available = TRUE")) {
+                for (CirculationDesk.Item item : checkouts) {
+                    claim.setInt(1, item.copyId());
+                    claim.addBatch();
+                }
+                collectConflicts(claim.executeBatch(), checkouts, conflicts);
+            }
+
+            if (!conflicts.isEmpty()) {
+                c.rollback();
+                return conflicts;
+            }
+
+            try (PreparedStatement borrow = c.prepareStatement("INSERT INTO borrowed_books "
+                    + "(book_id, username, borrow_date, due_date) VALUES (?, ?, CURRENT_DATE(), "
+                    + "COALESCE(?, DATE_ADD(CURRENT_DATE(), INTERVAL 14 DAY)))")) {
+                for (CirculationDesk.Item item : checkouts) {
+                    borrow.setInt(1, item.copyId());
+                    borrow.setString(2, item.username());
+                    borrow.setDate(3, item.dueDate());
+                    borrow.addBatch();
+                }
+                borrow.executeBatch();
+            }
+            return conflicts;
+        });
+    }
+
+    private static void collectConflicts(int[] counts, List<CirculationDesk.Item> items,
+            List<CirculationDesk.Item> conflicts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                conflicts.add(items.get(i));
+            }
+        }
+    }
+
+    /**
+     * Insert the loan of a claimed copy, rolling the claim back if the borrower is not a member
+     */
+    private static Checkout lend(Connection conn, int copyId, String title, String username, java.sql.Date dueDate)
+            throws SQLException {
+        try (PreparedStatement borrow = conn.prepareStatement("INSERT INTO borrowed_books "
+                + "(book_id, username, borrow_date, due_date) SELECT ?, username, CURRENT_DATE(), "
+                + "COALESCE(?, DATE_ADD(CURRENT_DATE(), INTERVAL 14 DAY)) FROM users "
+                + "WHERE username = ? AND role = 'member'")) {
+            borrow.setInt(1, copyId);
+            borrow.setDate(2, dueDate);
+            borrow.setString(3, username);
+            if (borrow.executeUpdate() == 0) {
+                conn.rollback();
+                return new Checkout(Outcome.NOT_A_MEMBER, 0, null);
+            }
+        }
+
+        if (title == null) {
+            try (PreparedStatement titleStmt = conn.prepareStatement(
+                    "SELECT t.title FROM copies c JOIN titles t ON t.id = c.title_id WHERE c.id = ?")) {
+                titleStmt.setInt(1, copyId);
+                try (ResultSet rs = titleStmt.executeQuery()) {
+                    title = rs.next() ? rs.getString("title") : "";
+                }
+            }
+        }
+        return new Checkout(Outcome.CHECKED_OUT, copyId, title);
+    }
+
+    /**
+     * Run work in a transaction and commit it, running it again if it is chosen as a
+     * deadlock victim or times out waiting for a lock
+     */
+    private static <T> T inTransaction(Connection conn, DatabaseWorker.Query<T> work) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for (int attempt = 1;; attempt++) {
+                try {
+                    T result = work.run(conn);
+                    conn.commit();
+                    return result;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    if (attempt == MAX_ATTEMPTS || !isLockConflict(e)) {
+                        throw e;
+                    }
+                }
+                try {
+                    Thread.sleep(RETRY_DELAY_MS * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while retrying checkout", e);
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static boolean isLockConflict(SQLException e) {
+        return e.getErrorCode() == ER_LOCK_DEADLOCK || e.getErrorCode() == ER_LOCK_WAIT_TIMEOUT
+                || "40001".equals(e.getSQLState());
+    }
+}
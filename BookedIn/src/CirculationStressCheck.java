@@ -0,0 +1,225 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * CirculationStressCheck - Races parallel checkouts of a few copies through
+ * CirculationService and checks that no copy is lent twice.
+ *
+ * A throwaway title with COPIES copies and MEMBERS members is added, then CHECKOUTS
+ * threads, each with its own connection, are released at once: half check out the title
+ * by ISBN and half ask for a particular copy. Afterwards every copy must have exactly one
+ * open loan, the number of loans must equal the number of copies, and every copy must be
+ * marked unavailable. The title, its copies and loans and the members are removed again.
+ *
+ * Its inserts and deletes fire the activity, change log and stats triggers, so it only
+ * runs against a test database with the BookedIn schema, named as the one argument (it
+ * refuses the live DatabaseSetup.DB_NAME database):
+ *
+ *     java -cp .:mysql-connector-j.jar CirculationStressCheck BookedIN_test
+ *
+ * It exits with status 1 if a check fails.
+ */
+public class CirculationStressCheck {
+
+    private static final int CHECKOUTS = 100;
+    private static final int COPIES = 3;
+    private static final int MEMBERS = 10;
+
+    public static void main(String[] args) {
+        if (args.length != 1 || args[0].equalsIgnoreCase(DatabaseSetup.DB_NAME)) {
+            System.err.println("Usage: CirculationStressCheck <test database> (not " + DatabaseSetup.DB_NAME + ")");
+            System.exit(2);
+        }
+        String database = args[0];
+
+        String tag = "stress" + System.currentTimeMillis();
+        String isbn = tag.substring(0, Math.min(20, tag.length()));
+        boolean passed = false;
+        try (Connection conn = connect(database)) {
+            List<Integer> copyIds = addTitle(conn, isbn, tag);
+            List<String> members = addMembers(conn, tag);
+            try {
+                Map<CirculationService.Outcome, Integer> outcomes = race(database, isbn, copyIds, members);
+                System.out.println("Outcomes: " + outcomes);
+                passed = verify(conn, copyIds, outcomes);
+            } finally {
+                removeAll(conn, isbn, members);
+            }
+        } catch (SQLException | InterruptedException e) {
+            System.err.println("Stress check could not run: " + e.getMessage());
+            e.printStackTrace();
+        }
+        System.out.println(passed ? "PASSED: no copy was lent twice" : "FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static Connection connect(String database) throws SQLException {
+        return DriverManager.getConnection(DatabaseSetup.DB_URL + database, DatabaseSetup.DB_USER,
+                DatabaseSetup.DB_PASSWORD);
+    }
+
+    /**
+     * Release every checkout at once, each on its own connection
+     */
+    private static Map<CirculationService.Outcome, Integer> race(String database, String isbn,
+            List<Integer> copyIds, List<String> members) throws InterruptedException, SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(CHECKOUTS);
+        CountDownLatch ready = new CountDownLatch(CHECKOUTS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<CirculationService.Outcome>> results = new ArrayList<>();
+
+        for (int i = 0; i < CHECKOUTS; i++) {
+            int n = i;
+            results.add(executor.submit(() -> {
+                Connection conn;
+                try {
+                    conn = connect(database);
+                } finally {
+                    // Counted even if the connection failed, so the start is not held up
+                    ready.countDown();
+                }
+                try (conn) {
+                    String member = members.get(n % members.size());
+                    go.await();
+                    CirculationService.Checkout checkout = n % 2 == 0
+                            ? CirculationService.checkOutTitle(conn, isbn, member, null)
+                            : CirculationService.checkOutCopy(conn, copyIds.get(n % copyIds.size()), member, null);
+                    return checkout.outcome();
+                }
+            }));
+        }
+
+        ready.await();
+        go.countDown();
+        executor.shutdown();
+
+        Map<CirculationService.Outcome, Integer> outcomes = new EnumMap<>(CirculationService.Outcome.class);
+        for (Future<CirculationService.Outcome> result : results) {
+            try {
+                outcomes.merge(result.get(), 1, Integer::sum);
+            } catch (java.util.concurrent.ExecutionException e) {
+                throw new SQLException("A checkout failed", e.getCause());
+            }
+        }
+        return outcomes;
+    }
+
+    private static boolean verify(Connection conn, List<Integer> copyIds, Map<CirculationService.Outcome, Integer> outcomes)
+            throws SQLException {
+        boolean passed = true;
+        String ids = ChangeTracker.placeholders(copyIds.size());
+
+        PreparedStatement stmt = conn.prepareStatement("SELECT book_id, COUNT(*) FROM borrowed_books "
+                + "WHERE book_id IN (" + ids + ") AND return_date IS NULL GROUP BY book_id");
+        setIds(stmt, copyIds);
+        ResultSet rs = stmt.executeQuery();
+        int loans = 0;
+        while (rs.next()) {
+            loans += rs.getInt(2);
+            if (rs.getInt(2) > 1) {
+                System.err.println("Copy " + rs.getInt(1) + " has " + rs.getInt(2) + " open loans");
+                passed = false;
+            }
+        }
+        rs.close();
+        stmt.close();
+
+        if (loans != copyIds.size()) {
+            System.err.println(loans + " open loans for " + copyIds.size() + " copies");
+            passed = false;
+        }
+        int checkedOut = outcomes.getOrDefault(CirculationService.Outcome.CHECKED_OUT, 0);
+        if (checkedOut != copyIds.size()) {
+            System.err.println(checkedOut + " checkouts succeeded for " + copyIds.size() + " copies");
+            passed = false;
+        }
+
+        stmt = conn.prepareStatement("SELECT COUNT(*) FROM copies WHERE id IN (" + ids + ") AND available = TRUE");
+        setIds(stmt, copyIds);
+        rs = stmt.executeQuery();
+        if (rs.next() && rs.getInt(1) > 0) {
+            System.err.println(rs.getInt(1) + " copies are still marked available");
+            passed = false;
+        }
+        rs.close();
+        stmt.close();
+        return passed;
+    }
+
+    private static List<Integer> addTitle(Connection conn, String isbn, String tag) throws SQLException {
+        PreparedStatement titleStmt = conn.prepareStatement("INSERT INTO titles (isbn, title, author, date_added) "
+                + "VALUES (?, ?, 'Stress Check', CURRENT_DATE())", Statement.RETURN_GENERATED_KEYS);
+        titleStmt.setString(1, isbn);
+        titleStmt.setString(2, "Stress check " + tag);
+        titleStmt.executeUpdate();
+        ResultSet keys = titleStmt.getGeneratedKeys();
+        keys.next();
+        int titleId = keys.getInt(1);
+        keys.close();
+        titleStmt.close();
+
+        List<Integer> copyIds = new ArrayList<>();
+        PreparedStatement copyStmt = conn.prepareStatement("INSERT INTO copies (title_id, available, date_added) "
+                + "VALUES (?, TRUE, CURRENT_DATE())", Statement.RETURN_GENERATED_KEYS);
+        for (int i = 0; i < COPIES; i++) {
+            copyStmt.setInt(1, titleId);
+            copyStmt.executeUpdate();
+            keys = copyStmt.getGeneratedKeys();
+            keys.next();
+            copyIds.add(keys.getInt(1));
+            keys.close();
+        }
+        copyStmt.close();
+        return copyIds;
+    }
+
+    private static List<String> addMembers(Connection conn, String tag) throws SQLException {
+        List<String> members = new ArrayList<>();
+        PreparedStatement stmt = conn.prepareStatement("INSERT INTO users (username, password, full_name, email, "
+                + "role, registration_date) VALUES (?, 'stress', 'Stress Check', ?, 'member', CURRENT_DATE())");
+        for (int i = 0; i < MEMBERS; i++) {
+            String username = tag + "_" + i;
+            stmt.setString(1, username);
+            stmt.setString(2, username + "@example.com");
+            stmt.executeUpdate();
+            members.add(username);
+        }
+        stmt.close();
+        return members;
+    }
+
+    /**
+     * Remove the title (its copies and loans go with it) and the members
+     */
+    private static void removeAll(Connection conn, String isbn, List<String> members) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("DELETE FROM titles WHERE isbn = ?");
+        stmt.setString(1, isbn);
+        stmt.executeUpdate();
+        stmt.close();
+
+        stmt = conn.prepareStatement("DELETE FROM users WHERE username = ?");
+        for (String member : members) {
+            stmt.setString(1, member);
+            stmt.executeUpdate();
+        }
+        stmt.close();
+    }
+
+    private static void setIds(PreparedStatement stmt, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            stmt.setInt(i + 1, ids.get(i));
+        }
+    }
+}
@@ -0,0 +1,415 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionPool - A bounded pool of JDBC connections.
+ *
+ * Connections are handed out with borrow() and go back to the pool when the
+ * returned handle is closed. Idle connections are evicted after a timeout,
+ * validation only happens when a connection has been idle for longer than the
+ * validation interval, and a housekeeping thread reports (and reclaims, when the
+ * borrowing thread has died) connections that are never returned.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final long leakThresholdMillis;
+
+    // One permit per connection that may exist at the same time
+    private final Semaphore permits;
+
+    // Idle connections, most recently used first (guarded by "this")
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+
+    // Connections currently lent out
+    private final Set<PooledConnection> inUse = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+            long borrowTimeoutMillis, long idleTimeoutMillis, long validationIntervalMillis,
+            long leakThresholdMillis) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "BookedIn-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection from the pool. Closing the returned connection gives it back.
+     */
+    public Connection borrow() throws SQLException {
+        return borrow(false);
+    }
+
+    /**
+     * Borrow a connection that is pinned to the calling thread. Pinned connections are
+     * not reported as leaks while their thread is alive, but are reclaimed once it dies.
+     */
+    Connection borrowPinned() throws SQLException {
+        return borrow(true);
+    }
+
+    private Connection borrow(boolean pinned) throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(url, user, password));
+            }
+            Connection handle = pooled.lend(pinned);
+            inUse.add(pooled);
+            return handle;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Take a usable idle connection, validating it only if it has sat idle for a while
+     */
+    private PooledConnection takeIdle() {
+        while (true) {
+            PooledConnection pooled;
+            synchronized (this) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) {
+                return null;
+            }
+
+            long idleFor = System.currentTimeMillis() - pooled.lastUsed;
+            if (idleFor < validationIntervalMillis || pooled.isUsable()) {
+                return pooled;
+            }
+            pooled.closePhysical();
+        }
+    }
+
+    /**
+     * Called when a borrowed handle is closed
+     */
+    private void giveBack(PooledConnection pooled) {
+        if (!inUse.remove(pooled)) {
+            return; // Already returned or reclaimed
+        }
+
+        boolean reusable = pooled.reset();
+        if (reusable && !shutdown) {
+            synchronized (this) {
+                idle.addFirst(pooled);
+            }
+        } else {
+            pooled.closePhysical();
+        }
+        permits.release();
+    }
+
+    /**
+     * Check whether a connection that is still lent out is alive, without returning it
+     */
+    boolean validate(Connection handle) {
+        Lease lease = unwrap(handle);
+        if (lease == null || lease.returned) {
+            return false;
+        }
+        PooledConnection pooled = lease.pooled;
+        if (System.currentTimeMillis() - pooled.lastUsed < validationIntervalMillis) {
+            return true;
+        }
+        return pooled.isUsable();
+    }
+
+    /**
+     * Give a broken connection back so that it is closed instead of reused
+     */
+    void discard(Connection handle) {
+        Lease lease = unwrap(handle);
+        if (lease != null && !lease.returned) {
+            lease.pooled.broken = true;
+            giveBack(lease.pooled);
+        }
+    }
+
+    private Lease unwrap(Connection handle) {
+        if (handle != null && Proxy.isProxyClass(handle.getClass())) {
+            InvocationHandler h = Proxy.getInvocationHandler(handle);
+            if (h instanceof Lease) {
+                return (Lease) h;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Evict idle connections, keep a minimum number warm and look for leaked connections
+     */
+    private void houseKeep() {
+        long now = System.currentTimeMillis();
+
+        // Idle eviction
+        List<PooledConnection> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PooledConnection pooled = it.next();
+                if (now - pooled.lastUsed > idleTimeoutMillis) {
+                    it.remove();
+                    evicted.add(pooled);
+                }
+            }
+        }
+        for (PooledConnection pooled : evicted) {
+            pooled.closePhysical();
+        }
+
+        // Leak detection
+        for (PooledConnection pooled : inUse) {
+            Thread owner = pooled.owner;
+            if (owner != null && !owner.isAlive()) {
+                System.err.println("Reclaiming database connection leaked by finished thread " + owner.getName());
+                giveBack(pooled);
+            } else if (!pooled.pinned && !pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                pooled.leakReported = true;
+                System.err.println("Possible database connection leak: held for " + (now - pooled.borrowedAt)
+                        + " ms by " + (owner != null ? owner.getName() : "unknown thread"));
+                if (pooled.borrowSite != null) {
+                    pooled.borrowSite.printStackTrace();
+                }
+            }
+        }
+
+        // Keep a few connections warm
+        warmUp();
+    }
+
+    private void warmUp() {
+        while (!shutdown) {
+            synchronized (this) {
+                if (idle.size() >= minIdle) {
+                    return;
+                }
+            }
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                PooledConnection pooled = new PooledConnection(DriverManager.getConnection(url, user, password));
+                synchronized (this) {
+                    idle.addLast(pooled);
+                }
+            } catch (SQLException e) {
+                return; // Database unavailable, try again on the next run
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Number of connections currently lent out
+     */
+    public int getActiveCount() {
+        return inUse.size();
+    }
+
+    /**
+     * Number of connections sitting idle in the pool
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Close every idle connection and stop handing out new ones
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        List<PooledConnection> toClose;
+        synchronized (this) {
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (PooledConnection pooled : toClose) {
+            pooled.closePhysical();
+        }
+    }
+
+    /**
+     * A physical connection plus its bookkeeping
+     */
+    private class PooledConnection {
+        private final Connection physical;
+
+        private volatile Lease lease;
+        private volatile long lastUsed;
+        private volatile long borrowedAt;
+        private volatile Thread owner;
+        private volatile Throwable borrowSite;
+        private volatile boolean pinned;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        Connection lend(boolean pinned) {
+            this.pinned = pinned;
+            this.owner = Thread.currentThread();
+            this.borrowedAt = System.currentTimeMillis();
+            this.borrowSite = pinned ? null : new Throwable("Connection borrowed here");
+            this.leakReported = false;
+            this.broken = false;
+            this.lease = new Lease(this);
+            return lease.handle;
+        }
+
+        boolean isUsable() {
+            try {
+                return !physical.isClosed() && physical.isValid(2);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Undo anything the borrower left behind. Returns false if the connection should be dropped.
+         */
+        boolean reset() {
+            if (lease != null) {
+                lease.returned = true;
+                lease = null;
+            }
+            owner = null;
+            borrowSite = null;
+            lastUsed = System.currentTimeMillis();
+            if (broken) {
+                return false;
+            }
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing pooled connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The handle given to one borrower. Closing it returns the connection to the pool, after
+     * which the handle refuses further calls even if the connection is lent out again.
+     */
+    private class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final Connection handle;
+        private volatile boolean returned = false;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.handle = (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+            case "close":
+                if (!returned) {
+                    giveBack(pooled);
+                }
+                return null;
+            case "isClosed":
+                return returned || pooled.physical.isClosed();
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Pooled" + pooled.physical;
+            default:
+                break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            pooled.lastUsed = System.currentTimeMillis();
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
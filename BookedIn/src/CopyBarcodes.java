@@ -0,0 +1,152 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * CopyBarcodes - Every copy by its barcode, for the circulation desk.
+ *
+ * Each copy has a unique barcode (see DatabaseSetup.assignBarcodes; a database made
+ * before barcodes gets them from CatalogMigration.upgrade). The whole map, with each
+ * copy's ISBN and title, is read in one query on a background thread when the dashboard
+ * starts, and read again there after a catalog change, so a scan at the desk is a hash
+ * lookup rather than a join. Until a read has finished, a scan is looked up on its own
+ * through the barcode index. Loans are not kept here: the checkout and return writes
+ * check them (see CirculationService).
+ */
+public class CopyBarcodes {
+
+    /**
+     * A copy with its title
+     */
+    public record Copy(int copyId, String barcode, String isbn, String title) {
+    }
+
+    private static CopyBarcodes instance;
+
+    // Replaced whole by each read, so lookups never wait for one
+    private volatile Map<String, Copy> byBarcode = Collections.emptyMap();
+    private volatile boolean loaded = false;
+    private volatile boolean stale = false;
+
+    private ExecutorService executor;
+
+    private CopyBarcodes() {
+    }
+
+    public static synchronized CopyBarcodes getInstance() {
+        if (instance == null) {
+            instance = new CopyBarcodes();
+        }
+        return instance;
+    }
+
+    /**
+     * Read the map in the background and again after each catalog change (does nothing if
+     * already started)
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "BookedIn-barcodes");
+            t.setDaemon(true);
+            return t;
+        });
+        DatabaseEventManager eventManager = DatabaseEventManager.getInstance();
+        eventManager.addListener(EventType.BOOK_ADDED, event -> markStale());
+        eventManager.addListener(EventType.DATA_CHANGED, event -> markStale());
+        executor.execute(this::refresh);
+    }
+
+    /**
+     * Read the map if it has not been read yet or the catalog has changed
+     */
+    public synchronized void prepare(Connection conn) throws SQLException {
+        if (!loaded || stale) {
+            load(conn);
+        }
+    }
+
+    /**
+     * The copy with a barcode. Until the map is read (or while a catalog change is being
+     * read), the barcode is looked up on its own.
+     *
+     * @return The copy, or null if no copy has the barcode
+     */
+    public Copy lookup(Connection conn, String barcode) throws SQLException {
+        if (loaded && !stale) {
+            return get(barcode);
+        }
+
+        PreparedStatement stmt = conn.prepareStatement("SELECT c.id, c.barcode, t.isbn, t.title FROM copies c "
+                + "JOIN titles t ON t.id = c.title_id WHERE c.barcode = ?");
+        try {
+            stmt.setString(1, barcode);
+            ResultSet rs = stmt.executeQuery();
+            Copy copy = rs.next() ? readCopy(rs) : null;
+            rs.close();
+            return copy;
+        } finally {
+            stmt.close();
+        }
+    }
+
+    /**
+     * The copy with a barcode as already read (see prepare)
+     *
+     * @return The copy, or null if no copy has the barcode
+     */
+    public Copy get(String barcode) {
+        return byBarcode.get(barcode);
+    }
+
+    private void markStale() {
+        stale = true;
+        executor.execute(this::refresh);
+    }
+
+    private void refresh() {
+        try (Connection conn = DatabaseConnection.borrowConnection()) {
+            prepare(conn);
+        } catch (SQLException e) {
+            // Read again on the next catalog change or desk load
+            System.err.println("Error reading copy barcodes: " + e.getMessage());
+        }
+    }
+
+    private void load(Connection conn) throws SQLException {
+        // Cleared first, so a change arriving during the read is not lost
+        stale = false;
+        Map<String, Copy> copies = new HashMap<>();
+        Statement stmt = conn.createStatement();
+        try {
+            ResultSet rs = stmt.executeQuery("SELECT c.id, c.barcode, t.isbn, t.title "
+                    + "FROM copies c JOIN titles t ON t.id = c.title_id WHERE c.barcode IS NOT NULL");
+            while (rs.next()) {
+                Copy copy = readCopy(rs);
+                copies.put(copy.barcode(), copy);
+            }
+            rs.close();
+        } catch (SQLException e) {
+            stale = true;
+            throw e;
+        } finally {
+            stmt.close();
+        }
+
+        byBarcode = copies;
+        loaded = true;
+    }
+
+    private static Copy readCopy(ResultSet rs) throws SQLException {
+        return new Copy(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4));
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * DashboardStartup - Joins a dashboard's initial loads before its first paint.
+ *
+ * The dashboard starts all of its initial loads at once and hands their futures to
+ * track(). When the window is asked to show itself it waits until every load has
+ * published (or MAX_WAIT_MS has passed), so the first frame already contains the data.
+ * The time from construction to the first painted frame is logged.
+ */
+public class DashboardStartup {
+
+    // Show the window anyway if the database is this slow
+    private static final long MAX_WAIT_MS = 5000;
+
+    private final String name;
+    private final long startNanos = System.nanoTime();
+    private final List<CompletableFuture<?>> loads = new ArrayList<>();
+
+    private CompletableFuture<Void> ready;
+    private volatile long readyNanos;
+    private boolean showRequested = false;
+    private boolean firstFrameLogged = false;
+
+    public DashboardStartup(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add an initial load to wait for
+     */
+    public void track(CompletableFuture<?> load) {
+        loads.add(load);
+    }
+
+    /**
+     * Call once every initial load has been started
+     */
+    public void start() {
+        ready = CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                .handle((result, error) -> (Void) null)
+                .completeOnTimeout(null, MAX_WAIT_MS, TimeUnit.MILLISECONDS);
+        ready.thenRun(() -> readyNanos = System.nanoTime());
+    }
+
+    /**
+     * Whether the initial loads have all finished
+     */
+    public boolean isReady() {
+        return ready == null || ready.isDone();
+    }
+
+    /**
+     * Run show on the EDT once the initial loads have finished
+     */
+    public void showWhenReady(Runnable show) {
+        showRequested = true;
+        ready.thenRun(() -> SwingUtilities.invokeLater(() -> {
+            if (showRequested) {
+                show.run();
+            }
+        }));
+    }
+
+    /**
+     * Forget a pending show (the window was hidden or disposed before it appeared)
+     */
+    public void cancelShow() {
+        showRequested = false;
+    }
+
+    /**
+     * Call from the window's paint method; logs the first frame only
+     */
+    public void framePainted() {
+        if (firstFrameLogged || !isReady()) {
+            return;
+        }
+        firstFrameLogged = true;
+
+        long now = System.nanoTime();
+        long loadMillis = TimeUnit.NANOSECONDS.toMillis((readyNanos != 0 ? readyNanos : now) - startNanos);
+        long frameMillis = TimeUnit.NANOSECONDS.toMillis(now - startNanos);
+        System.out.println(name + " first interactive frame after " + frameMillis + " ms (" + loads.size()
+                + " initial loads joined in " + loadMillis + " ms)");
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * Some other library data changed (books or members edited or deleted)
+ */
+public record DataChangedEvent() implements LibraryEvent {
+
+    @Override
+    public EventType type() {
+        return EventType.DATA_CHANGED;
+    }
+}
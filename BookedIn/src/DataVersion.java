@@ -0,0 +1,61 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * DataVersion - A cheap global version number for the library data.
+ *
+ * The version is the newest change_log id, which the triggers on books, borrowed_books
+ * and users bump on every write. Reading it is a single primary key lookup, so dashboards
+ * probe it before refreshing and skip the refresh when it has not moved. Probes from every
+ * dashboard in the application share one cached value for PROBE_INTERVAL_MS.
+ *
+ * Each dashboard keeps its own DataVersion to remember the version it last refreshed at.
+ */
+public class DataVersion {
+
+    // Dashboards probing within this window share one query
+    private static final long PROBE_INTERVAL_MS = 1000;
+
+    private static long cachedVersion = -1;
+    private static long probedAt = 0;
+
+    private volatile long seen = -1;
+
+    /**
+     * Get the current data version
+     */
+    public static long current(Connection conn) throws SQLException {
+        synchronized (DataVersion.class) {
+            long now = System.currentTimeMillis();
+            if (cachedVersion >= 0 && now - probedAt < PROBE_INTERVAL_MS) {
+                return cachedVersion;
+            }
+            cachedVersion = ChangeTracker.readWatermark(conn);
+            probedAt = now;
+            return cachedVersion;
+        }
+    }
+
+    /**
+     * Forget the cached version so the next probe goes to the database (call after a local write)
+     */
+    public static void invalidate() {
+        synchronized (DataVersion.class) {
+            cachedVersion = -1;
+        }
+    }
+
+    /**
+     * Whether the given version differs from the one last marked as seen
+     */
+    public boolean hasMoved(long version) {
+        return version != seen;
+    }
+
+    /**
+     * Remember the version the dashboard has refreshed to
+     */
+    public void markSeen(long version) {
+        seen = version;
+    }
+}
@@ -1,5 +1,6 @@
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
@@ -7,45 +8,120 @@ public class DatabaseConnection {
     private static final String DB_URL = "jdbc:mysql://localhost:3306/BookedIN";
     private static final String DB_USER = "root";
     private static final String DB_PASSWORD = "";
-    
-    // Keep track of the active connection
-    private static Connection activeConnection = null;
-    
+
+    // Pool settings
+    private static final int POOL_MAX_SIZE = 8;
+    private static final int POOL_MIN_IDLE = 2;
+    private static final long BORROW_TIMEOUT_MS = 10_000;
+    private static final long IDLE_TIMEOUT_MS = 5 * 60_000;
+    private static final long VALIDATION_INTERVAL_MS = 30_000;
+    private static final long LEAK_THRESHOLD_MS = 60_000;
+
+    private static ConnectionPool pool = null;
+
+    // The pooled connection leased to each thread that calls getConnection()
+    private static final ThreadLocal<Connection> threadConnection = new ThreadLocal<>();
+
+    // Shared handle that routes every call to the calling thread's leased connection
+    private static final Connection routingConnection = (Connection) Proxy.newProxyInstance(
+            DatabaseConnection.class.getClassLoader(), new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                case "close":
+                    releaseConnection();
+                    return null;
+                case "isClosed":
+                    return false;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "DatabaseConnection[thread-bound]";
+                default:
+                    try {
+                        return method.invoke(leaseForCurrentThread(), args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            });
+
     /**
-     * Get a database connection
+     * Get the connection pool, creating it on first use
      */
-    public static synchronized Connection getConnection() throws SQLException {
-        try {
-            // Check if connection exists and is valid
-            if (activeConnection != null && !activeConnection.isClosed() && activeConnection.isValid(5)) {
-                return activeConnection;
+    public static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            try {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("Database driver not found", e);
             }
-            
-            // Create a new connection if needed
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            activeConnection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-            System.out.println("Database connected");
-            return activeConnection;
-            
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("Database driver not found", e);
+            pool = new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD, POOL_MAX_SIZE, POOL_MIN_IDLE,
+                    BORROW_TIMEOUT_MS, IDLE_TIMEOUT_MS, VALIDATION_INTERVAL_MS, LEAK_THRESHOLD_MS);
+            System.out.println("Database connection pool created");
         }
+        return pool;
     }
-    
+
     /**
-     * Close the active connection
+     * Get a database connection
+     *
+     * The returned connection can be kept and shared: each call made on it runs on a
+     * pooled connection leased to the calling thread, so different threads never share
+     * a socket. Closing it (or calling releaseConnection) gives the lease back to the pool.
+     */
+    public static Connection getConnection() throws SQLException {
+        leaseForCurrentThread();
+        return routingConnection;
+    }
+
+    /**
+     * Borrow a connection for a single unit of work. Close it to return it to the pool.
      */
-    public static synchronized void closeConnection() {
-        if (activeConnection != null) {
+    public static Connection borrowConnection() throws SQLException {
+        return getPool().borrow();
+    }
+
+    /**
+     * Get the pooled connection leased to the calling thread, leasing one if needed
+     */
+    private static Connection leaseForCurrentThread() throws SQLException {
+        ConnectionPool currentPool = getPool();
+        Connection leased = threadConnection.get();
+
+        if (leased != null && !currentPool.validate(leased)) {
+            // The lease was reclaimed or went stale while the thread held it, replace it
+            currentPool.discard(leased);
+            leased = null;
+        }
+
+        if (leased == null) {
+            leased = currentPool.borrowPinned();
+            threadConnection.set(leased);
+        }
+        return leased;
+    }
+
+    /**
+     * Give the calling thread's leased connection back to the pool
+     */
+    public static void releaseConnection() {
+        Connection leased = threadConnection.get();
+        threadConnection.remove();
+        if (leased != null) {
             try {
-                if (!activeConnection.isClosed()) {
-                    activeConnection.close();
-                }
-                activeConnection = null;
+                leased.close();
             } catch (SQLException e) {
-                System.err.println("Error closing connection: " + e.getMessage());
-                e.printStackTrace();
+                System.err.println("Error releasing connection: " + e.getMessage());
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Close the active connection
+     */
+    public static void closeConnection() {
+        releaseConnection();
+    }
+}
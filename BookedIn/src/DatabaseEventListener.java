@@ -0,0 +1,14 @@
+/**
+ * Interface for objects that want to listen for database events
+ */
+public interface DatabaseEventListener {
+    void onDatabaseEvent(DatabaseEventManager.DatabaseEvent event);
+
+    /**
+     * How long to collect events of the given type before delivering them as one merged
+     * event. 0 uses the manager's default for the type.
+     */
+    default long getDebounceMillis(EventType eventType) {
+        return 0;
+    }
+}
@@ -1,32 +1,96 @@
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * DatabaseEventManager - A singleton class that manages database events and notifies listeners
  * This class implements the Observer pattern to notify components when database changes occur
+ *
+ * Events are delivered asynchronously: fireEvent only queues the event and returns, so the
+ * code that made the change (often on the EDT, right after a commit) never waits for
+ * listeners. Each listener has its own queue, drained on the dispatcher's thread pool, so a
+ * listener sees its events in order and a slow listener does not delay the others.
+ *
+ * Events can be coalesced: when a listener (or the manager, per event type) declares a
+ * debounce interval, events of one type that arrive within that window are merged into a
+ * single delivery whose getPayloads() holds every merged event.
+ *
+ * Events are immutable LibraryEvent records and are dispatched by their EventType.
+ *
+ * With a transport set, fired events are also sent to other BookedIn instances (other
+ * workstations), and their events are delivered to this instance's listeners as if they
+ * had been fired here.
+ *
+ * With a journal set, every event this instance sees (fired here or received) is appended
+ * to it before it is delivered.
  */
 public class DatabaseEventManager {
     // Singleton instance
     private static DatabaseEventManager instance;
-    
-    // Define event types as constants
-    public static final String EVENT_BOOK_CHECKOUT = "BOOK_CHECKOUT";
-    public static final String EVENT_BOOK_RETURN = "BOOK_RETURN";
-    public static final String EVENT_BOOK_RENEWAL = "BOOK_RENEWAL";
-    public static final String EVENT_MEMBER_ADDED = "MEMBER_ADDED";
-    public static final String EVENT_BOOK_ADDED = "BOOK_ADDED";
-    public static final String EVENT_DATA_CHANGED = "DATA_CHANGED"; // Generic event for any data change
-    
-    // Map to store listeners for different event types
-    private Map<String, List<DatabaseEventListener>> listeners;
-    
+
+    // Dispatcher threads shared by all listener queues
+    private static final int DISPATCH_THREADS = 4;
+
+    // Subscriptions for each event type (safe to iterate while listeners are added or removed)
+    private final Map<EventType, List<Subscription>> listeners = new EnumMap<>(EventType.class);
+
+    private final ExecutorService dispatcher;
+
+    // Flushes coalesced events when their window closes
+    private final ScheduledExecutorService coalescer;
+
+    // Default coalescing window per event type, for listeners that do not declare their own
+    private final Map<EventType, Long> coalescingWindows = new ConcurrentHashMap<>();
+
+    // Carries events to and from other instances (null for this instance only)
+    private volatile EventTransport transport;
+
+    // Durable record of every event seen (null for none)
+    private volatile EventJournal journal;
+
     // Private constructor for singleton
     private DatabaseEventManager() {
-        listeners = new HashMap<>();
+        // Filled once here so the map itself never changes after construction
+        for (EventType eventType : EventType.values()) {
+            listeners.put(eventType, new CopyOnWriteArrayList<>());
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DISPATCH_THREADS, DISPATCH_THREADS, 60,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "BookedIn-events-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        dispatcher = executor;
+
+        coalescer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "BookedIn-events-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
     }
-    
+
     // Get singleton instance
     public static synchronized DatabaseEventManager getInstance() {
         if (instance == null) {
@@ -34,85 +98,331 @@ public class DatabaseEventManager {
         }
         return instance;
     }
-    
+
     /**
      * Add a listener for a specific event type
-     * 
+     *
      * @param eventType The type of event to listen for
      * @param listener The listener to add
      */
-    public void addListener(String eventType, DatabaseEventListener listener) {
-        List<DatabaseEventListener> eventListeners = listeners.get(eventType);
-        
-        if (eventListeners == null) {
-            eventListeners = new ArrayList<>();
-            listeners.put(eventType, eventListeners);
+    public void addListener(EventType eventType, DatabaseEventListener listener) {
+        subscribe(eventType, listener, false);
+    }
+
+    /**
+     * Add a listener that is only weakly referenced, so registering does not keep it alive.
+     * A listener that is a window is also removed from every event type once it is disposed.
+     *
+     * @param eventType The type of event to listen for
+     * @param listener The listener to add
+     */
+    public void addWeakListener(EventType eventType, DatabaseEventListener listener) {
+        subscribe(eventType, listener, true);
+    }
+
+    private synchronized void subscribe(EventType eventType, DatabaseEventListener listener, boolean weak) {
+        List<Subscription> eventListeners = listeners.get(eventType);
+
+        for (Subscription subscription : eventListeners) {
+            if (subscription.get() == listener) {
+                return;
+            }
+        }
+
+        // Share one queue per listener across event types so its events stay in order
+        ListenerQueue queue = findQueue(listener);
+        if (queue == null) {
+            queue = new ListenerQueue();
+            if (weak && listener instanceof Window) {
+                ((Window) listener).addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowClosed(WindowEvent e) {
+                        removeAllListeners((DatabaseEventListener) e.getWindow());
+                    }
+                });
+            }
         }
-        
-        if (!eventListeners.contains(listener)) {
-            eventListeners.add(listener);
+        eventListeners.add(new Subscription(listener, weak, queue));
+    }
+
+    private ListenerQueue findQueue(DatabaseEventListener listener) {
+        for (List<Subscription> eventListeners : listeners.values()) {
+            for (Subscription subscription : eventListeners) {
+                if (subscription.get() == listener) {
+                    return subscription.queue;
+                }
+            }
         }
+        return null;
     }
-    
+
     /**
      * Remove a listener for a specific event type
-     * 
+     *
      * @param eventType The type of event
      * @param listener The listener to remove
      */
-    public void removeListener(String eventType, DatabaseEventListener listener) {
-        List<DatabaseEventListener> eventListeners = listeners.get(eventType);
-        
-        if (eventListeners != null) {
-            eventListeners.remove(listener);
+    public synchronized void removeListener(EventType eventType, DatabaseEventListener listener) {
+        listeners.get(eventType).removeIf(subscription -> subscription.get() == listener || subscription.get() == null);
+    }
+
+    /**
+     * Remove a listener from every event type
+     *
+     * @param listener The listener to remove
+     */
+    public synchronized void removeAllListeners(DatabaseEventListener listener) {
+        for (EventType eventType : EventType.values()) {
+            removeListener(eventType, listener);
+        }
+    }
+
+    /**
+     * Set the default coalescing window for an event type. Listeners that declare their own
+     * debounce interval use that instead.
+     *
+     * @param eventType The type of event
+     * @param millis Events of this type within this many milliseconds are delivered together (0 to disable)
+     */
+    public void setCoalescingWindow(EventType eventType, long millis) {
+        coalescingWindows.put(eventType, millis);
+    }
+
+    /**
+     * Fire an event to notify all listeners of its type. Returns without waiting for them.
+     *
+     * @param event The event that occurred
+     */
+    public void fireEvent(LibraryEvent event) {
+        deliverLocally(event);
+
+        EventTransport currentTransport = transport;
+        if (currentTransport != null) {
+            currentTransport.publish(event);
+        }
+    }
+
+    /**
+     * Set the transport that shares events with other instances, replacing any previous one
+     *
+     * @param newTransport The transport to use (null to stop sharing events)
+     */
+    public synchronized void setTransport(EventTransport newTransport) {
+        if (transport != null) {
+            transport.stop();
+        }
+        transport = newTransport;
+        if (newTransport != null) {
+            // Events from other instances go to local listeners only
+            newTransport.start(this::deliverLocally);
+        }
+    }
+
+    public EventTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Set the journal that records every event
+     *
+     * @param newJournal The journal to append to (null to stop journaling)
+     */
+    public void setJournal(EventJournal newJournal) {
+        journal = newJournal;
+    }
+
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    private void deliverLocally(LibraryEvent libraryEvent) {
+        EventJournal currentJournal = journal;
+        if (currentJournal != null) {
+            try {
+                currentJournal.append(libraryEvent);
+            } catch (IOException e) {
+                System.err.println("Error writing event journal: " + e.getMessage());
+            }
+        }
+
+        List<Subscription> eventListeners = listeners.get(libraryEvent.type());
+
+        if (!eventListeners.isEmpty()) {
+            DatabaseEvent event = new DatabaseEvent(libraryEvent);
+
+            // Queue it for every listener
+            for (Subscription subscription : eventListeners) {
+                subscription.deliver(event);
+            }
         }
     }
-    
+
     /**
-     * Fire an event to notify all listeners
-     * 
-     * @param eventType The type of event that occurred
-     * @param data Additional data related to the event (can be null)
+     * One listener registered for one event type
      */
-    public void fireEvent(String eventType, Object data) {
-        List<DatabaseEventListener> eventListeners = listeners.get(eventType);
-        
-        if (eventListeners != null) {
-            // Create a new event
-            DatabaseEvent event = new DatabaseEvent(eventType, data);
-            
-            // Notify all listeners
-            for (DatabaseEventListener listener : eventListeners) {
+    private class Subscription {
+        private final DatabaseEventListener strongRef;
+        private final WeakReference<DatabaseEventListener> weakRef;
+        private final ListenerQueue queue;
+
+        // Payloads waiting for the coalescing window to close (guarded by "this")
+        private List<LibraryEvent> batch = null;
+        private int batchCount = 0;
+
+        Subscription(DatabaseEventListener listener, boolean weak, ListenerQueue queue) {
+            this.strongRef = weak ? null : listener;
+            this.weakRef = weak ? new WeakReference<>(listener) : null;
+            this.queue = queue;
+        }
+
+        DatabaseEventListener get() {
+            return strongRef != null ? strongRef : weakRef.get();
+        }
+
+        void deliver(DatabaseEvent event) {
+            DatabaseEventListener listener = get();
+            long window = listener != null ? listener.getDebounceMillis(event.getEventType()) : 0;
+            if (window <= 0) {
+                window = coalescingWindows.getOrDefault(event.getEventType(), 0L);
+            }
+
+            if (window <= 0) {
+                dispatch(event);
+                return;
+            }
+
+            synchronized (this) {
+                if (batch == null) {
+                    // First event of a new window, flush when it closes
+                    batch = new ArrayList<>();
+                    batchCount = 0;
+                    coalescer.schedule(() -> flush(event.getEventType()), window, TimeUnit.MILLISECONDS);
+                }
+                batch.addAll(event.getPayloads());
+                batchCount += event.getCount();
+            }
+        }
+
+        private void flush(EventType eventType) {
+            List<LibraryEvent> payloads;
+            int count;
+            synchronized (this) {
+                payloads = batch;
+                count = batchCount;
+                batch = null;
+            }
+            if (payloads != null) {
+                dispatch(new DatabaseEvent(eventType, payloads, count));
+            }
+        }
+
+        private void dispatch(DatabaseEvent event) {
+            queue.add(() -> {
+                DatabaseEventListener listener = get();
+                if (listener == null) {
+                    // The listener has been garbage collected
+                    listeners.get(event.getEventType()).remove(this);
+                    return;
+                }
                 listener.onDatabaseEvent(event);
+            });
+        }
+    }
+
+    /**
+     * Runs one listener's deliveries one at a time, in the order they were queued
+     */
+    private class ListenerQueue implements Runnable {
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        void add(Runnable delivery) {
+            pending.add(delivery);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Runnable delivery;
+            while ((delivery = pending.poll()) != null) {
+                try {
+                    delivery.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error in database event listener: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+            scheduled.set(false);
+
+            // An event may have been queued after the last poll but before the flag was cleared
+            if (!pending.isEmpty()) {
+                schedule();
             }
         }
     }
-    
+
     /**
-     * Inner class representing a database event
+     * Inner class representing a database event: one LibraryEvent, or several of the same type
+     * merged by coalescing
      */
     public static class DatabaseEvent {
-        private String eventType;
-        private Object data;
-        
-        public DatabaseEvent(String eventType, Object data) {
+        private final EventType eventType;
+        private final List<LibraryEvent> payloads;
+        private final int count;
+
+        public DatabaseEvent(LibraryEvent event) {
+            this(event.type(), Collections.singletonList(event), 1);
+        }
+
+        // A delivery that merges several coalesced events
+        private DatabaseEvent(EventType eventType, List<LibraryEvent> payloads, int count) {
             this.eventType = eventType;
-            this.data = data;
+            this.payloads = Collections.unmodifiableList(payloads);
+            this.count = count;
         }
-        
-        public String getEventType() {
+
+        public EventType getEventType() {
             return eventType;
         }
-        
-        public Object getData() {
-            return data;
+
+        /**
+         * The event (the most recent one if several were merged)
+         */
+        public LibraryEvent getData() {
+            return payloads.get(payloads.size() - 1);
+        }
+
+        /**
+         * Every merged event, oldest first
+         */
+        public List<LibraryEvent> getPayloads() {
+            return payloads;
+        }
+
+        /**
+         * The merged events of the given record type, oldest first
+         */
+        public <T extends LibraryEvent> List<T> getPayloads(Class<T> eventClass) {
+            List<T> matching = new ArrayList<>(payloads.size());
+            for (LibraryEvent payload : payloads) {
+                if (eventClass.isInstance(payload)) {
+                    matching.add(eventClass.cast(payload));
+                }
+            }
+            return matching;
+        }
+
+        /**
+         * How many events were merged into this delivery
+         */
+        public int getCount() {
+            return count;
         }
     }
 }
-
-/**
- * Interface for objects that want to listen for database events
- */
-interface DatabaseEventListener {
-    void onDatabaseEvent(DatabaseEventManager.DatabaseEvent event);
-}
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
 	
 public class DatabaseSetup {
 	public static final String DB_URL = "jdbc:mysql://localhost:3306/";
@@ -61,20 +62,15 @@ public class DatabaseSetup {
 	        stmt.executeUpdate(createUsersTable);
 	        System.out.println("Users table created");
 
-			// Books Table
-			String createBooksTable = "CREATE TABLE books (" + "id INT AUTO_INCREMENT PRIMARY KEY,"
-					+ "title VARCHAR(200) NOT NULL," + "author VARCHAR(100) NOT NULL," + "isbn VARCHAR(20),"
-					+ "year INT," + "genre VARCHAR(50)," + "description TEXT," + "publisher VARCHAR(100),"
-					+ "location VARCHAR(50)," + "available BOOLEAN DEFAULT TRUE," + "cover_image VARCHAR(200),"
-					+ "date_added DATE NOT NULL" + ")";
-			stmt.executeUpdate(createBooksTable);
-			System.out.println("Books table created");
+			// Titles and Copies Tables (read together through the books view)
+			createCatalogTables(stmt);
+			System.out.println("Titles and Copies tables created");
 
 			// Borrowed Books Table
 			String createBorrowedBooksTable = "CREATE TABLE borrowed_books (" + "id INT AUTO_INCREMENT PRIMARY KEY,"
 					+ "book_id INT NOT NULL," + "username VARCHAR(50) NOT NULL," + "borrow_date DATE NOT NULL,"
 					+ "due_date DATE NOT NULL," + "return_date DATE,"
-					+ "FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,"
+					+ "FOREIGN KEY (book_id) REFERENCES copies(id) ON DELETE CASCADE,"
 					+ "FOREIGN KEY (username) REFERENCES users(username) ON DELETE CASCADE" + ")";
 			stmt.executeUpdate(createBorrowedBooksTable);
 			System.out.println("Borrowed Books table created");
@@ -83,7 +79,7 @@ public class DatabaseSetup {
 			String createBookReviewsTable = "CREATE TABLE book_reviews (" + "id INT AUTO_INCREMENT PRIMARY KEY,"
 					+ "book_id INT NOT NULL," + "username VARCHAR(50) NOT NULL,"
 					+ "rating INT NOT NULL CHECK (rating BETWEEN 1 AND 5)," + "content TEXT,"
-					+ "review_date DATE NOT NULL," + "FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,"
+					+ "review_date DATE NOT NULL," + "FOREIGN KEY (book_id) REFERENCES copies(id) ON DELETE CASCADE,"
 					+ "FOREIGN KEY (username) REFERENCES users(username) ON DELETE CASCADE,"
 					+ "UNIQUE (book_id, username)" + ")";
 			stmt.executeUpdate(createBookReviewsTable);
@@ -92,27 +88,60 @@ public class DatabaseSetup {
 			// Book Views (Recently Viewed) Table
 			String createBookViewsTable = "CREATE TABLE book_views (" + "id INT AUTO_INCREMENT PRIMARY KEY,"
 					+ "book_id INT NOT NULL," + "username VARCHAR(50) NOT NULL," + "view_date DATETIME NOT NULL,"
-					+ "FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,"
+					+ "FOREIGN KEY (book_id) REFERENCES copies(id) ON DELETE CASCADE,"
 					+ "FOREIGN KEY (username) REFERENCES users(username) ON DELETE CASCADE" + ")";
 			stmt.executeUpdate(createBookViewsTable);
 			System.out.println("Book Views table created");
 
+			// Daily view counts of compacted book views (see ViewRollup)
+			createViewRollupTables(stmt);
+			System.out.println("View Rollup tables created");
+
 			// Waitlist Table
 			String createWaitlistTable = "CREATE TABLE waitlist (" + "id INT AUTO_INCREMENT PRIMARY KEY,"
 					+ "book_id INT NOT NULL," + "username VARCHAR(50) NOT NULL," + "request_date DATETIME NOT NULL,"
 					+ "status ENUM('waiting', 'notified', 'expired') DEFAULT 'waiting'," + "notification_date DATETIME,"
-					+ "FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,"
+					+ "FOREIGN KEY (book_id) REFERENCES copies(id) ON DELETE CASCADE,"
 					+ "FOREIGN KEY (username) REFERENCES users(username) ON DELETE CASCADE,"
 					+ "UNIQUE (book_id, username)" + ")";
 			stmt.executeUpdate(createWaitlistTable);
 			System.out.println("Waitlist table created");
 
+			// Change Log Table (keys of changed rows, read by the dashboards' incremental refresh)
+			String createChangeLogTable = "CREATE TABLE change_log (" + "id BIGINT AUTO_INCREMENT PRIMARY KEY,"
+					+ "table_name VARCHAR(30) NOT NULL," + "row_key VARCHAR(50) NOT NULL,"
+					+ "changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" + ")";
+			stmt.executeUpdate(createChangeLogTable);
+			System.out.println("Change Log table created");
+
+			// Library Stats Table (the dashboard counters, see LibraryStats)
+			createStatsTable(stmt);
+			System.out.println("Library Stats table created");
+
+			// Event Outbox Table (events shared between workstations, see OutboxEventTransport)
+			String createEventOutboxTable = "CREATE TABLE event_outbox (" + "seq BIGINT AUTO_INCREMENT PRIMARY KEY,"
+					+ "origin VARCHAR(36) NOT NULL," + "event_type VARCHAR(30) NOT NULL," + "payload TEXT,"
+					+ "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" + ")";
+			stmt.executeUpdate(createEventOutboxTable);
+			System.out.println("Event Outbox table created");
+
+			createChangeTriggers(stmt);
+			System.out.println("Change tracking triggers created");
+
+			// Activity Log Table (the recent activity feed, see ActivityFeed)
+			createActivityLog(stmt);
+			System.out.println("Activity Log table created");
+
 			// Create indexes for performance
-			stmt.executeUpdate("CREATE INDEX idx_books_title_author ON books(title, author)");
+			stmt.executeUpdate("CREATE INDEX idx_users_full_name ON users(full_name)");
+			stmt.executeUpdate("CREATE INDEX idx_users_registration ON users(registration_date)");
 			stmt.executeUpdate("CREATE INDEX idx_borrowed_username ON borrowed_books(username)");
 			stmt.executeUpdate("CREATE INDEX idx_borrowed_book_id ON borrowed_books(book_id)");
 			stmt.executeUpdate("CREATE INDEX idx_borrowed_due_date ON borrowed_books(due_date)");
-			stmt.executeUpdate("CREATE INDEX idx_book_views_username ON book_views(username)");
+			stmt.executeUpdate("CREATE INDEX idx_borrowed_borrow_date ON borrowed_books(borrow_date)");
+			createBookViewIndexes(stmt);
+			stmt.executeUpdate("CREATE INDEX idx_event_outbox_created ON event_outbox(created_at)");
+			stmt.executeUpdate("CREATE INDEX idx_change_log_changed ON change_log(changed_at)");
 			System.out.println("Indexes created");
 
 		} catch (SQLException e) {
@@ -120,6 +149,277 @@ public class DatabaseSetup {
 		}
 	}
 
+	/**
+	 * Create the catalog: a titles row per ISBN holding the bibliographic details, the
+	 * copy counts and how many times its copies have been borrowed (for the popular books
+	 * leaderboard), a copies row per physical copy, and the books view joining them with
+	 * the columns of the old books table (a copy's id is its book id).
+	 */
+	static void createCatalogTables(Statement stmt) throws SQLException {
+		String createTitlesTable = "CREATE TABLE titles (" + "id INT AUTO_INCREMENT PRIMARY KEY,"
+				+ "isbn VARCHAR(20) UNIQUE," + "title VARCHAR(200) NOT NULL," + "author VARCHAR(100) NOT NULL,"
+				+ "year INT," + "genre VARCHAR(50)," + "description TEXT," + "publisher VARCHAR(100),"
+				+ "cover_image VARCHAR(200)," + "date_added DATE NOT NULL,"
+				+ "copies INT NOT NULL DEFAULT 0," + "available_copies INT NOT NULL DEFAULT 0,"
+				+ "borrow_count INT NOT NULL DEFAULT 0," + "INDEX idx_titles_title (title),"
+				+ "INDEX idx_titles_author (author)," + "INDEX idx_titles_genre (genre)," + "INDEX idx_titles_year (year),"
+				+ "INDEX idx_titles_borrow_count (borrow_count)" + ")";
+		stmt.executeUpdate(createTitlesTable);
+
+		String createCopiesTable = "CREATE TABLE copies (" + "id INT AUTO_INCREMENT PRIMARY KEY,"
+				+ "title_id INT NOT NULL," + "barcode VARCHAR(20)," + "location VARCHAR(50),"
+				+ "available BOOLEAN NOT NULL DEFAULT TRUE," + "date_added DATE NOT NULL,"
+				+ "UNIQUE INDEX idx_copies_barcode (barcode)," + "INDEX idx_copies_title_available (title_id, available),"
+				+ "FOREIGN KEY (title_id) REFERENCES titles(id) ON DELETE CASCADE" + ")";
+		stmt.executeUpdate(createCopiesTable);
+
+		createBooksView(stmt);
+	}
+
+	/**
+	 * The books view (replaced if it exists)
+	 */
+	static void createBooksView(Statement stmt) throws SQLException {
+		stmt.executeUpdate("CREATE OR REPLACE VIEW books AS SELECT c.id, t.title, t.author, t.isbn, t.year, t.genre, "
+				+ "t.description, t.publisher, c.location, c.available, t.cover_image, c.date_added, c.title_id, "
+				+ "c.barcode FROM copies c JOIN titles t ON c.title_id = t.id");
+	}
+
+	/**
+	 * Give every copy without a barcode one made from its id ("BK000042"), called after
+	 * inserting copies (the id is only known once the row is in)
+	 *
+	 * @return How many copies were given one
+	 */
+	static int assignBarcodes(Statement stmt) throws SQLException {
+		return stmt.executeUpdate("UPDATE copies SET barcode = CONCAT('BK', LPAD(id, GREATEST(6, LENGTH(id)), '0')) "
+				+ "WHERE barcode IS NULL");
+	}
+
+	/**
+	 * Keep titles.copies and titles.available_copies in step with the copies table, and
+	 * log changed titles by ISBN (the books tables are grouped by ISBN). A copy changing
+	 * updates its title row, so the titles triggers log it.
+	 */
+	static void createCatalogTriggers(Statement stmt) throws SQLException {
+		stmt.executeUpdate("CREATE TRIGGER titles_after_insert AFTER INSERT ON titles FOR EACH ROW "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('books', COALESCE(NEW.isbn, ''))");
+		stmt.executeUpdate("CREATE TRIGGER titles_after_update AFTER UPDATE ON titles FOR EACH ROW BEGIN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('books', COALESCE(NEW.isbn, '')); "
+				+ "IF NOT (OLD.isbn <=> NEW.isbn) THEN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('books', COALESCE(OLD.isbn, '')); "
+				+ "END IF; END");
+		stmt.executeUpdate("CREATE TRIGGER titles_before_delete BEFORE DELETE ON titles FOR EACH ROW BEGIN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('books', COALESCE(OLD.isbn, '')); "
+				+ adjustStats(LibraryStats.TOTAL_BOOKS, "-OLD.copies",
+						LibraryStats.OPEN_LOANS, "-(SELECT COUNT(*) FROM borrowed_books bb JOIN copies c "
+								+ "ON bb.book_id = c.id WHERE c.title_id = OLD.id AND " + open("bb") + ")",
+						LibraryStats.OVERDUE_LOANS, "-(SELECT COUNT(*) FROM borrowed_books bb JOIN copies c "
+								+ "ON bb.book_id = c.id WHERE c.title_id = OLD.id AND " + overdue("bb") + ")")
+				+ "INSERT INTO change_log (table_name, row_key) SELECT 'borrowed_books', bb.id "
+				+ "FROM borrowed_books bb JOIN copies c ON bb.book_id = c.id WHERE c.title_id = OLD.id; "
+				+ "INSERT INTO change_log (table_name, row_key) SELECT DISTINCT 'users', bb.username "
+				+ "FROM borrowed_books bb JOIN copies c ON bb.book_id = c.id WHERE c.title_id = OLD.id; END");
+
+		stmt.executeUpdate("CREATE TRIGGER copies_after_insert AFTER INSERT ON copies FOR EACH ROW BEGIN "
+				+ "UPDATE titles SET copies = copies + 1, available_copies = available_copies + NEW.available "
+				+ "WHERE id = NEW.title_id; "
+				+ adjustStats(LibraryStats.TOTAL_BOOKS, "1") + "END");
+		stmt.executeUpdate("CREATE TRIGGER copies_after_update AFTER UPDATE ON copies FOR EACH ROW BEGIN "
+				+ "IF OLD.title_id = NEW.title_id THEN "
+				+ "UPDATE titles SET available_copies = available_copies + NEW.available - OLD.available "
+				+ "WHERE id = NEW.title_id; "
+				+ "ELSE "
+				+ "UPDATE titles SET copies = copies - 1, available_copies = available_copies - OLD.available "
+				+ "WHERE id = OLD.title_id; "
+				+ "UPDATE titles SET copies = copies + 1, available_copies = available_copies + NEW.available "
+				+ "WHERE id = NEW.title_id; "
+				+ "END IF; END");
+		stmt.executeUpdate("CREATE TRIGGER copies_before_delete BEFORE DELETE ON copies FOR EACH ROW BEGIN "
+				+ "UPDATE titles SET copies = copies - 1, available_copies = available_copies - OLD.available, "
+				+ "borrow_count = borrow_count - (SELECT COUNT(*) FROM borrowed_books WHERE book_id = OLD.id) "
+				+ "WHERE id = OLD.title_id; "
+				+ adjustStats(LibraryStats.TOTAL_BOOKS, "-1",
+						LibraryStats.OPEN_LOANS, "-(SELECT COUNT(*) FROM borrowed_books bb "
+								+ "WHERE bb.book_id = OLD.id AND " + open("bb") + ")",
+						LibraryStats.OVERDUE_LOANS, "-(SELECT COUNT(*) FROM borrowed_books bb "
+								+ "WHERE bb.book_id = OLD.id AND " + overdue("bb") + ")")
+				+ "INSERT INTO change_log (table_name, row_key) "
+				+ "SELECT 'borrowed_books', id FROM borrowed_books WHERE book_id = OLD.id; "
+				+ "INSERT INTO change_log (table_name, row_key) "
+				+ "SELECT DISTINCT 'users', username FROM borrowed_books WHERE book_id = OLD.id; END");
+	}
+
+	// The activity log triggers, dropped and made again by CatalogMigration.upgrade if any is missing
+	static final String[] ACTIVITY_TRIGGERS = { "borrowed_books_activity_insert", "borrowed_books_activity_update",
+			"book_views_activity_insert", "titles_activity_insert", "titles_activity_update", "titles_activity_delete" };
+
+	/**
+	 * Create the activity_log table and the triggers that append checkouts, returns,
+	 * renewals, book views and catalog edits to it. They sit beside the change tracking
+	 * triggers, so a database made before the table can have it added on its own.
+	 */
+	static void createActivityLog(Statement stmt) throws SQLException {
+		stmt.executeUpdate("CREATE TABLE IF NOT EXISTS activity_log (" + "id BIGINT AUTO_INCREMENT PRIMARY KEY,"
+				+ "activity VARCHAR(30) NOT NULL," + "username VARCHAR(50)," + "title VARCHAR(255),"
+				+ "occurred_at DATETIME NOT NULL," + "INDEX idx_activity_log_time (occurred_at)" + ")");
+		createActivityTriggers(stmt);
+	}
+
+	/**
+	 * Create the triggers that write activity_log (see ACTIVITY_TRIGGERS)
+	 */
+	static void createActivityTriggers(Statement stmt) throws SQLException {
+		stmt.executeUpdate("CREATE TRIGGER borrowed_books_activity_insert AFTER INSERT ON borrowed_books FOR EACH ROW "
+				+ logLoanActivity("Book Borrowed"));
+		stmt.executeUpdate("CREATE TRIGGER borrowed_books_activity_update AFTER UPDATE ON borrowed_books FOR EACH ROW BEGIN "
+				+ "IF OLD.return_date IS NULL AND NEW.return_date IS NOT NULL THEN "
+				+ logLoanActivity("Book Returned") + "; "
+				+ "ELSEIF NEW.return_date IS NULL AND NOT (OLD.due_date <=> NEW.due_date) THEN "
+				+ logLoanActivity("Loan Renewed") + "; "
+				+ "END IF; END");
+		stmt.executeUpdate("CREATE TRIGGER book_views_activity_insert AFTER INSERT ON book_views FOR EACH ROW "
+				+ "INSERT INTO activity_log (activity, username, title, occurred_at) "
+				+ "SELECT 'Book Viewed', NEW.username, t.title, NEW.view_date FROM copies c "
+				+ "JOIN titles t ON t.id = c.title_id WHERE c.id = NEW.book_id");
+
+		// Titles are also updated as their copies and loans change, only log edits to the details
+		stmt.executeUpdate("CREATE TRIGGER titles_activity_insert AFTER INSERT ON titles FOR EACH ROW "
+				+ "INSERT INTO activity_log (activity, title, occurred_at) VALUES ('Book Added', NEW.title, NOW())");
+		stmt.executeUpdate("CREATE TRIGGER titles_activity_update AFTER UPDATE ON titles FOR EACH ROW BEGIN "
+				+ "IF NOT (OLD.isbn <=> NEW.isbn AND OLD.title <=> NEW.title AND OLD.author <=> NEW.author "
+				+ "AND OLD.year <=> NEW.year AND OLD.genre <=> NEW.genre AND OLD.description <=> NEW.description "
+				+ "AND OLD.publisher <=> NEW.publisher AND OLD.cover_image <=> NEW.cover_image) THEN "
+				+ "INSERT INTO activity_log (activity, title, occurred_at) VALUES ('Book Updated', NEW.title, NOW()); "
+				+ "END IF; END");
+		stmt.executeUpdate("CREATE TRIGGER titles_activity_delete AFTER DELETE ON titles FOR EACH ROW "
+				+ "INSERT INTO activity_log (activity, title, occurred_at) VALUES ('Book Removed', OLD.title, NOW())");
+	}
+
+	/**
+	 * A trigger statement logging an activity on the loan in NEW, with its copy's title
+	 */
+	private static String logLoanActivity(String activity) {
+		return "INSERT INTO activity_log (activity, username, title, occurred_at) SELECT '" + activity
+				+ "', NEW.username, t.title, NOW() FROM copies c JOIN titles t ON t.id = c.title_id "
+				+ "WHERE c.id = NEW.book_id";
+	}
+
+	/**
+	 * Create the daily view counts per title and per member that old book views are rolled
+	 * up into
+	 */
+	static void createViewRollupTables(Statement stmt) throws SQLException {
+		stmt.executeUpdate("CREATE TABLE IF NOT EXISTS title_view_daily (" + "title_id INT NOT NULL,"
+				+ "view_day DATE NOT NULL," + "views INT NOT NULL DEFAULT 0," + "PRIMARY KEY (title_id, view_day),"
+				+ "FOREIGN KEY (title_id) REFERENCES titles(id) ON DELETE CASCADE" + ")");
+		stmt.executeUpdate("CREATE TABLE IF NOT EXISTS member_view_daily (" + "username VARCHAR(50) NOT NULL,"
+				+ "view_day DATE NOT NULL," + "views INT NOT NULL DEFAULT 0," + "PRIMARY KEY (username, view_day),"
+				+ "FOREIGN KEY (username) REFERENCES users(username) ON DELETE CASCADE" + ")");
+	}
+
+	/**
+	 * Index book_views for a user's latest views and for the newest views overall
+	 */
+	static void createBookViewIndexes(Statement stmt) throws SQLException {
+		stmt.executeUpdate("CREATE INDEX idx_book_views_user_date ON book_views(username, view_date)");
+		stmt.executeUpdate("CREATE INDEX idx_book_views_date ON book_views(view_date)");
+	}
+
+	/**
+	 * Create the library_stats table with a row for each counter
+	 */
+	static void createStatsTable(Statement stmt) throws SQLException {
+		stmt.executeUpdate("CREATE TABLE IF NOT EXISTS library_stats (" + "name VARCHAR(30) PRIMARY KEY,"
+				+ "value INT NOT NULL DEFAULT 0," + "reconciled_at TIMESTAMP NULL" + ")");
+		stmt.executeUpdate("INSERT IGNORE INTO library_stats (name) VALUES ('" + String.join("'), ('", LibraryStats.COUNTERS)
+				+ "')");
+	}
+
+	/**
+	 * A trigger statement adding to library_stats counters, given each counter's name
+	 * followed by the SQL of the amount to add
+	 */
+	private static String adjustStats(String... amounts) {
+		StringBuilder cases = new StringBuilder();
+		StringBuilder names = new StringBuilder();
+		for (int i = 0; i < amounts.length; i += 2) {
+			cases.append(" WHEN '").append(amounts[i]).append("' THEN ").append(amounts[i + 1]);
+			names.append(i == 0 ? "'" : ", '").append(amounts[i]).append("'");
+		}
+		return "UPDATE library_stats SET value = value + CASE name" + cases + " END WHERE name IN (" + names + "); ";
+	}
+
+	/**
+	 * A trigger statement adding to the borrow count of a copy's title
+	 */
+	private static String adjustBorrowCount(String copyId, String amount) {
+		return "UPDATE titles t JOIN copies c ON c.title_id = t.id SET t.borrow_count = t.borrow_count + " + amount
+				+ " WHERE c.id = " + copyId + "; ";
+	}
+
+	// Whether a loan row is open, and whether it is overdue (both 0 or 1, never NULL)
+	private static String open(String loan) {
+		return "(" + loan + ".return_date IS NULL)";
+	}
+
+	private static String overdue(String loan) {
+		return "(" + loan + ".return_date IS NULL AND " + loan + ".due_date < CURRENT_DATE())";
+	}
+
+	/**
+	 * Log the key of every changed book, loan and user row to change_log. Loans also
+	 * log their member (whose borrowed count changed), and rows removed by ON DELETE
+	 * CASCADE are logged from the parent's BEFORE DELETE trigger, since cascades do not
+	 * fire triggers. The same triggers keep the library_stats counters.
+	 */
+	static void createChangeTriggers(Statement stmt) throws SQLException {
+		// Titles and copies
+		createCatalogTriggers(stmt);
+
+		// Loans
+		stmt.executeUpdate("CREATE TRIGGER borrowed_books_after_insert AFTER INSERT ON borrowed_books FOR EACH ROW BEGIN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('borrowed_books', NEW.id), ('users', NEW.username); "
+				+ adjustBorrowCount("NEW.book_id", "1")
+				+ adjustStats(LibraryStats.OPEN_LOANS, open("NEW"), LibraryStats.OVERDUE_LOANS, overdue("NEW")) + "END");
+		stmt.executeUpdate("CREATE TRIGGER borrowed_books_after_update AFTER UPDATE ON borrowed_books FOR EACH ROW BEGIN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('borrowed_books', NEW.id), ('users', NEW.username); "
+				+ adjustStats(LibraryStats.OPEN_LOANS, open("NEW") + " - " + open("OLD"),
+						LibraryStats.OVERDUE_LOANS, overdue("NEW") + " - " + overdue("OLD")) + "END");
+		stmt.executeUpdate("CREATE TRIGGER borrowed_books_after_delete AFTER DELETE ON borrowed_books FOR EACH ROW BEGIN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('borrowed_books', OLD.id), ('users', OLD.username); "
+				+ adjustBorrowCount("OLD.book_id", "-1")
+				+ adjustStats(LibraryStats.OPEN_LOANS, "-" + open("OLD"), LibraryStats.OVERDUE_LOANS, "-" + overdue("OLD"))
+				+ "END");
+
+		// Users
+		stmt.executeUpdate("CREATE TRIGGER users_after_insert AFTER INSERT ON users FOR EACH ROW BEGIN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('users', NEW.username); "
+				+ adjustStats(LibraryStats.MEMBERS, "(NEW.role <=> 'member')",
+						LibraryStats.LIBRARIANS, "(NEW.role <=> 'librarian')") + "END");
+		stmt.executeUpdate("CREATE TRIGGER users_after_update AFTER UPDATE ON users FOR EACH ROW BEGIN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('users', NEW.username); "
+				+ "IF OLD.username <> NEW.username THEN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('users', OLD.username); "
+				+ "END IF; "
+				+ adjustStats(LibraryStats.MEMBERS, "(NEW.role <=> 'member') - (OLD.role <=> 'member')",
+						LibraryStats.LIBRARIANS, "(NEW.role <=> 'librarian') - (OLD.role <=> 'librarian')") + "END");
+		stmt.executeUpdate("CREATE TRIGGER users_before_delete BEFORE DELETE ON users FOR EACH ROW BEGIN "
+				+ "INSERT INTO change_log (table_name, row_key) VALUES ('users', OLD.username); "
+				+ "INSERT INTO change_log (table_name, row_key) "
+				+ "SELECT 'borrowed_books', id FROM borrowed_books WHERE username = OLD.username; "
+				+ "UPDATE titles t JOIN (SELECT c.title_id, COUNT(*) AS loans FROM borrowed_books bb "
+				+ "JOIN copies c ON bb.book_id = c.id WHERE bb.username = OLD.username GROUP BY c.title_id) l "
+				+ "ON t.id = l.title_id SET t.borrow_count = t.borrow_count - l.loans; "
+				+ adjustStats(LibraryStats.MEMBERS, "-(OLD.role <=> 'member')",
+						LibraryStats.LIBRARIANS, "-(OLD.role <=> 'librarian')",
+						LibraryStats.OPEN_LOANS, "-(SELECT COUNT(*) FROM borrowed_books bb "
+								+ "WHERE bb.username = OLD.username AND " + open("bb") + ")",
+						LibraryStats.OVERDUE_LOANS, "-(SELECT COUNT(*) FROM borrowed_books bb "
+								+ "WHERE bb.username = OLD.username AND " + overdue("bb") + ")")
+				+ "END");
+	}
+
 	private static void insertSampleData() {
 	    try {
 	        Connection conn = getConnection();
@@ -153,23 +453,34 @@ public class DatabaseSetup {
 	        stmt.executeUpdate(insertUsers);
 	        System.out.println("Sample users inserted");
 
-	        // Insert sample books
-	        String insertBooks = "INSERT INTO books (title, author, isbn, year, genre, description, publisher, location, available, date_added) VALUES "
+	        // Insert sample titles, one copy of each
+	        String insertTitles = "INSERT INTO titles (title, author, isbn, year, genre, description, publisher, date_added) VALUES "
 	                + "('Physics 1st Ed.', 'Jenelyn Cruz', '9781234567897', 2019, 'Science/Educational', "
-	                + "'A comprehensive introduction to physics principles and concepts.', 'Science Publishers', 'Second Floor, Shelf B4', true, CURRENT_DATE()),"
+	                + "'A comprehensive introduction to physics principles and concepts.', 'Science Publishers', CURRENT_DATE()),"
 	                + "('The Great Gatsby', 'F. Scott Fitzgerald', '9780743273565', 1925, 'Fiction/Classic', "
-	                + "'The story of eccentric millionaire Jay Gatsby and his passion for the beautiful Daisy Buchanan.', 'Scribner', 'First Floor, Shelf A2', true, CURRENT_DATE()),"
+	                + "'The story of eccentric millionaire Jay Gatsby and his passion for the beautiful Daisy Buchanan.', 'Scribner', CURRENT_DATE()),"
 	                + "('To Kill a Mockingbird', 'Harper Lee', '9780061120084', 1960, 'Fiction/Classic', "
-	                + "'The story of racial injustice and the destruction of innocence.', 'HarperCollins', 'First Floor, Shelf A1', true, CURRENT_DATE()),"
+	                + "'The story of racial injustice and the destruction of innocence.', 'HarperCollins', CURRENT_DATE()),"
 	                + "('1984', 'George Orwell', '9780451524935', 1949, 'Fiction/Dystopian', "
-	                + "'A dystopian social science fiction novel and cautionary tale about totalitarianism.', 'Penguin Books', 'First Floor, Shelf A3', true, CURRENT_DATE()),"
+	                + "'A dystopian social science fiction novel and cautionary tale about totalitarianism.', 'Penguin Books', CURRENT_DATE()),"
 	                + "('The Hobbit', 'J.R.R. Tolkien', '9780547928227', 1937, 'Fiction/Fantasy', "
-	                + "'The classic prelude to The Lord of the Rings trilogy.', 'Houghton Mifflin', 'First Floor, Shelf C1', true, CURRENT_DATE()),"
+	                + "'The classic prelude to The Lord of the Rings trilogy.', 'Houghton Mifflin', CURRENT_DATE()),"
 	                + "('Database Systems', 'Thomas Connolly', '9780321523068', 2014, 'Computer Science', "
-	                + "'A comprehensive introduction to database systems and design.', 'Pearson', 'Second Floor, Shelf B1', true, CURRENT_DATE()),"
+	                + "'A comprehensive introduction to database systems and design.', 'Pearson', CURRENT_DATE()),"
 	                + "('Introduction to Algorithms', 'Thomas H. Cormen', '9780262033848', 2009, 'Computer Science', "
-	                + "'A comprehensive introduction to algorithms.', 'MIT Press', 'Second Floor, Shelf B2', true, CURRENT_DATE())";
-	        stmt.executeUpdate(insertBooks);
+	                + "'A comprehensive introduction to algorithms.', 'MIT Press', CURRENT_DATE())";
+	        stmt.executeUpdate(insertTitles);
+
+	        String insertCopies = "INSERT INTO copies (title_id, location, date_added) VALUES "
+	                + "(1, 'Second Floor, Shelf B4', CURRENT_DATE()),"
+	                + "(2, 'First Floor, Shelf A2', CURRENT_DATE()),"
+	                + "(3, 'First Floor, Shelf A1', CURRENT_DATE()),"
+	                + "(4, 'First Floor, Shelf A3', CURRENT_DATE()),"
+	                + "(5, 'First Floor, Shelf C1', CURRENT_DATE()),"
+	                + "(6, 'Second Floor, Shelf B1', CURRENT_DATE()),"
+	                + "(7, 'Second Floor, Shelf B2', CURRENT_DATE())";
+	        stmt.executeUpdate(insertCopies);
+	        assignBarcodes(stmt);
 	        System.out.println("Sample books inserted");
 
 	        // Insert sample borrowed books for Eugene
@@ -180,7 +491,7 @@ public class DatabaseSetup {
 	        stmt.executeUpdate(borrowBooks);
 
 	        // Update these books as not available
-	        stmt.executeUpdate("UPDATE books SET available = false WHERE id IN (1, 2, 3)");
+	        stmt.executeUpdate("UPDATE copies SET available = false WHERE id IN (1, 2, 3)");
 	        System.out.println("Sample borrowed books inserted");
 
 	        // Insert sample book reviews
@@ -491,9 +802,22 @@ public class DatabaseSetup {
 	}
 
 	public static void initEventManager() {
-		// Simply get the instance to initialize it
-		DatabaseEventManager.getInstance();
-		System.out.println("Database event manager initialized");
+		DatabaseEventManager eventManager = DatabaseEventManager.getInstance();
+
+		// Keep a local journal of every event (also read by the trending books card)
+		if (eventManager.getJournal() == null) {
+			try {
+				eventManager.setJournal(EventJournal.openDefault());
+			} catch (IOException e) {
+				System.err.println("Event journal unavailable: " + e.getMessage());
+			}
+		}
+
+		// Share events with the other workstations through the event outbox
+		if (eventManager.getTransport() == null) {
+			eventManager.setTransport(new OutboxEventTransport());
+			System.out.println("Database event manager initialized");
+		}
 	}
 
 	// Modify the main method to initialize the event manager
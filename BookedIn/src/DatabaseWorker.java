@@ -0,0 +1,212 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * DatabaseWorker - Runs dashboard queries off the event dispatch thread.
+ *
+ * Each dashboard owns one worker. Queries run on a small shared thread pool, each
+ * on its own pooled connection, and their results are handed back on the EDT.
+ * Loads are keyed: starting a load with a key that is already in flight cancels the
+ * older one, and a result that arrives after it has been superseded is dropped.
+ */
+public class DatabaseWorker {
+
+    /**
+     * A unit of database work that produces a result
+     */
+    public interface Query<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    // Leave one pooled connection free for the EDT
+    private static final int THREADS = 6;
+
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "BookedIn-db-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        EXECUTOR = executor;
+    }
+
+    private final Map<String, Future<?>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Consumer<Boolean> busyListener;
+    private volatile boolean disposed = false;
+
+    /**
+     * @param busyListener Called on the EDT with true when loading starts and false when
+     *                     every load has finished (can be null)
+     */
+    public DatabaseWorker(Consumer<Boolean> busyListener) {
+        this.busyListener = busyListener;
+    }
+
+    /**
+     * Run a query in the background and publish its result on the EDT.
+     * Errors are printed to the console.
+     */
+    public <T> CompletableFuture<Void> load(String key, Query<T> query, Consumer<T> publish) {
+        return load(key, query, publish, Throwable::printStackTrace);
+    }
+
+    /**
+     * Run a query in the background and publish its result on the EDT
+     *
+     * @param key     Identifies the load; a newer load with the same key cancels this one
+     * @param query   The database work, run on a worker thread
+     * @param publish Receives the result on the EDT
+     * @param onError Receives any SQLException on the EDT
+     * @return A future that completes once the result has been published (or dropped)
+     */
+    public <T> CompletableFuture<Void> load(String key, Query<T> query, Consumer<T> publish,
+            Consumer<SQLException> onError) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (disposed) {
+            done.cancel(false);
+            return done;
+        }
+
+        long generation = generations.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        AtomicBoolean finished = new AtomicBoolean(false);
+        Future<?>[] self = new Future<?>[1];
+        Runnable finish = () -> {
+            if (finished.compareAndSet(false, true)) {
+                if (self[0] != null) {
+                    inFlight.remove(key, self[0]);
+                }
+                if (pending.decrementAndGet() == 0) {
+                    notifyBusy(false);
+                }
+                done.complete(null);
+            }
+        };
+
+        if (pending.getAndIncrement() == 0) {
+            notifyBusy(true);
+        }
+
+        FutureTask<Void> task = new FutureTask<Void>(() -> {
+            if (isStale(key, generation)) {
+                finish.run();
+                return null;
+            }
+
+            try {
+                T result;
+                try {
+                    result = query.run(DatabaseConnection.getConnection());
+                } finally {
+                    DatabaseConnection.releaseConnection();
+                }
+                SwingUtilities.invokeLater(() -> {
+                    try {
+                        if (!isStale(key, generation)) {
+                            publish.accept(result);
+                        }
+                    } finally {
+                        finish.run();
+                    }
+                });
+            } catch (SQLException e) {
+                SwingUtilities.invokeLater(() -> {
+                    try {
+                        if (!isStale(key, generation) && onError != null) {
+                            onError.accept(e);
+                        }
+                    } finally {
+                        finish.run();
+                    }
+                });
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                finish.run();
+            }
+            return null;
+        }) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    finish.run();
+                }
+            }
+        };
+
+        self[0] = task;
+        Future<?> previous = inFlight.put(key, task);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        EXECUTOR.execute(task);
+        return done;
+    }
+
+    private boolean isStale(String key, long generation) {
+        AtomicLong current = generations.get(key);
+        return disposed || current == null || current.get() != generation;
+    }
+
+    private void notifyBusy(boolean busy) {
+        if (busyListener == null) {
+            return;
+        }
+        if (SwingUtilities.isEventDispatchThread()) {
+            busyListener.accept(busy);
+        } else {
+            SwingUtilities.invokeLater(() -> busyListener.accept(pending.get() > 0));
+        }
+    }
+
+    /**
+     * Whether any load is still running
+     */
+    public boolean isBusy() {
+        return pending.get() > 0;
+    }
+
+    /**
+     * Cancel every load in flight and ignore any further requests (call when the dashboard closes)
+     */
+    public void dispose() {
+        disposed = true;
+        for (Future<?> future : inFlight.values()) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+    }
+
+    /**
+     * Publisher that replaces the contents of a table model with the given rows
+     */
+    public static Consumer<List<Object[]>> rowsInto(DefaultTableModel model) {
+        return rows -> {
+            model.setRowCount(0);
+            for (Object[] row : rows) {
+                model.addRow(row);
+            }
+        };
+    }
+}
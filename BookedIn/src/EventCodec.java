@@ -0,0 +1,106 @@
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.RecordComponent;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * EventCodec - Turns LibraryEvent records into text and back, for the event outbox and journal.
+ *
+ * An event is written as its record fields, "name=value&...", with URL-encoded values.
+ * The EventType name is stored alongside and picks the record class when reading.
+ */
+public class EventCodec {
+
+    private EventCodec() {
+    }
+
+    /**
+     * Encode an event's record fields as "name=value&..." (a null field is left out)
+     */
+    public static String encode(LibraryEvent event) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            for (RecordComponent component : event.getClass().getRecordComponents()) {
+                Object value = component.getAccessor().invoke(event);
+                if (value == null) {
+                    continue;
+                }
+                if (sb.length() > 0) {
+                    sb.append('&');
+                }
+                sb.append(component.getName()).append('=').append(urlEncode(String.valueOf(value)));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot encode " + event, e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Rebuild an event from its type name and encoded fields, or null if it cannot be read
+     * (for example an event type added by a newer version)
+     */
+    public static LibraryEvent decode(String typeName, String text) {
+        try {
+            Class<? extends LibraryEvent> eventClass = EventType.valueOf(typeName).getEventClass();
+
+            Map<String, String> fields = new HashMap<>();
+            for (String field : text == null ? new String[0] : text.split("&")) {
+                int eq = field.indexOf('=');
+                if (eq > 0) {
+                    fields.put(field.substring(0, eq), urlDecode(field.substring(eq + 1)));
+                }
+            }
+
+            RecordComponent[] components = eventClass.getRecordComponents();
+            Class<?>[] types = new Class<?>[components.length];
+            Object[] values = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                types[i] = components[i].getType();
+                values[i] = parse(types[i], fields.get(components[i].getName()));
+            }
+            return eventClass.getDeclaredConstructor(types).newInstance(values);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Unreadable event " + typeName + ": " + text);
+            return null;
+        }
+    }
+
+    private static Object parse(Class<?> type, String value) {
+        if (type == int.class) {
+            return value == null ? 0 : Integer.parseInt(value);
+        }
+        if (type == long.class) {
+            return value == null ? 0L : Long.parseLong(value);
+        }
+        if (type == double.class) {
+            return value == null ? 0.0 : Double.parseDouble(value);
+        }
+        if (type == boolean.class) {
+            return Boolean.parseBoolean(value);
+        }
+        if (type == LocalDate.class) {
+            return value == null ? null : LocalDate.parse(value);
+        }
+        return value;
+    }
+
+    private static String urlEncode(String s) {
+        try {
+            return URLEncoder.encode(s, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String urlDecode(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * EventJournal - An append-only journal of every library event seen by this workstation.
+ *
+ * Events are appended to fixed-size segment files that are memory-mapped, so an append is
+ * a copy into memory; a background thread forces dirty segments to disk every
+ * FLUSH_INTERVAL_MS. Each record is [length][crc][timestamp][type + fields], and its offset
+ * (segment base + position) identifies it for replay. A record torn by a crash fails its
+ * crc and ends the segment when it is reopened.
+ *
+ * TrendingBooks replays it to rebuild its scores. The journal doubles as an audit
+ * trail, so segments are never deleted.
+ */
+public class EventJournal {
+
+    // Size of each segment file; a full segment is closed and a new one started
+    private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    // How often appended records are forced to disk
+    private static final long FLUSH_INTERVAL_MS = 200;
+
+    // length, crc, timestamp
+    private static final int HEADER_SIZE = 4 + 4 + 8;
+
+    private final File directory;
+    private final FileLock lock;
+
+    // Base offset of every segment, oldest first
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+
+    // The segment being appended to (guarded by "this")
+    private long activeBase;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private boolean dirty = false;
+
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Open (or create) the journal in the given directory
+     */
+    public EventJournal(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create journal directory " + directory);
+        }
+
+        // Only one BookedIn instance may append to a journal
+        FileChannel lockChannel = new RandomAccessFile(new File(directory, "journal.lock"), "rw").getChannel();
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null; // Already open in this process
+        }
+        lock = acquired;
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Journal " + directory + " is in use by another instance");
+        }
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".log"));
+        for (File file : files != null ? files : new File[0]) {
+            try {
+                segments.put(Long.parseLong(file.getName().replace(".log", "")), file);
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring unknown journal file " + file);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            openSegment(segments.lastKey());
+            active.position(scan(active, activeBase, 0, null));
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "BookedIn-journal-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "BookedIn-journal-close"));
+    }
+
+    /**
+     * The journal in the user's home directory
+     */
+    public static EventJournal openDefault() throws IOException {
+        return new EventJournal(new File(System.getProperty("user.home"), ".bookedin" + File.separator + "journal"));
+    }
+
+    /**
+     * Append an event
+     *
+     * @return The offset of the new record
+     */
+    public synchronized long append(LibraryEvent event) throws IOException {
+        byte[] body = (event.type().name() + "\n" + EventCodec.encode(event)).getBytes(StandardCharsets.UTF_8);
+        if (HEADER_SIZE + body.length > SEGMENT_SIZE) {
+            throw new IOException("Event too large for the journal: " + event);
+        }
+        if (active.remaining() < HEADER_SIZE + body.length) {
+            // The rest of the segment stays zero, which ends it for readers
+            active.force();
+            activeChannel.close();
+            openSegment(activeBase + SEGMENT_SIZE);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        int position = active.position();
+
+        // Write the length last so a reader never sees a half-written record as complete
+        active.putInt(position + 4, (int) crc.getValue());
+        active.putLong(position + 8, System.currentTimeMillis());
+        active.put(position + HEADER_SIZE, body);
+        active.putInt(position, body.length);
+        active.position(position + HEADER_SIZE + body.length);
+        dirty = true;
+        return activeBase + position;
+    }
+
+    /**
+     * The offset the next record will be written at
+     */
+    public synchronized long getEndOffset() {
+        return activeBase + active.position();
+    }
+
+    /**
+     * Read every record from the given offset on, oldest first
+     *
+     * @param fromOffset Offset of the first record to read (0 for the whole journal)
+     * @param consumer   Receives each record
+     * @return The offset after the last record read, to continue from later
+     */
+    public long replay(long fromOffset, Consumer<Entry> consumer) throws IOException {
+        long end = fromOffset;
+        for (long base : segmentsFrom(fromOffset)) {
+            int start = (int) Math.max(0, fromOffset - base);
+            end = base + readSegment(base, start, consumer);
+        }
+        return end;
+    }
+
+    /**
+     * Force every appended record to disk
+     */
+    public void flush() {
+        MappedByteBuffer segment;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            segment = active;
+            dirty = false;
+        }
+        try {
+            // Outside the lock so appends are not held up by the disk
+            segment.force();
+        } catch (RuntimeException e) {
+            System.err.println("Error flushing event journal: " + e.getMessage());
+        }
+    }
+
+    private synchronized List<Long> segmentsFrom(long fromOffset) {
+        Long first = segments.floorKey(fromOffset);
+        return new ArrayList<>(segments.tailMap(first != null ? first : 0L, true).keySet());
+    }
+
+    private int readSegment(long base, int start, Consumer<Entry> consumer) throws IOException {
+        ByteBuffer buffer = null;
+        File file;
+        synchronized (this) {
+            if (base == activeBase) {
+                // Read the active segment up to what has been written so far; appends only
+                // write past the limit, so the copy can be scanned without the lock
+                buffer = active.duplicate();
+                buffer.limit(active.position());
+            }
+            file = segments.get(base);
+        }
+
+        if (buffer == null) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            }
+        }
+        return scan(buffer, base, start, consumer);
+    }
+
+    /**
+     * Walk the records of a segment from a position, returning the position after the last
+     * valid record. Only reads the buffer, so it is safe on a duplicate.
+     */
+    private static int scan(ByteBuffer buffer, long base, int position, Consumer<Entry> consumer) {
+        int limit = buffer.limit();
+        while (position + HEADER_SIZE <= limit) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > limit) {
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.get(position + HEADER_SIZE, body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                System.err.println("Event journal ends with a damaged record at " + position);
+                break;
+            }
+
+            if (consumer != null) {
+                // Only the type is read here; the fields are decoded when the event is asked for
+                String text = new String(body, StandardCharsets.UTF_8);
+                int newline = text.indexOf('\n');
+                EventType type = typeOf(text.substring(0, newline));
+                if (type != null) {
+                    consumer.accept(new Entry(base + position, buffer.getLong(position + 8), type,
+                            text.substring(newline + 1)));
+                }
+            }
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static EventType typeOf(String name) {
+        try {
+            return EventType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null; // Written by a newer version
+        }
+    }
+
+    private void openSegment(long base) throws IOException {
+        File file = new File(directory, String.format("%020d.log", base));
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        if (raf.length() < SEGMENT_SIZE) {
+            raf.setLength(SEGMENT_SIZE);
+        }
+        activeChannel = raf.getChannel();
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+        activeBase = base;
+        segments.put(base, file);
+    }
+
+    /**
+     * One journal record
+     */
+    public static class Entry {
+        private final long offset;
+        private final long timestamp;
+        private final EventType type;
+        private final String fields;
+        private LibraryEvent event;
+
+        Entry(long offset, long timestamp, EventType type, String fields) {
+            this.offset = offset;
+            this.timestamp = timestamp;
+            this.type = type;
+            this.fields = fields;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * When the event was appended (epoch milliseconds)
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public EventType getType() {
+            return type;
+        }
+
+        /**
+         * The event, or null if its fields cannot be read
+         */
+        public LibraryEvent getEvent() {
+            if (event == null) {
+                event = EventCodec.decode(type.name(), fields);
+            }
+            return event;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.function.Consumer;
+
+/**
+ * EventTransport - Carries database events between BookedIn instances.
+ *
+ * DatabaseEventManager hands every fired event to its transport after delivering it
+ * locally, and passes events the transport receives from other instances to its own
+ * listeners. A transport must not hand an instance's own events back to it.
+ */
+public interface EventTransport {
+
+    /**
+     * Start receiving events from other instances
+     *
+     * @param receiver Called with each remote event
+     */
+    void start(Consumer<LibraryEvent> receiver);
+
+    /**
+     * Send an event to the other instances. Must not block the caller.
+     */
+    void publish(LibraryEvent event);
+
+    /**
+     * Stop sending and receiving
+     */
+    void stop();
+}
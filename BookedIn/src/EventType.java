@@ -0,0 +1,25 @@
+/**
+ * EventType - The kinds of library events, each with the record that describes it
+ */
+public enum EventType {
+    BOOK_CHECKOUT(CheckoutEvent.class),
+    BOOK_RETURN(ReturnEvent.class),
+    BOOK_RENEWAL(RenewalEvent.class),
+    MEMBER_ADDED(MemberAddedEvent.class),
+    BOOK_ADDED(BookAddedEvent.class),
+    BOOK_VIEWED(BookViewedEvent.class),
+    DATA_CHANGED(DataChangedEvent.class); // Generic event for any other data change
+
+    private final Class<? extends LibraryEvent> eventClass;
+
+    EventType(Class<? extends LibraryEvent> eventClass) {
+        this.eventClass = eventClass;
+    }
+
+    /**
+     * The record class for events of this type
+     */
+    public Class<? extends LibraryEvent> getEventClass() {
+        return eventClass;
+    }
+}
@@ -7,6 +7,8 @@ import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import javax.swing.border.EmptyBorder;
 import javax.swing.event.ListSelectionEvent;
@@ -16,11 +18,26 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 
 	private Timer refreshTimer;
 
-	// Database connection constants
-	private static final String DB_URL = "jdbc:mysql://localhost:3306/BookedIN";
-	private static final String DB_USER = "root";
-	private static final String DB_PASSWORD = "";
-	
+	// Events arriving within this window are handled together
+	private static final long EVENT_DEBOUNCE_MS = 1000;
+
+	// Returns listed in one notification before "and N more"
+	private static final int MAX_NOTIFICATION_LINES = 5;
+
+	// Columns of the books and members tables (a book row is a title, with its copy counts)
+	private static final String BOOK_COLUMNS = "t.isbn, t.title, t.author, t.genre, t.year, t.copies, "
+			+ "t.available_copies AS available";
+	private static final String MEMBER_COLUMNS = "u.username, u.full_name, u.email, '-' AS phone, u.registration_date, "
+			+ "(SELECT COUNT(*) FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL) AS borrowed, "
+			+ "CASE WHEN EXISTS (SELECT 1 FROM borrowed_books bb WHERE bb.username = u.username "
+			+ "AND bb.return_date IS NULL AND bb.due_date < CURRENT_DATE()) THEN 'Overdue Books' ELSE 'Active' END AS status";
+
+	// Most titles a catalog search shows (the best matches)
+	private static final int MAX_SEARCH_TITLES = 5000;
+
+	// Rows in the recent activity feed
+	private static final int RECENT_ACTIVITY_ROWS = 10;
+
 	private DefaultTableModel activitiesTableModel;
 
 	private String librarianUsername;
@@ -34,11 +51,27 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 
 	// Tables
 	private JTable booksTable, membersTable, borrowedBooksTable;
-	private DefaultTableModel booksTableModel, membersTableModel, borrowedBooksTableModel;
+	private PagedTableModel booksTableModel, membersTableModel, borrowedBooksTableModel;
 
 	// Search components
 	private JTextField bookSearchField, memberSearchField;
 	private JComboBox<String> bookCategoryFilter;
+	private boolean updatingGenres = false;
+
+	// Change tracking for incremental refreshes, and the filter currently applied to each table
+	private final ChangeTracker changeTracker = new ChangeTracker();
+	private String bookSearchText = "", bookCategory = "All Genres";
+	private String memberSearchText = "";
+	private String borrowedSearchText = "", borrowedStatusFilter = "All Loans";
+
+	// Background loading
+	private final DashboardStartup startup = new DashboardStartup("LibrarianDashboard");
+	private JLabel loadingLabel;
+	private final DatabaseWorker worker = new DatabaseWorker(busy -> {
+		if (loadingLabel != null) {
+			loadingLabel.setVisible(busy);
+		}
+	});
 
 	/**
 	 * Constructor for the LibrarianDashboard
@@ -99,21 +132,39 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 
 		add(mainPanel);
 
-		// Load initial data
-		loadDashboardData();
-		loadBooksData();
-		loadMembersData();
-		loadBorrowedBooksData();
+		// Load initial data in parallel
+		startup.track(loadDashboardData());
+		startup.track(loadRecentActivities(activitiesTableModel));
+		startup.track(loadBooksData());
+		startup.track(loadMembersData());
+		startup.track(loadBorrowedBooksData());
+		startup.track(loadBookGenres());
+		startup.start();
+
+		// Build the catalog search index in the background so the first search is quick
+		worker.load("catalogIndex", conn -> {
+			CatalogIndex.getInstance().refresh(conn);
+			return null;
+		}, ignored -> {
+		});
 
-		// Register for database events
+		// Register for database events (weakly, so a disposed dashboard is dropped); changes made
+		// on other workstations arrive through the event manager's transport
+		DatabaseSetup.initEventManager();
+		LibraryStats.getInstance().start();
+		ViewRollup.getInstance().start();
+		CopyBarcodes.getInstance().start();
 		DatabaseEventManager eventManager = DatabaseEventManager.getInstance();
-		eventManager.addListener(DatabaseEventManager.EVENT_BOOK_CHECKOUT, this);
-		eventManager.addListener(DatabaseEventManager.EVENT_BOOK_RETURN, this);
-		eventManager.addListener(DatabaseEventManager.EVENT_BOOK_RENEWAL, this);
-		eventManager.addListener(DatabaseEventManager.EVENT_DATA_CHANGED, this);
+		for (EventType eventType : EventType.values()) {
+			eventManager.addWeakListener(eventType, this);
+		}
 
-		// Set up a timer for periodic refresh (every 30 seconds)
-		refreshTimer = new Timer(30000, e -> refreshData());
+		// Changes arrive as events, so the timer only watches for the date to roll over
+		refreshTimer = new Timer(60000, e -> {
+			if (changeTracker.isOutdated()) {
+				reloadAllData();
+			}
+		});
 		refreshTimer.start();
 
 		// Add window listener to close connection and unregister events
@@ -124,126 +175,215 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 				if (refreshTimer != null && refreshTimer.isRunning()) {
 					refreshTimer.stop();
 				}
+				// Cancel any loads still in flight
+				worker.dispose();
 				// Unregister from events
-				DatabaseEventManager eventManager = DatabaseEventManager.getInstance();
-				eventManager.removeListener(DatabaseEventManager.EVENT_BOOK_CHECKOUT, LibrarianDashboard.this);
-				eventManager.removeListener(DatabaseEventManager.EVENT_BOOK_RETURN, LibrarianDashboard.this);
-				eventManager.removeListener(DatabaseEventManager.EVENT_BOOK_RENEWAL, LibrarianDashboard.this);
-				eventManager.removeListener(DatabaseEventManager.EVENT_DATA_CHANGED, LibrarianDashboard.this);
+				DatabaseEventManager.getInstance().removeAllListeners(LibrarianDashboard.this);
 			}
 		});
 	}
 	
+	/**
+	 * Hold the first show until the initial loads have published
+	 */
+	@Override
+	public void setVisible(boolean visible) {
+		if (visible && !startup.isReady()) {
+			startup.showWhenReady(() -> super.setVisible(true));
+			return;
+		}
+		if (!visible) {
+			startup.cancelShow();
+		}
+		super.setVisible(visible);
+	}
+
+	@Override
+	public void paint(Graphics g) {
+		super.paint(g);
+		startup.framePainted();
+	}
+
 	/**
 	 * Implement the event handler method for database events
 	 */
 	@Override
 	public void onDatabaseEvent(DatabaseEventManager.DatabaseEvent event) {
-	    String eventType = event.getEventType();
+	    EventType eventType = event.getEventType();
+	    
+	    // Something was just written, make the next version probe go to the database
+	    DataVersion.invalidate();
+	    ActivityFeed.getInstance().invalidate();
 	    
 	    // Use SwingUtilities.invokeLater to ensure UI updates happen on the EDT
 	    SwingUtilities.invokeLater(() -> {
-	        System.out.println("LibrarianDashboard received event: " + eventType);
+	        System.out.println("LibrarianDashboard received event: " + eventType + " (x" + event.getCount() + ")");
 	        
-	        if (eventType.equals(DatabaseEventManager.EVENT_BOOK_RETURN)) {
-	            // A book was returned, refresh relevant data
+	        switch (eventType) {
+	        case BOOK_RETURN:
+	            // One or more books were returned, refresh relevant data
 	            refreshCirculationData();
 	            
-	            // Show a notification if desired
-	            Map<String, Object> data = (Map<String, Object>) event.getData();
-	            if (data != null) {
-	                String username = (String) data.get("username");
-	                int bookId = (int) data.get("bookId");
-	                showBookReturnNotification(username, bookId);
+	            // Show one notification for all the returns in this burst
+	            showBookReturnNotification(event.getPayloads(ReturnEvent.class));
+	            break;
+	        case BOOK_VIEWED:
+	            // Views only show up in the activity feed
+	            if (activitiesTableModel != null) {
+	                loadRecentActivities(activitiesTableModel);
 	            }
-	        }
-	        else if (eventType.equals(DatabaseEventManager.EVENT_BOOK_CHECKOUT)) {
-	            // A book was checked out, refresh relevant data
+	            break;
+	        case BOOK_CHECKOUT:
+	        case BOOK_RENEWAL:
+	            // A book was checked out or a loan renewed, refresh relevant data
 	            refreshCirculationData();
-	        }
-	        else if (eventType.equals(DatabaseEventManager.EVENT_BOOK_RENEWAL)) {
-	            // A book loan was renewed, refresh relevant data
-	            refreshCirculationData();
-	        }
-	        else if (eventType.equals(DatabaseEventManager.EVENT_DATA_CHANGED)) {
-	            // Generic data change event, refresh all data
+	            break;
+	        default:
+	            // Catalog or member change, refresh all data
 	            refreshData();
+	            break;
 	        }
 	    });
 	}
 
 	/**
-	 * Show a notification about a book return
+	 * Show a notification about one or more book returns
 	 */
-	private void showBookReturnNotification(String username, int bookId) {
-	    try {
-	        // Get book title
-	        String bookTitle = "";
-	        String query = "SELECT title FROM books WHERE id = ?";
-	        PreparedStatement pstmt = connection.prepareStatement(query);
-	        pstmt.setInt(1, bookId);
-	        ResultSet rs = pstmt.executeQuery();
-	        if (rs.next()) {
-	            bookTitle = rs.getString("title");
-	        }
-	        rs.close();
-	        pstmt.close();
-	        
-	        // Create and show the notification
-	        JDialog notification = new JDialog(this, "Book Return Notification", false);
-	        notification.setSize(300, 150);
-	        notification.setLocationRelativeTo(this);
-	        
-	        JPanel panel = new JPanel(new BorderLayout());
-	        panel.setBackground(new Color(40, 40, 40));
-	        panel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
-	        
-	        JLabel messageLabel = new JLabel("<html>Book returned by " + username + ":<br>" + bookTitle + "</html>");
-	        messageLabel.setForeground(Color.WHITE);
-	        
-	        JButton okButton = new JButton("OK");
-	        okButton.setBackground(new Color(60, 60, 60));
-	        okButton.setForeground(Color.WHITE);
-	        okButton.addActionListener(e -> notification.dispose());
-	        
-	        panel.add(messageLabel, BorderLayout.CENTER);
-	        
-	        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-	        buttonPanel.setBackground(new Color(40, 40, 40));
-	        buttonPanel.add(okButton);
-	        
-	        panel.add(buttonPanel, BorderLayout.SOUTH);
-	        
-	        notification.add(panel);
-	        notification.setVisible(true);
-	        
-	        // Auto-close after 5 seconds
-	        Timer closeTimer = new Timer(5000, e -> notification.dispose());
-	        closeTimer.setRepeats(false);
-	        closeTimer.start();
-	        
-	    } catch (SQLException e) {
-	        e.printStackTrace();
+	private void showBookReturnNotification(List<ReturnEvent> returns) {
+	    if (returns.isEmpty()) {
+	        return;
+	    }
+	    
+	    StringBuilder message = new StringBuilder("<html>");
+	    if (returns.size() == 1) {
+	        message.append("Book returned by ").append(returns.get(0).username()).append(":");
+	    } else {
+	        message.append(returns.size()).append(" books returned:");
+	    }
+	    for (int i = 0; i < returns.size() && i < MAX_NOTIFICATION_LINES; i++) {
+	        ReturnEvent returned = returns.get(i);
+	        String bookTitle = returned.title() != null ? returned.title() : "";
+	        message.append("<br>").append(returns.size() == 1 ? bookTitle : returned.username() + ": " + bookTitle);
 	    }
+	    if (returns.size() > MAX_NOTIFICATION_LINES) {
+	        message.append("<br>and ").append(returns.size() - MAX_NOTIFICATION_LINES).append(" more");
+	    }
+	    message.append("</html>");
+	    
+	    // Create and show the notification
+	    JDialog notification = new JDialog(this, "Book Return Notification", false);
+	    notification.setSize(300, 150 + 18 * (Math.min(returns.size(), MAX_NOTIFICATION_LINES + 1) - 1));
+	    notification.setLocationRelativeTo(this);
+	    
+	    JPanel panel = new JPanel(new BorderLayout());
+	    panel.setBackground(new Color(40, 40, 40));
+	    panel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+	    
+	    JLabel messageLabel = new JLabel(message.toString());
+	    messageLabel.setForeground(Color.WHITE);
+	    
+	    JButton okButton = new JButton("OK");
+	    okButton.setBackground(new Color(60, 60, 60));
+	    okButton.setForeground(Color.WHITE);
+	    okButton.addActionListener(e -> notification.dispose());
+	    
+	    panel.add(messageLabel, BorderLayout.CENTER);
+	    
+	    JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+	    buttonPanel.setBackground(new Color(40, 40, 40));
+	    buttonPanel.add(okButton);
+	    
+	    panel.add(buttonPanel, BorderLayout.SOUTH);
+	    
+	    notification.add(panel);
+	    notification.setVisible(true);
+	    
+	    // Auto-close after 5 seconds
+	    Timer closeTimer = new Timer(5000, e -> notification.dispose());
+	    closeTimer.setRepeats(false);
+	    closeTimer.start();
 	}
 
 	/**
 	 * Refresh circulation data (borrowed books)
 	 */
 	private void refreshCirculationData() {
-	    loadBorrowedBooksData();
-	    loadDashboardData(); // Also refresh dashboard stats
+	    // Only the changed loans (and the stats) are re-read
+	    refreshData();
 	}
 
 	/**
-	 * Refresh all dashboard data
+	 * Collect bursts of events (e.g. a class returning books at once) into one refresh
+	 */
+	@Override
+	public long getDebounceMillis(EventType eventType) {
+	    return EVENT_DEBOUNCE_MS;
+	}
+
+	/**
+	 * Refresh the rows that changed since the last refresh
 	 */
 	private void refreshData() {
+	    long from = changeTracker.getWatermark();
+	    if (from == ChangeTracker.NONE) {
+	        return; // A full load is still running
+	    }
+
+	    if (changeTracker.isOutdated()) {
+	        // Loans may have become overdue overnight, reload everything
+	        reloadAllData();
+	        return;
+	    }
+
+	    worker.load("refresh", conn -> {
+	        // Probe the data version first and skip the refresh if nothing was written
+	        if (DataVersion.current(conn) <= from) {
+	            return null;
+	        }
+
+	        return changeTracker.fetchSince(conn, from);
+	    }, changes -> {
+	        if (changes == null) {
+	            return;
+	        }
+	        if (changes.isOverflow()) {
+	            reloadAllData();
+	            return;
+	        }
+	        if (changes.isEmpty()) {
+	            return;
+	        }
+
+	        // Reload the tables whose rows changed; only the pages in view are read again
+	        if (changes.hasChanges("books")) {
+	            booksTableModel.reload();
+	        }
+	        if (changes.hasChanges("users")) {
+	            membersTableModel.reload();
+	        }
+	        if (changes.hasChanges("borrowed_books")) {
+	            borrowedBooksTableModel.reload();
+	        }
+	        changeTracker.advance(from, changes.getWatermark());
+
+	        // Stats and recent activity are small, just reload them
+	        loadDashboardData();
+	        if (activitiesTableModel != null) {
+	            loadRecentActivities(activitiesTableModel);
+	        }
+	    });
+	}
+
+	/**
+	 * Reload every table from scratch, keeping the current filters
+	 */
+	private void reloadAllData() {
+	    changeTracker.reset();
 	    loadDashboardData();
-	    loadBooksData(); 
-	    loadMembersData();
-	    loadBorrowedBooksData();
-	    
+	    filterBooksTable(bookSearchText, bookCategory);
+	    filterMembersTable(memberSearchText);
+	    filterBorrowedBooksTable(borrowedSearchText, borrowedStatusFilter);
+
 	    // Use the directly stored reference
 	    if (activitiesTableModel != null) {
 	        loadRecentActivities(activitiesTableModel);
@@ -254,9 +394,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	/**
 	 * Connect to the database
 	 */
-	private void connectToDatabase() throws SQLException, ClassNotFoundException {
-		Class.forName("com.mysql.cj.jdbc.Driver");
-		connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+	private void connectToDatabase() throws SQLException {
+		connection = DatabaseConnection.getConnection();
 		System.out.println("Connected to database");
 	}
 
@@ -285,6 +424,12 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 		JLabel librarianLabel = new JLabel("Librarian: " + librarianName);
 		librarianLabel.setForeground(Color.LIGHT_GRAY);
 
+		// Shown while dashboard data is loading in the background
+		loadingLabel = new JLabel("Loading...");
+		loadingLabel.setForeground(Color.GRAY);
+		loadingLabel.setFont(new Font("Arial", Font.ITALIC, 12));
+		loadingLabel.setVisible(false);
+
 		JButton profileButton = new JButton("Profile");
 		profileButton.setBackground(new Color(60, 60, 60));
 		profileButton.setForeground(Color.black);
@@ -305,7 +450,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 		        "Logout Confirmation", JOptionPane.YES_NO_OPTION);
 
 		    if (option == JOptionPane.YES_OPTION) {
-		        // Close the database connection before disposing the dashboard
+		        // Stop background loads and close the database connection before disposing the dashboard
+		        worker.dispose();
 		        DatabaseConnection.closeConnection();
 		        System.out.println("Connection closed during logout");
 		        
@@ -330,6 +476,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 
 		rightPanel.add(librarianLabel);
 		rightPanel.add(Box.createRigidArea(new Dimension(15, 0)));
+		rightPanel.add(loadingLabel);
+		rightPanel.add(Box.createRigidArea(new Dimension(10, 0)));
 		rightPanel.add(profileButton);
 		rightPanel.add(Box.createRigidArea(new Dimension(10, 0)));
 		rightPanel.add(logoutButton);
@@ -594,7 +742,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 		@Override
 		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
 				int row, int column) {
-			setText(value.toString());
+			setText(value != null ? value.toString() : "");
 			return this;
 		}
 	}
@@ -726,10 +874,6 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    activitiesPanel.add(scrollPane, BorderLayout.CENTER);
 	    panel.add(activitiesPanel);
 	    
-	    // Load initial data from database
-	    loadDashboardData();
-	    loadRecentActivities(activitiesModel);
-	    
 	    return panel;
 	}
 
@@ -750,59 +894,14 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	/**
 	 * Load dashboard data from database
 	 */
-	private void loadDashboardData() {
-	    try {
-	        // Get total books count
-	        String booksSql = "SELECT COUNT(*) FROM books";
-	        PreparedStatement booksStmt = connection.prepareStatement(booksSql);
-	        ResultSet booksRs = booksStmt.executeQuery();
-
-	        if (booksRs.next()) {
-	            totalBooksLabel.setText(String.valueOf(booksRs.getInt(1)));
-	        }
-
-	        booksRs.close();
-	        booksStmt.close();
-
-	        // Get checked out books count
-	        String borrowedSql = "SELECT COUNT(*) FROM borrowed_books WHERE return_date IS NULL";
-	        PreparedStatement borrowedStmt = connection.prepareStatement(borrowedSql);
-	        ResultSet borrowedRs = borrowedStmt.executeQuery();
-
-	        if (borrowedRs.next()) {
-	            borrowedBooksLabel.setText(String.valueOf(borrowedRs.getInt(1)));
-	        }
-
-	        borrowedRs.close();
-	        borrowedStmt.close();
-
-	        // Get overdue books count
-	        String overdueSql = "SELECT COUNT(*) FROM borrowed_books WHERE return_date IS NULL AND due_date < CURRENT_DATE()";
-	        PreparedStatement overdueStmt = connection.prepareStatement(overdueSql);
-	        ResultSet overdueRs = overdueStmt.executeQuery();
-
-	        if (overdueRs.next()) {
-	            overdueBooksLabel.setText(String.valueOf(overdueRs.getInt(1)));
-	        }
-
-	        overdueRs.close();
-	        overdueStmt.close();
-
-	        // Get active members count
-	        String membersSql = "SELECT COUNT(*) FROM users WHERE role = 'member'";
-	        PreparedStatement membersStmt = connection.prepareStatement(membersSql);
-	        ResultSet membersRs = membersStmt.executeQuery();
-
-	        if (membersRs.next()) {
-	            activeMembersLabel.setText(String.valueOf(membersRs.getInt(1)));
-	        }
-
-	        membersRs.close();
-	        membersStmt.close();
-
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
+	private CompletableFuture<Void> loadDashboardData() {
+	    // Every card is read from the maintained counters
+	    return worker.load("dashboard", conn -> LibraryStats.getInstance().read(conn), counts -> {
+	        totalBooksLabel.setText(String.valueOf(counts.getTotalBooks()));
+	        borrowedBooksLabel.setText(String.valueOf(counts.getOpenLoans()));
+	        overdueBooksLabel.setText(String.valueOf(counts.getOverdueLoans()));
+	        activeMembersLabel.setText(String.valueOf(counts.getMembers()));
+	    });
 	}
 
 	/**
@@ -869,6 +968,14 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    titleLabel.setFont(new Font("Arial", Font.BOLD, 20));
 	    titleLabel.setForeground(Color.WHITE);
 	    headerPanel.add(titleLabel, BorderLayout.WEST);
+
+	    // Many items at once, without a popup and a refresh for each
+	    JButton batchDeskButton = new JButton("Batch Desk...");
+	    batchDeskButton.setBackground(new Color(60, 60, 60));
+	    batchDeskButton.setForeground(Color.BLACK);
+	    batchDeskButton.setFocusPainted(false);
+	    batchDeskButton.addActionListener(e -> showBatchDeskDialog());
+	    headerPanel.add(batchDeskButton, BorderLayout.EAST);
 	    
 	    panel.add(headerPanel);
 	    
@@ -923,7 +1030,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    bookIdPanel.setBackground(new Color(40, 40, 40));
 	    bookIdPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
 	    
-	    JLabel bookIdLabel = new JLabel("Book ISBN:");
+	    JLabel bookIdLabel = new JLabel("ISBN/Barcode:");
 	    bookIdLabel.setForeground(Color.WHITE);
 	    bookIdLabel.setPreferredSize(new Dimension(100, 25));
 	    
@@ -1025,7 +1132,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    bookIsbnPanel.setBackground(new Color(40, 40, 40));
 	    bookIsbnPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
 	    
-	    JLabel bookIsbnLabel = new JLabel("Book ISBN:");
+	    JLabel bookIsbnLabel = new JLabel("ISBN/Barcode:");
 	    bookIsbnLabel.setForeground(Color.WHITE);
 	    bookIsbnLabel.setPreferredSize(new Dimension(100, 25));
 	    
@@ -1155,7 +1262,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    renewBookPanel.setBackground(new Color(40, 40, 40));
 	    renewBookPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
 	    
-	    JLabel renewBookLabel = new JLabel("Book ISBN:");
+	    JLabel renewBookLabel = new JLabel("ISBN/Barcode:");
 	    renewBookLabel.setForeground(Color.WHITE);
 	    renewBookLabel.setPreferredSize(new Dimension(100, 25));
 	    
@@ -1288,14 +1395,24 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    String[] columns = { "Loan ID", "Member ID", "Member Name", "Book ISBN", "Book Title", "Checkout Date",
 	            "Due Date", "Status", "Actions" };
 	    
-	    borrowedBooksTableModel = new DefaultTableModel(columns, 0) {
-	        @Override
-	        public boolean isCellEditable(int row, int column) {
-	            return column == 8; // Only actions column is editable
-	        }
-	    };
+	    // Loans are read a page at a time as the table scrolls; only actions column is editable
+	    borrowedBooksTableModel = new PagedTableModel(worker, "borrowed", columns, 8,
+	            "bb.id, bb.username, u.full_name, b.isbn, b.title, bb.borrow_date, bb.due_date, "
+	                    + "CASE WHEN bb.due_date < CURRENT_DATE() THEN 'Overdue' ELSE 'On Time' END AS status",
+	            "borrowed_books bb JOIN users u ON bb.username = u.username JOIN books b ON bb.book_id = b.id",
+	            "bb.id", rs -> new Object[] { rs.getInt("id"), rs.getString("username"), rs.getString("full_name"),
+	                    rs.getString("isbn"), rs.getString("title"), rs.getString("borrow_date"),
+	                    rs.getString("due_date"), rs.getString("status"), "Return/Renew" });
+	    borrowedBooksTableModel.setSortKey(0, "bb.id");
+	    // Only the loan's own indexed columns; the joined name, ISBN and title are not sortable
+	    borrowedBooksTableModel.setSortKey(1, "bb.username");
+	    borrowedBooksTableModel.setSortKey(5, "bb.borrow_date");
+	    borrowedBooksTableModel.setSortKey(6, "bb.due_date");
+	    borrowedBooksTableModel.setDefaultSort(6, true);
+	    borrowedBooksTableModel.setChangeTracker(changeTracker);
 	    
 	    borrowedBooksTable = new JTable(borrowedBooksTableModel);
+	    borrowedBooksTableModel.installSortHeader(borrowedBooksTable);
 	    borrowedBooksTable.setBackground(new Color(40, 40, 40));
 	    borrowedBooksTable.setForeground(Color.WHITE);
 	    borrowedBooksTable.setGridColor(new Color(60, 60, 60));
@@ -1329,7 +1446,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	                
 	                // Color rows based on status
 	                String status = (String) table.getValueAt(row, 7);
-	                if (status.equals("Overdue")) {
+	                if ("Overdue".equals(status)) {
 	                    c.setForeground(new Color(255, 100, 100));
 	                } else {
 	                    c.setForeground(Color.WHITE);
@@ -1485,14 +1602,19 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    // Books table with proper spacing and centered
 	    String[] columns = { "ISBN", "Title", "Author", "Genre", "Publication Year", "Copies", "Available Copies", "Actions" };
 	    
-	    booksTableModel = new DefaultTableModel(columns, 0) {
-	        @Override
-	        public boolean isCellEditable(int row, int column) {
-	            return column == 7; // Only actions column is editable
-	        }
-	    };
+	    // One row per title, read a page at a time as the table scrolls; only actions column is editable
+	    booksTableModel = new PagedTableModel(worker, "books", columns, 7, BOOK_COLUMNS, "titles t",
+	            "t.id", LibrarianDashboard::readBookRow);
+	    booksTableModel.setSortKey(0, "t.isbn");
+	    booksTableModel.setSortKey(1, "t.title");
+	    booksTableModel.setSortKey(2, "t.author");
+	    booksTableModel.setSortKey(3, "t.genre");
+	    booksTableModel.setSortKey(4, "t.year");
+	    booksTableModel.setDefaultSort(1, true);
+	    booksTableModel.setChangeTracker(changeTracker);
 	    
 	    booksTable = new JTable(booksTableModel);
+	    booksTableModel.installSortHeader(booksTable);
 	    booksTable.setBackground(new Color(40, 40, 40));
 	    booksTable.setForeground(Color.WHITE);
 	    booksTable.setGridColor(new Color(60, 60, 60));
@@ -1554,13 +1676,14 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    });
 	    
 	    bookCategoryFilter.addActionListener(e -> {
+	        if (updatingGenres) {
+	            return;
+	        }
 	        String searchText = bookSearchField.getText().trim();
 	        String category = (String) bookCategoryFilter.getSelectedItem();
 	        filterBooksTable(searchText, category);
 	    });
 	    
-	    // Load genre categories from database
-	    loadBookGenres();
 	    
 	    return panel;
 	}
@@ -1633,14 +1756,18 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    // Members table with centered positioning
 	    String[] columns = { "Member ID", "Name", "Email", "Phone", "Join Date", "Books Borrowed", "Status", "Actions" };
 	    
-	    membersTableModel = new DefaultTableModel(columns, 0) {
-	        @Override
-	        public boolean isCellEditable(int row, int column) {
-	            return column == 7; // Only actions column is editable
-	        }
-	    };
+	    // Members are read a page at a time as the table scrolls; only actions column is editable
+	    membersTableModel = new PagedTableModel(worker, "members", columns, 7, MEMBER_COLUMNS, "users u",
+	            "u.username", LibrarianDashboard::readMemberRow);
+	    membersTableModel.setSortKey(0, "u.username");
+	    membersTableModel.setSortKey(1, "u.full_name");
+	    membersTableModel.setSortKey(2, "u.email");
+	    membersTableModel.setSortKey(4, "u.registration_date");
+	    membersTableModel.setDefaultSort(1, true);
+	    membersTableModel.setChangeTracker(changeTracker);
 	    
 	    membersTable = new JTable(membersTableModel);
+	    membersTableModel.installSortHeader(membersTable);
 	    membersTable.setBackground(new Color(40, 40, 40));
 	    membersTable.setForeground(Color.WHITE);
 	    membersTable.setGridColor(new Color(60, 60, 60));
@@ -1715,42 +1842,19 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	/**
 	 * Load recent activities for the dashboard
 	 */
-	private void loadRecentActivities(DefaultTableModel model) {
-		model.setRowCount(0);
-
-		try {
-			String sql = "SELECT 'Book Borrowed' as activity, u.username, b.title, bb.borrow_date, TIME(bb.borrow_date) as time "
-					+ "FROM borrowed_books bb " + "JOIN users u ON bb.username = u.username "
-					+ "JOIN books b ON bb.book_id = b.id " + "WHERE bb.return_date IS NULL " + "UNION "
-					+ "SELECT 'Book Returned' as activity, u.username, b.title, bb.return_date, TIME(bb.return_date) as time "
-					+ "FROM borrowed_books bb " + "JOIN users u ON bb.username = u.username "
-					+ "JOIN books b ON bb.book_id = b.id " + "WHERE bb.return_date IS NOT NULL " + "UNION "
-					+ "SELECT 'Book Viewed' as activity, u.username, b.title, bv.view_date, TIME(bv.view_date) as time "
-					+ "FROM book_views bv " + "JOIN users u ON bv.username = u.username "
-					+ "JOIN books b ON bv.book_id = b.id " + "ORDER BY 4 DESC LIMIT 10";
-
-			PreparedStatement stmt = connection.prepareStatement(sql);
-			ResultSet rs = stmt.executeQuery();
-
+	private CompletableFuture<Void> loadRecentActivities(DefaultTableModel model) {
+		return worker.load("activities", conn -> {
+			// The newest activity_log entries, shared with the other open dashboards
 			SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 			SimpleDateFormat timeFormat = new SimpleDateFormat("hh:mm a");
-
-			while (rs.next()) {
-				String activity = rs.getString("activity");
-				String username = rs.getString("username");
-				String title = rs.getString("title");
-				String date = dateFormat.format(rs.getTimestamp(4));
-				String time = timeFormat.format(rs.getTimestamp(4));
-
-				model.addRow(new Object[] { activity, username, title, date, time });
+			List<Object[]> rows = new ArrayList<>();
+			for (ActivityFeed.Entry entry : ActivityFeed.getInstance().recent(conn, RECENT_ACTIVITY_ROWS)) {
+				Date when = new Date(entry.time());
+				rows.add(new Object[] { entry.activity(), entry.username() != null ? entry.username() : "-",
+						entry.title(), dateFormat.format(when), timeFormat.format(when) });
 			}
-
-			rs.close();
-			stmt.close();
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+			return rows;
+		}, DatabaseWorker.rowsInto(model));
 	}
 
 	/**
@@ -1780,373 +1884,221 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	/**
 	 * Load books data from database
 	 */
-	private void loadBooksData() {
-		booksTableModel.setRowCount(0);
-
-		try {
-			String sql = "SELECT isbn, title, author, genre, year, "
-					+ "(SELECT COUNT(*) FROM books b2 WHERE b2.isbn = b.isbn) AS copies, "
-					+ "(SELECT COUNT(*) FROM books b2 WHERE b2.isbn = b.isbn AND b2.available = true) AS available "
-					+ "FROM books b " + "GROUP BY isbn ORDER BY title";
-
-			PreparedStatement stmt = connection.prepareStatement(sql);
-			ResultSet rs = stmt.executeQuery();
-
-			while (rs.next()) {
-				String isbn = rs.getString("isbn");
-				String title = rs.getString("title");
-				String author = rs.getString("author");
-				String genre = rs.getString("genre");
-				int year = rs.getInt("year");
-				int copies = rs.getInt("copies");
-				int available = rs.getInt("available");
-
-				booksTableModel
-						.addRow(new Object[] { isbn, title, author, genre, year, copies, available, "Edit/Delete" });
-			}
-
-			rs.close();
-			stmt.close();
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+	private CompletableFuture<Void> loadBooksData() {
+		return filterBooksTable("", "All Genres");
 	}
 
 	/**
 	 * Load members data from database
 	 */
-	private void loadMembersData() {
-		membersTableModel.setRowCount(0);
-
-		try {
-			String sql = "SELECT u.username, u.full_name, u.email, " + "'-' AS phone, " + // Placeholder for phone (not
-																							// in database)
-					"u.registration_date, "
-					+ "(SELECT COUNT(*) FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL) AS borrowed, "
-					+ "CASE WHEN EXISTS (SELECT 1 FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL AND bb.due_date < CURRENT_DATE()) "
-					+ "THEN 'Overdue Books' ELSE 'Active' END AS status " + "FROM users u " + "WHERE u.role = 'member' "
-					+ "ORDER BY u.full_name";
-
-			PreparedStatement stmt = connection.prepareStatement(sql);
-			ResultSet rs = stmt.executeQuery();
-
-			while (rs.next()) {
-				String username = rs.getString("username");
-				String fullName = rs.getString("full_name");
-				String email = rs.getString("email");
-				String phone = rs.getString("phone");
-				String joinDate = rs.getString("registration_date");
-				int borrowed = rs.getInt("borrowed");
-				String status = rs.getString("status");
-
-				membersTableModel.addRow(
-						new Object[] { username, fullName, email, phone, joinDate, borrowed, status, "View/Edit" });
-			}
-
-			rs.close();
-			stmt.close();
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+	private CompletableFuture<Void> loadMembersData() {
+		return filterMembersTable("");
 	}
 
 	/**
 	 * Load borrowed books data from database
 	 */
-	private void loadBorrowedBooksData() {
-		borrowedBooksTableModel.setRowCount(0);
-
-		try {
-			String sql = "SELECT bb.id, bb.username, u.full_name, b.isbn, b.title, " + "bb.borrow_date, bb.due_date, "
-					+ "CASE WHEN bb.due_date < CURRENT_DATE() THEN 'Overdue' ELSE 'On Time' END AS status "
-					+ "FROM borrowed_books bb " + "JOIN users u ON bb.username = u.username "
-					+ "JOIN books b ON bb.book_id = b.id " + "WHERE bb.return_date IS NULL " + "ORDER BY bb.due_date";
-
-			PreparedStatement stmt = connection.prepareStatement(sql);
-			ResultSet rs = stmt.executeQuery();
-
-			while (rs.next()) {
-				int id = rs.getInt("id");
-				String username = rs.getString("username");
-				String fullName = rs.getString("full_name");
-				String isbn = rs.getString("isbn");
-				String title = rs.getString("title");
-				String borrowDate = rs.getString("borrow_date");
-				String dueDate = rs.getString("due_date");
-				String status = rs.getString("status");
-
-				borrowedBooksTableModel.addRow(new Object[] { id, username, fullName, isbn, title, borrowDate, dueDate,
-						status, "Return/Renew" });
-			}
-
-			rs.close();
-			stmt.close();
-
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+	private CompletableFuture<Void> loadBorrowedBooksData() {
+		return filterBorrowedBooksTable("", "All Loans");
 	}
 
 	/**
 	 * Load book genres from database for the filter dropdown
 	 */
-	private void loadBookGenres() {
-		try {
-			String sql = "SELECT DISTINCT genre FROM books ORDER BY genre";
-			PreparedStatement stmt = connection.prepareStatement(sql);
+	private CompletableFuture<Void> loadBookGenres() {
+		return worker.load("genres", conn -> {
+			String sql = "SELECT DISTINCT genre FROM titles ORDER BY genre";
+			PreparedStatement stmt = conn.prepareStatement(sql);
 			ResultSet rs = stmt.executeQuery();
 
-			// Clear existing items but keep "All Genres"
-			bookCategoryFilter.removeAllItems();
-			bookCategoryFilter.addItem("All Genres");
-
+			List<String> genres = new ArrayList<>();
 			while (rs.next()) {
 				String genre = rs.getString("genre");
 				if (genre != null && !genre.isEmpty()) {
-					bookCategoryFilter.addItem(genre);
+					genres.add(genre);
 				}
 			}
 
 			rs.close();
 			stmt.close();
+			return genres;
+		}, genres -> {
+			Object selected = bookCategoryFilter.getSelectedItem();
 
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
-	}
-
-	/**
-	 * Filter books table based on search text and category
-	 */
-	private void filterBooksTable(String searchText, String category) {
-		booksTableModel.setRowCount(0);
-
-		try {
-			StringBuilder sqlBuilder = new StringBuilder();
-			sqlBuilder.append("SELECT isbn, title, author, genre, year, ")
-					.append("(SELECT COUNT(*) FROM books b2 WHERE b2.isbn = b.isbn) AS copies, ")
-					.append("(SELECT COUNT(*) FROM books b2 WHERE b2.isbn = b.isbn AND b2.available = true) AS available ")
-					.append("FROM books b WHERE 1=1 ");
-
-			if (!searchText.isEmpty()) {
-				sqlBuilder.append("AND (LOWER(title) LIKE ? OR LOWER(author) LIKE ? OR LOWER(isbn) LIKE ?) ");
-			}
-
-			if (category != null && !category.equals("All Genres")) {
-				sqlBuilder.append("AND genre = ? ");
-			}
-
-			sqlBuilder.append("GROUP BY isbn ORDER BY title");
-
-			PreparedStatement stmt = connection.prepareStatement(sqlBuilder.toString());
-
-			int paramIndex = 1;
-			if (!searchText.isEmpty()) {
-				String searchPattern = "%" + searchText.toLowerCase() + "%";
-				stmt.setString(paramIndex++, searchPattern);
-				stmt.setString(paramIndex++, searchPattern);
-				stmt.setString(paramIndex++, searchPattern);
-			}
+			// Clear existing items but keep "All Genres", without re-filtering for each one
+			updatingGenres = true;
+			bookCategoryFilter.removeAllItems();
+			bookCategoryFilter.addItem("All Genres");
 
-			if (category != null && !category.equals("All Genres")) {
-				stmt.setString(paramIndex, category);
+			for (String genre : genres) {
+				bookCategoryFilter.addItem(genre);
 			}
 
-			ResultSet rs = stmt.executeQuery();
-
-			while (rs.next()) {
-				String isbn = rs.getString("isbn");
-				String title = rs.getString("title");
-				String author = rs.getString("author");
-				String genre = rs.getString("genre");
-				int year = rs.getInt("year");
-				int copies = rs.getInt("copies");
-				int available = rs.getInt("available");
+			updatingGenres = false;
 
-				booksTableModel
-						.addRow(new Object[] { isbn, title, author, genre, year, copies, available, "Edit/Delete" });
+			// The list is back on "All Genres", only re-run the search if the table was filtered
+			String searchText = bookSearchField.getText().trim();
+			if (!searchText.isEmpty() || (selected != null && !selected.equals("All Genres"))) {
+				filterBooksTable(searchText, "All Genres");
 			}
+		});
+	}
 
-			rs.close();
-			stmt.close();
+	/**
+	 * Filter books table based on search text and category
+	 */
+	private CompletableFuture<Void> filterBooksTable(String searchText, String category) {
+		// Remember the filter so that refreshes only patch in matching rows
+		bookSearchText = searchText;
+		bookCategory = category;
 
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+		return booksTableModel.setFilter((conn, params) -> bookConditions(conn, searchText, category, params));
 	}
 
 	/**
 	 * Filter members table based on search text
 	 */
-	private void filterMembersTable(String searchText) {
-		membersTableModel.setRowCount(0);
-
-		try {
-			StringBuilder sqlBuilder = new StringBuilder();
-			sqlBuilder.append("SELECT u.username, u.full_name, u.email, ").append("'-' AS phone, ")
-					.append("u.registration_date, ")
-					.append("(SELECT COUNT(*) FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL) AS borrowed, ")
-					.append("CASE WHEN EXISTS (SELECT 1 FROM borrowed_books bb WHERE bb.username = u.username AND bb.return_date IS NULL AND bb.due_date < CURRENT_DATE()) ")
-					.append("THEN 'Overdue Books' ELSE 'Active' END AS status ")
-					.append("FROM users u WHERE u.role = 'member' ");
-
-			if (!searchText.isEmpty()) {
-				sqlBuilder.append(
-						"AND (LOWER(u.username) LIKE ? OR LOWER(u.full_name) LIKE ? OR LOWER(u.email) LIKE ?) ");
-			}
-
-			sqlBuilder.append("ORDER BY u.full_name");
-
-			PreparedStatement stmt = connection.prepareStatement(sqlBuilder.toString());
-
-			if (!searchText.isEmpty()) {
-				String searchPattern = "%" + searchText.toLowerCase() + "%";
-				stmt.setString(1, searchPattern);
-				stmt.setString(2, searchPattern);
-				stmt.setString(3, searchPattern);
-			}
-
-			ResultSet rs = stmt.executeQuery();
-
-			while (rs.next()) {
-				String username = rs.getString("username");
-				String fullName = rs.getString("full_name");
-				String email = rs.getString("email");
-				String phone = rs.getString("phone");
-				String joinDate = rs.getString("registration_date");
-				int borrowed = rs.getInt("borrowed");
-				String status = rs.getString("status");
+	private CompletableFuture<Void> filterMembersTable(String searchText) {
+		// Remember the filter so that refreshes only patch in matching rows
+		memberSearchText = searchText;
 
-				membersTableModel.addRow(
-						new Object[] { username, fullName, email, phone, joinDate, borrowed, status, "View/Edit" });
-			}
+		return membersTableModel.setFilter((conn, params) -> memberConditions(searchText, params));
+	}
 
-			rs.close();
-			stmt.close();
+	/**
+	 * Filter borrowed books table based on search text and status
+	 */
+	private CompletableFuture<Void> filterBorrowedBooksTable(String searchText, String statusFilter) {
+		// Remember the filter so that refreshes only patch in matching rows
+		borrowedSearchText = searchText;
+		borrowedStatusFilter = statusFilter;
 
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+		return borrowedBooksTableModel.setFilter((conn, params) -> loanConditions(searchText, statusFilter, params));
 	}
 
 	/**
-	 * Filter borrowed books table based on search text and status
+	 * WHERE conditions for the books matching a search and genre
 	 */
-	private void filterBorrowedBooksTable(String searchText, String statusFilter) {
-		borrowedBooksTableModel.setRowCount(0);
+	private String bookConditions(Connection conn, String searchText, String category, List<Object> params)
+			throws SQLException {
+		List<String> conditions = new ArrayList<>();
+		if (category != null && !category.equals("All Genres")) {
+			conditions.add("t.genre = ?");
+			params.add(category);
+		}
 
-		try {
-			StringBuilder sqlBuilder = new StringBuilder();
-			sqlBuilder.append("SELECT bb.id, bb.username, u.full_name, b.isbn, b.title, ")
-					.append("bb.borrow_date, bb.due_date, ")
-					.append("CASE WHEN bb.due_date < CURRENT_DATE() THEN 'Overdue' ELSE 'On Time' END AS status ")
-					.append("FROM borrowed_books bb ").append("JOIN users u ON bb.username = u.username ")
-					.append("JOIN books b ON bb.book_id = b.id ").append("WHERE bb.return_date IS NULL ");
-
-			if (!searchText.isEmpty()) {
-				sqlBuilder.append(
-						"AND (LOWER(u.username) LIKE ? OR LOWER(u.full_name) LIKE ? OR LOWER(b.title) LIKE ? OR LOWER(b.isbn) LIKE ?) ");
+		// The catalog index finds the matching titles
+		if (!searchText.isEmpty()) {
+			Set<Integer> matches = new LinkedHashSet<>();
+			for (CatalogIndex.Hit hit : CatalogIndex.getInstance().search(conn, searchText, MAX_SEARCH_TITLES)) {
+				matches.add(hit.getTitleId());
 			}
-
-			if (statusFilter.equals("On Time")) {
-				sqlBuilder.append("AND bb.due_date >= CURRENT_DATE() ");
-			} else if (statusFilter.equals("Overdue")) {
-				sqlBuilder.append("AND bb.due_date < CURRENT_DATE() ");
+			if (matches.isEmpty()) {
+				return "1 = 0";
 			}
+			conditions.add("t.id IN (" + ChangeTracker.placeholders(matches.size()) + ")");
+			params.addAll(matches);
+		}
 
-			sqlBuilder.append("ORDER BY bb.due_date");
+		return conditions.isEmpty() ? null : String.join(" AND ", conditions);
+	}
 
-			PreparedStatement stmt = connection.prepareStatement(sqlBuilder.toString());
+	private static Object[] readBookRow(ResultSet rs) throws SQLException {
+		String isbn = rs.getString("isbn");
+		String title = rs.getString("title");
+		String author = rs.getString("author");
+		String genre = rs.getString("genre");
+		int year = rs.getInt("year");
+		int copies = rs.getInt("copies");
+		int available = rs.getInt("available");
 
-			if (!searchText.isEmpty()) {
-				String searchPattern = "%" + searchText.toLowerCase() + "%";
-				stmt.setString(1, searchPattern);
-				stmt.setString(2, searchPattern);
-				stmt.setString(3, searchPattern);
-				stmt.setString(4, searchPattern);
-			}
+		return new Object[] { isbn, title, author, genre, year, copies, available, "Edit/Delete" };
+	}
 
-			ResultSet rs = stmt.executeQuery();
+	/**
+	 * WHERE conditions for the members matching a search
+	 */
+	private static String memberConditions(String searchText, List<Object> params) {
+		if (searchText.isEmpty()) {
+			return "u.role = 'member'";
+		}
+		String searchPattern = "%" + searchText.toLowerCase() + "%";
+		params.add(searchPattern);
+		params.add(searchPattern);
+		params.add(searchPattern);
+		return "u.role = 'member' AND (LOWER(u.username) LIKE ? OR LOWER(u.full_name) LIKE ? OR LOWER(u.email) LIKE ?)";
+	}
 
-			while (rs.next()) {
-				int id = rs.getInt("id");
-				String username = rs.getString("username");
-				String fullName = rs.getString("full_name");
-				String isbn = rs.getString("isbn");
-				String title = rs.getString("title");
-				String borrowDate = rs.getString("borrow_date");
-				String dueDate = rs.getString("due_date");
-				String status = rs.getString("status");
+	private static Object[] readMemberRow(ResultSet rs) throws SQLException {
+		String username = rs.getString("username");
+		String fullName = rs.getString("full_name");
+		String email = rs.getString("email");
+		String phone = rs.getString("phone");
+		String joinDate = rs.getString("registration_date");
+		int borrowed = rs.getInt("borrowed");
+		String status = rs.getString("status");
 
-				borrowedBooksTableModel.addRow(new Object[] { id, username, fullName, isbn, title, borrowDate, dueDate,
-						status, "Return/Renew" });
-			}
+		return new Object[] { username, fullName, email, phone, joinDate, borrowed, status, "View/Edit" };
+	}
 
-			rs.close();
-			stmt.close();
+	/**
+	 * WHERE conditions for the open loans matching a search and status
+	 */
+	private static String loanConditions(String searchText, String statusFilter, List<Object> params) {
+		StringBuilder conditions = new StringBuilder("bb.return_date IS NULL");
+
+		if (!searchText.isEmpty()) {
+			conditions.append(
+					" AND (LOWER(u.username) LIKE ? OR LOWER(u.full_name) LIKE ? OR LOWER(b.title) LIKE ? OR LOWER(b.isbn) LIKE ?)");
+			String searchPattern = "%" + searchText.toLowerCase() + "%";
+			params.add(searchPattern);
+			params.add(searchPattern);
+			params.add(searchPattern);
+			params.add(searchPattern);
+		}
 
-		} catch (SQLException e) {
-			e.printStackTrace();
+		if (statusFilter.equals("On Time")) {
+			conditions.append(" AND bb.due_date >= CURRENT_DATE()");
+		} else if (statusFilter.equals("Overdue")) {
+			conditions.append(" AND bb.due_date < CURRENT_DATE()");
 		}
+
+		return conditions.toString();
 	}
 
 	/**
 	 * Check out a book to a member
 	 */
-	private void checkOutBook(String memberID, String bookISBN, Date dueDate) {
+	private void checkOutBook(String memberID, String bookCode, Date dueDate) {
 		try {
-			// First, check if the member exists
-			String memberSql = "SELECT username FROM users WHERE username = ? AND role = 'member'";
-			PreparedStatement memberStmt = connection.prepareStatement(memberSql);
-			memberStmt.setString(1, memberID);
-			ResultSet memberRs = memberStmt.executeQuery();
+			// A barcode names the copy, anything else is taken as an ISBN
+			CopyBarcodes.Copy copy = CopyBarcodes.getInstance().lookup(connection, bookCode);
 
-			if (!memberRs.next()) {
-				JOptionPane.showMessageDialog(this, "Member ID does not exist or is not a valid member",
-						"Invalid Member", JOptionPane.WARNING_MESSAGE);
-				return;
-			}
-
-			memberRs.close();
-			memberStmt.close();
-
-			// Check if the book exists and is available
-			String bookSql = "SELECT id FROM books WHERE isbn = ? AND available = true LIMIT 1";
-			PreparedStatement bookStmt = connection.prepareStatement(bookSql);
-			bookStmt.setString(1, bookISBN);
-			ResultSet bookRs = bookStmt.executeQuery();
+			// Claims the copy (or a free copy of the title) and records the loan in one transaction
+			java.sql.Date due = new java.sql.Date(dueDate.getTime());
+			CirculationService.Checkout checkout = copy != null
+					? CirculationService.checkOutCopy(connection, copy.copyId(), memberID, due)
+					: CirculationService.checkOutTitle(connection, bookCode, memberID, due);
 
-			if (!bookRs.next()) {
-				JOptionPane.showMessageDialog(this, "Book ISBN does not exist or no copies are available",
+			if (checkout.outcome() == CirculationService.Outcome.UNAVAILABLE) {
+				JOptionPane.showMessageDialog(this,
+						copy != null ? "This copy is already checked out"
+								: "Book ISBN does not exist or no copies are available",
 						"Book Not Available", JOptionPane.WARNING_MESSAGE);
 				return;
 			}
-
-			int bookId = bookRs.getInt("id");
-			bookRs.close();
-			bookStmt.close();
-
-			// Update the book as unavailable
-			String updateBookSql = "UPDATE books SET available = false WHERE id = ?";
-			PreparedStatement updateBookStmt = connection.prepareStatement(updateBookSql);
-			updateBookStmt.setInt(1, bookId);
-			updateBookStmt.executeUpdate();
-			updateBookStmt.close();
-
-			// Create the borrowed_books record
-			String borrowSql = "INSERT INTO borrowed_books (book_id, username, borrow_date, due_date) VALUES (?, ?, CURRENT_DATE(), ?)";
-			PreparedStatement borrowStmt = connection.prepareStatement(borrowSql);
-			borrowStmt.setInt(1, bookId);
-			borrowStmt.setString(2, memberID);
-			borrowStmt.setDate(3, new java.sql.Date(dueDate.getTime()));
-			borrowStmt.executeUpdate();
-			borrowStmt.close();
+			if (checkout.outcome() == CirculationService.Outcome.NOT_A_MEMBER) {
+				JOptionPane.showMessageDialog(this, "Member ID does not exist or is not a valid member",
+						"Invalid Member", JOptionPane.WARNING_MESSAGE);
+				return;
+			}
 
 			JOptionPane.showMessageDialog(this, "Book checked out successfully!", "Success",
 					JOptionPane.INFORMATION_MESSAGE);
 
+			// Let the other dashboards and workstations know
+			DatabaseEventManager.getInstance().fireEvent(new CheckoutEvent(checkout.copyId(), checkout.title(), memberID));
+
 			// Refresh data
 			loadDashboardData();
 			loadBorrowedBooksData();
@@ -2160,40 +2112,37 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	/**
 	 * Return a book
 	 */
-	private void returnBook(String bookISBN, String condition, double fine) {
+	private void returnBook(String bookCode, String condition, double fine) {
 		try {
-			// Find the active loan for this book
-			String loanSql = "SELECT bb.id, bb.book_id FROM borrowed_books bb " + "JOIN books b ON bb.book_id = b.id "
-					+ "WHERE b.isbn = ? AND bb.return_date IS NULL LIMIT 1";
-			PreparedStatement loanStmt = connection.prepareStatement(loanSql);
-			loanStmt.setString(1, bookISBN);
-			ResultSet loanRs = loanStmt.executeQuery();
+			int bookId;
+			String bookTitle;
+
+			// A barcode names the copy exactly, an ISBN takes the copy of the title due back first
+			CopyBarcodes.Copy copy = CopyBarcodes.getInstance().lookup(connection, bookCode);
+			if (copy != null) {
+				bookId = copy.copyId();
+				bookTitle = copy.title();
+			} else {
+				String loanSql = "SELECT bb.book_id, b.title FROM borrowed_books bb "
+						+ "JOIN books b ON bb.book_id = b.id " + "WHERE b.isbn = ? AND bb.return_date IS NULL ORDER BY bb.due_date, bb.id LIMIT 1";
+				PreparedStatement loanStmt = connection.prepareStatement(loanSql);
+				loanStmt.setString(1, bookCode);
+				ResultSet loanRs = loanStmt.executeQuery();
+				bookId = loanRs.next() ? loanRs.getInt("book_id") : 0;
+				bookTitle = bookId != 0 ? loanRs.getString("title") : null;
+				loanRs.close();
+				loanStmt.close();
+			}
 
-			if (!loanRs.next()) {
-				JOptionPane.showMessageDialog(this, "No active loan found for this book ISBN", "Loan Not Found",
-						JOptionPane.WARNING_MESSAGE);
+			// Closes the loan and shelves the copy in one transaction
+			String memberID = bookId != 0 ? CirculationService.returnCopy(connection, bookId) : null;
+			if (memberID == null) {
+				JOptionPane.showMessageDialog(this,
+						copy != null ? "This copy is not checked out" : "No active loan found for this book ISBN",
+						"Loan Not Found", JOptionPane.WARNING_MESSAGE);
 				return;
 			}
 
-			int loanId = loanRs.getInt("id");
-			int bookId = loanRs.getInt("book_id");
-			loanRs.close();
-			loanStmt.close();
-
-			// Update the borrowed_books record with return date
-			String updateLoanSql = "UPDATE borrowed_books SET return_date = CURRENT_DATE() WHERE id = ?";
-			PreparedStatement updateLoanStmt = connection.prepareStatement(updateLoanSql);
-			updateLoanStmt.setInt(1, loanId);
-			updateLoanStmt.executeUpdate();
-			updateLoanStmt.close();
-
-			// Update the book as available
-			String updateBookSql = "UPDATE books SET available = true WHERE id = ?";
-			PreparedStatement updateBookStmt = connection.prepareStatement(updateBookSql);
-			updateBookStmt.setInt(1, bookId);
-			updateBookStmt.executeUpdate();
-			updateBookStmt.close();
-
 			// If the book is damaged, we could add logic to handle that
 			if (condition.equals("Damaged") || condition.equals("Poor")) {
 				// In a real app, you might update a book_condition table or similar
@@ -2212,6 +2161,9 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 			JOptionPane.showMessageDialog(this, "Book returned successfully!", "Success",
 					JOptionPane.INFORMATION_MESSAGE);
 
+			// Let the other dashboards and workstations know
+			DatabaseEventManager.getInstance().fireEvent(new ReturnEvent(bookId, bookTitle, memberID));
+
 			// Refresh data
 			loadDashboardData();
 			loadBorrowedBooksData();
@@ -2225,13 +2177,22 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	/**
 	 * Renew a book loan
 	 */
-	private void renewBook(String memberID, String bookISBN, Date newDueDate) {
+	private void renewBook(String memberID, String bookCode, Date newDueDate) {
 		try {
-			// Find the active loan for this book and member
-			String loanSql = "SELECT bb.id FROM borrowed_books bb " + "JOIN books b ON bb.book_id = b.id "
-					+ "WHERE b.isbn = ? AND bb.username = ? AND bb.return_date IS NULL LIMIT 1";
+			// Find the active loan for this copy (by barcode, whose title is already known) or
+			// book (by ISBN) and member
+			CopyBarcodes.Copy copy = CopyBarcodes.getInstance().lookup(connection, bookCode);
+			String loanSql = copy != null
+					? "SELECT bb.id, bb.book_id FROM borrowed_books bb "
+							+ "WHERE bb.book_id = ? AND bb.username = ? AND bb.return_date IS NULL"
+					: "SELECT bb.id, bb.book_id, b.title FROM borrowed_books bb " + "JOIN books b ON bb.book_id = b.id "
+							+ "WHERE b.isbn = ? AND bb.username = ? AND bb.return_date IS NULL ORDER BY bb.due_date, bb.id LIMIT 1";
 			PreparedStatement loanStmt = connection.prepareStatement(loanSql);
-			loanStmt.setString(1, bookISBN);
+			if (copy != null) {
+				loanStmt.setInt(1, copy.copyId());
+			} else {
+				loanStmt.setString(1, bookCode);
+			}
 			loanStmt.setString(2, memberID);
 			ResultSet loanRs = loanStmt.executeQuery();
 
@@ -2242,6 +2203,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 			}
 
 			int loanId = loanRs.getInt("id");
+			int bookId = loanRs.getInt("book_id");
+			String bookTitle = copy != null ? copy.title() : loanRs.getString("title");
 			loanRs.close();
 			loanStmt.close();
 
@@ -2256,6 +2219,9 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 			JOptionPane.showMessageDialog(this, "Book loan renewed successfully!", "Success",
 					JOptionPane.INFORMATION_MESSAGE);
 
+			// Let the other dashboards and workstations know
+			DatabaseEventManager.getInstance().fireEvent(new RenewalEvent(bookId, bookTitle, memberID));
+
 			// Refresh data
 			loadDashboardData();
 			loadBorrowedBooksData();
@@ -2272,7 +2238,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 			String description, int copies) {
 		try {
 			// Check if the ISBN already exists
-			String checkSql = "SELECT COUNT(*) FROM books WHERE isbn = ?";
+			String checkSql = "SELECT COUNT(*) FROM titles WHERE isbn = ?";
 			PreparedStatement checkStmt = connection.prepareStatement(checkSql);
 			checkStmt.setString(1, isbn);
 			ResultSet checkRs = checkStmt.executeQuery();
@@ -2294,25 +2260,32 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 				return;
 			}
 
-			// Insert book records for the specified number of copies
-			for (int i = 0; i < copies; i++) {
-				String insertSql = "INSERT INTO books (title, author, isbn, year, genre, description, publisher, available, date_added) "
-						+ "VALUES (?, ?, ?, ?, ?, ?, ?, true, CURRENT_DATE())";
-				PreparedStatement insertStmt = connection.prepareStatement(insertSql);
-				insertStmt.setString(1, title);
-				insertStmt.setString(2, author);
-				insertStmt.setString(3, isbn);
-				insertStmt.setInt(4, year);
-				insertStmt.setString(5, genre);
-				insertStmt.setString(6, description);
-				insertStmt.setString(7, publisher);
-				insertStmt.executeUpdate();
-				insertStmt.close();
-			}
+			// Insert the title once, then a record for each copy
+			String insertSql = "INSERT INTO titles (title, author, isbn, year, genre, description, publisher, date_added) "
+					+ "VALUES (?, ?, ?, ?, ?, ?, ?, CURRENT_DATE())";
+			PreparedStatement insertStmt = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS);
+			insertStmt.setString(1, title);
+			insertStmt.setString(2, author);
+			insertStmt.setString(3, isbn);
+			insertStmt.setInt(4, year);
+			insertStmt.setString(5, genre);
+			insertStmt.setString(6, description);
+			insertStmt.setString(7, publisher);
+			insertStmt.executeUpdate();
+			ResultSet keys = insertStmt.getGeneratedKeys();
+			keys.next();
+			int titleId = keys.getInt(1);
+			keys.close();
+			insertStmt.close();
+
+			insertCopies(titleId, copies);
 
 			JOptionPane.showMessageDialog(this, "Book added successfully with " + copies + " copies!", "Success",
 					JOptionPane.INFORMATION_MESSAGE);
 
+			// Let the other dashboards and workstations know
+			DatabaseEventManager.getInstance().fireEvent(new BookAddedEvent(isbn, title, copies));
+
 			// Refresh data
 			loadDashboardData();
 			loadBooksData();
@@ -2352,8 +2325,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 		}
 
 		try {
-			// Get existing book details
-			String bookSql = "SELECT title, author, year, genre, description, publisher FROM books WHERE isbn = ? LIMIT 1";
+			// Get the existing title
+			String bookSql = "SELECT id, title FROM titles WHERE isbn = ?";
 			PreparedStatement bookStmt = connection.prepareStatement(bookSql);
 			bookStmt.setString(1, isbn);
 			ResultSet bookRs = bookStmt.executeQuery();
@@ -2364,35 +2337,21 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 				return;
 			}
 
+			int titleId = bookRs.getInt("id");
 			String bookTitle = bookRs.getString("title");
-			String author = bookRs.getString("author");
-			int year = bookRs.getInt("year");
-			String genre = bookRs.getString("genre");
-			String description = bookRs.getString("description");
-			String publisher = bookRs.getString("publisher");
 
 			bookRs.close();
 			bookStmt.close();
 
 			// Insert additional copies
-			for (int i = 0; i < copies; i++) {
-				String insertSql = "INSERT INTO books (title, author, isbn, year, genre, description, publisher, available, date_added) "
-						+ "VALUES (?, ?, ?, ?, ?, ?, ?, true, CURRENT_DATE())";
-				PreparedStatement insertStmt = connection.prepareStatement(insertSql);
-				insertStmt.setString(1, bookTitle);
-				insertStmt.setString(2, author);
-				insertStmt.setString(3, isbn);
-				insertStmt.setInt(4, year);
-				insertStmt.setString(5, genre);
-				insertStmt.setString(6, description);
-				insertStmt.setString(7, publisher);
-				insertStmt.executeUpdate();
-				insertStmt.close();
-			}
+			insertCopies(titleId, copies);
 
 			JOptionPane.showMessageDialog(this, copies + " copies of \"" + bookTitle + "\" added successfully!",
 					"Success", JOptionPane.INFORMATION_MESSAGE);
 
+			// Let the other dashboards and workstations know
+			DatabaseEventManager.getInstance().fireEvent(new BookAddedEvent(isbn, bookTitle, copies));
+
 			// Refresh data
 			loadDashboardData();
 			loadBooksData();
@@ -2404,13 +2363,31 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 		}
 	}
 
+	/**
+	 * Insert copies of a title (the title's copy counts are kept by the copies triggers)
+	 */
+	private void insertCopies(int titleId, int copies) throws SQLException {
+		String insertSql = "INSERT INTO copies (title_id, available, date_added) VALUES (?, true, CURRENT_DATE())";
+		PreparedStatement insertStmt = connection.prepareStatement(insertSql);
+		for (int i = 0; i < copies; i++) {
+			insertStmt.setInt(1, titleId);
+			insertStmt.addBatch();
+		}
+		insertStmt.executeBatch();
+		insertStmt.close();
+
+		Statement barcodeStmt = connection.createStatement();
+		DatabaseSetup.assignBarcodes(barcodeStmt);
+		barcodeStmt.close();
+	}
+
 	/**
 	 * Update an existing book's details
 	 */
 	private void updateBook(String isbn, String title, String author, String genre, String publisher, int year,
 			String description) {
 		try {
-			String updateSql = "UPDATE books SET title = ?, author = ?, genre = ?, "
+			String updateSql = "UPDATE titles SET title = ?, author = ?, genre = ?, "
 					+ "publisher = ?, year = ?, description = ? WHERE isbn = ?";
 			PreparedStatement updateStmt = connection.prepareStatement(updateSql);
 			updateStmt.setString(1, title);
@@ -2425,9 +2402,12 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 			updateStmt.close();
 
 			if (rowsAffected > 0) {
-				JOptionPane.showMessageDialog(this, "Book updated successfully! " + rowsAffected + " copies updated.",
+				JOptionPane.showMessageDialog(this, "Book updated successfully!",
 						"Success", JOptionPane.INFORMATION_MESSAGE);
 
+				// Let the other dashboards and workstations know
+				DatabaseEventManager.getInstance().fireEvent(new DataChangedEvent());
+
 				// Refresh data
 				loadBooksData();
 				loadBookGenres();
@@ -2475,16 +2455,27 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 				return;
 			}
 
-			// Delete all copies
-			String deleteSql = "DELETE FROM books WHERE isbn = ?";
+			// Delete the title (its copies go with it)
+			String copiesSql = "SELECT copies FROM titles WHERE isbn = ?";
+			PreparedStatement copiesStmt = connection.prepareStatement(copiesSql);
+			copiesStmt.setString(1, isbn);
+			ResultSet copiesRs = copiesStmt.executeQuery();
+			int copies = copiesRs.next() ? copiesRs.getInt(1) : 0;
+			copiesRs.close();
+			copiesStmt.close();
+
+			String deleteSql = "DELETE FROM titles WHERE isbn = ?";
 			PreparedStatement deleteStmt = connection.prepareStatement(deleteSql);
 			deleteStmt.setString(1, isbn);
-			int rowsAffected = deleteStmt.executeUpdate();
+			deleteStmt.executeUpdate();
 			deleteStmt.close();
 
-			JOptionPane.showMessageDialog(this, rowsAffected + " copies of the book deleted successfully!",
+			JOptionPane.showMessageDialog(this, copies + " copies of the book deleted successfully!",
 					"Deletion Successful", JOptionPane.INFORMATION_MESSAGE);
 
+			// Let the other dashboards and workstations know
+			DatabaseEventManager.getInstance().fireEvent(new DataChangedEvent());
+
 			// Refresh data
 			loadDashboardData();
 			loadBooksData();
@@ -2531,6 +2522,9 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 			JOptionPane.showMessageDialog(this, "Member added successfully!", "Success",
 					JOptionPane.INFORMATION_MESSAGE);
 
+			// Let the other dashboards and workstations know
+			DatabaseEventManager.getInstance().fireEvent(new MemberAddedEvent(username));
+
 			// Refresh data
 			loadDashboardData();
 			loadMembersData();
@@ -2574,6 +2568,9 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 				JOptionPane.showMessageDialog(this, "Member updated successfully!", "Success",
 						JOptionPane.INFORMATION_MESSAGE);
 
+				// Let the other dashboards and workstations know
+				DatabaseEventManager.getInstance().fireEvent(new DataChangedEvent());
+
 				// Refresh data
 				loadMembersData();
 			} else {
@@ -2626,7 +2623,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 
 		// Load genres
 		try {
-			String sql = "SELECT DISTINCT genre FROM books WHERE genre IS NOT NULL AND genre != '' ORDER BY genre";
+			String sql = "SELECT DISTINCT genre FROM titles WHERE genre IS NOT NULL AND genre != '' ORDER BY genre";
 			PreparedStatement stmt = connection.prepareStatement(sql);
 			ResultSet rs = stmt.executeQuery();
 
@@ -2824,7 +2821,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    
 	    // Load genres from database
 	    try {
-	        String sql = "SELECT DISTINCT genre FROM books WHERE genre IS NOT NULL AND genre != '' ORDER BY genre";
+	        String sql = "SELECT DISTINCT genre FROM titles WHERE genre IS NOT NULL AND genre != '' ORDER BY genre";
 	        PreparedStatement stmt = connection.prepareStatement(sql);
 	        ResultSet rs = stmt.executeQuery();
 	        
@@ -2918,7 +2915,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	            
 	            // Check if the genre is in use
 	            try {
-	                String sql = "SELECT COUNT(*) FROM books WHERE genre = ?";
+	                String sql = "SELECT COUNT(*) FROM titles WHERE genre = ?";
 	                PreparedStatement stmt = connection.prepareStatement(sql);
 	                stmt.setString(1, selectedGenre);
 	                ResultSet rs = stmt.executeQuery();
@@ -2938,7 +2935,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	                    }
 	                    
 	                    // Update all books with this genre to 'Uncategorized'
-	                    String updateSql = "UPDATE books SET genre = 'Uncategorized' WHERE genre = ?";
+	                    String updateSql = "UPDATE titles SET genre = 'Uncategorized' WHERE genre = ?";
 	                    PreparedStatement updateStmt = connection.prepareStatement(updateSql);
 	                    updateStmt.setString(1, selectedGenre);
 	                    int rowsUpdated = updateStmt.executeUpdate();
@@ -2974,6 +2971,256 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    dialog.setVisible(true);
 	}
 
+	/**
+	 * Batch desk mode: scans are checked against the desk's caches and queued without a
+	 * popup each, then the whole queue is written in one transaction with one refresh and
+	 * a summary at the end
+	 */
+	private void showBatchDeskDialog() {
+	    JDialog dialog = new JDialog(this, "Batch Circulation Desk", true);
+	    dialog.setSize(800, 500);
+	    dialog.setLocationRelativeTo(this);
+	    dialog.setUndecorated(true);
+	    dialog.setResizable(false);
+
+	    CirculationDesk desk = new CirculationDesk();
+
+	    JPanel mainPanel = new JPanel(new BorderLayout());
+	    mainPanel.setBackground(new Color(30, 30, 30));
+	    mainPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+
+	    // Scan panel
+	    JPanel scanPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+	    scanPanel.setBackground(new Color(30, 30, 30));
+
+	    JComboBox<String> modeCombo = new JComboBox<>(new String[] { "Check Out", "Return" });
+
+	    JLabel memberLabel = new JLabel("Member ID:");
+	    memberLabel.setForeground(Color.WHITE);
+	    JTextField memberField = new JTextField(10);
+
+	    Calendar calendar = Calendar.getInstance();
+	    calendar.add(Calendar.DAY_OF_MONTH, 14);
+	    JSpinner dueDateSpinner = new JSpinner(new SpinnerDateModel(calendar.getTime(), null, null,
+	            Calendar.DAY_OF_MONTH));
+	    dueDateSpinner.setEditor(new JSpinner.DateEditor(dueDateSpinner, "yyyy-MM-dd"));
+
+	    JLabel scanLabel = new JLabel("Scan ISBN or barcode:");
+	    scanLabel.setForeground(Color.WHITE);
+	    JTextField scanField = new JTextField(15);
+	    scanField.setEnabled(false);
+
+	    scanPanel.add(modeCombo);
+	    scanPanel.add(memberLabel);
+	    scanPanel.add(memberField);
+	    scanPanel.add(dueDateSpinner);
+	    scanPanel.add(scanLabel);
+	    scanPanel.add(scanField);
+
+	    modeCombo.addActionListener(e -> {
+	        boolean checkOut = modeCombo.getSelectedIndex() == 0;
+	        memberLabel.setVisible(checkOut);
+	        memberField.setVisible(checkOut);
+	        dueDateSpinner.setVisible(checkOut);
+	        scanField.requestFocusInWindow();
+	    });
+
+	    mainPanel.add(scanPanel, BorderLayout.NORTH);
+
+	    // Queue table
+	    String[] columns = { "Action", "Scanned", "Title", "Member", "Due Date" };
+	    DefaultTableModel model = new DefaultTableModel(columns, 0) {
+	        @Override
+	        public boolean isCellEditable(int row, int column) {
+	            return false;
+	        }
+	    };
+
+	    JTable queueTable = new JTable(model);
+	    queueTable.setBackground(new Color(40, 40, 40));
+	    queueTable.setForeground(Color.WHITE);
+	    queueTable.setGridColor(new Color(60, 60, 60));
+	    queueTable.getTableHeader().setBackground(new Color(50, 50, 50));
+	    queueTable.getTableHeader().setForeground(Color.BLACK);
+	    queueTable.setRowHeight(25);
+
+	    JScrollPane scrollPane = new JScrollPane(queueTable);
+	    scrollPane.getViewport().setBackground(new Color(40, 40, 40));
+	    mainPanel.add(scrollPane, BorderLayout.CENTER);
+
+	    // Status line and buttons
+	    JPanel bottomPanel = new JPanel(new BorderLayout());
+	    bottomPanel.setBackground(new Color(30, 30, 30));
+
+	    JLabel statusLabel = new JLabel("Loading members and copies...");
+	    statusLabel.setForeground(Color.LIGHT_GRAY);
+	    bottomPanel.add(statusLabel, BorderLayout.CENTER);
+
+	    JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+	    buttonPanel.setBackground(new Color(30, 30, 30));
+
+	    JButton clearButton = new JButton("Clear");
+	    clearButton.setBackground(new Color(60, 60, 60));
+	    clearButton.setForeground(Color.BLACK);
+
+	    JButton commitButton = new JButton("Commit");
+	    commitButton.setBackground(new Color(0, 102, 204));
+	    commitButton.setForeground(Color.BLACK);
+
+	    JButton closeButton = new JButton("Close");
+	    closeButton.setBackground(new Color(60, 60, 60));
+	    closeButton.setForeground(Color.BLACK);
+
+	    buttonPanel.add(clearButton);
+	    buttonPanel.add(commitButton);
+	    buttonPanel.add(closeButton);
+	    bottomPanel.add(buttonPanel, BorderLayout.EAST);
+
+	    mainPanel.add(bottomPanel, BorderLayout.SOUTH);
+
+	    // Redraw the queue from the desk
+	    Runnable showQueue = () -> {
+	        model.setRowCount(0);
+	        for (CirculationDesk.Item item : desk.getQueue()) {
+	            boolean checkOut = item.action() == CirculationDesk.Action.CHECK_OUT;
+	            model.addRow(new Object[] { checkOut ? "Check Out" : "Return", item.scan(), item.title(),
+	                    item.username(), checkOut ? String.valueOf(item.dueDate()) : "" });
+	        }
+	        commitButton.setText("Commit (" + desk.getQueue().size() + ")");
+	    };
+
+	    // Read the caches off the EDT, then start taking scans
+	    Runnable loadDesk = () -> {
+	        scanField.setEnabled(false);
+	        commitButton.setEnabled(false);
+	        worker.load("batchDesk", conn -> {
+	            desk.load(conn);
+	            return desk;
+	        }, loaded -> {
+	            showQueue.run();
+	            statusLabel.setForeground(Color.LIGHT_GRAY);
+	            statusLabel.setText("Ready to scan");
+	            scanField.setEnabled(true);
+	            commitButton.setEnabled(true);
+	            scanField.requestFocusInWindow();
+	        });
+	    };
+
+	    // Each scan is checked in memory and queued; a bad scan only shows on the status line
+	    scanField.addActionListener(e -> {
+	        String code = scanField.getText().trim();
+	        scanField.setText("");
+	        if (code.isEmpty()) {
+	            return;
+	        }
+	        try {
+	            CirculationDesk.Item item;
+	            if (modeCombo.getSelectedIndex() == 0) {
+	                Date dueDate = (Date) dueDateSpinner.getValue();
+	                item = desk.checkOut(memberField.getText().trim(), code, new java.sql.Date(dueDate.getTime()));
+	            } else {
+	                item = desk.checkIn(code);
+	            }
+	            showQueue.run();
+	            statusLabel.setForeground(Color.LIGHT_GRAY);
+	            statusLabel.setText("Queued: " + item.title());
+	        } catch (IllegalArgumentException ex) {
+	            Toolkit.getDefaultToolkit().beep();
+	            statusLabel.setForeground(new Color(255, 102, 102));
+	            statusLabel.setText(ex.getMessage());
+	        }
+	    });
+
+	    clearButton.addActionListener(e -> loadDesk.run());
+
+	    // What a commit did: how many items conflicted and which scans could not be queued again
+	    record Saved(int conflicts, List<String> dropped) {
+	    }
+
+	    // The batch is written off the EDT; scanning waits until it is saved
+	    commitButton.addActionListener(e -> {
+	        List<CirculationDesk.Item> items = new ArrayList<>(desk.getQueue());
+	        if (items.isEmpty()) {
+	            return;
+	        }
+	        scanField.setEnabled(false);
+	        commitButton.setEnabled(false);
+	        clearButton.setEnabled(false);
+	        statusLabel.setForeground(Color.LIGHT_GRAY);
+	        statusLabel.setText("Saving " + items.size() + " item(s)...");
+
+	        worker.load("batchDesk", conn -> {
+	            List<CirculationDesk.Item> conflicts = CirculationService.commitBatch(conn, items);
+	            if (conflicts.isEmpty()) {
+	                return new Saved(0, null);
+	            }
+	            // Taken at another desk since the caches were read; nothing was written
+	            return new Saved(conflicts.size(), desk.revalidate(conn));
+	        }, saved -> {
+	            clearButton.setEnabled(true);
+	            if (saved.conflicts() > 0) {
+	                showQueue.run();
+	                statusLabel.setForeground(new Color(255, 102, 102));
+	                statusLabel.setText(saved.conflicts() + " item(s) changed at another desk, nothing was saved. "
+	                        + (saved.dropped().isEmpty() ? "Copies were reassigned, commit again."
+	                                : "Dropped: " + String.join("; ", saved.dropped())));
+	                scanField.setEnabled(true);
+	                commitButton.setEnabled(true);
+	                return;
+	            }
+
+	            // Let the other dashboards and workstations know
+	            int checkedOut = 0;
+	            int returned = 0;
+	            for (CirculationDesk.Item item : items) {
+	                if (item.action() == CirculationDesk.Action.CHECK_OUT) {
+	                    DatabaseEventManager.getInstance().fireEvent(
+	                            new CheckoutEvent(item.copyId(), item.title(), item.username()));
+	                    checkedOut++;
+	                } else {
+	                    DatabaseEventManager.getInstance().fireEvent(
+	                            new ReturnEvent(item.copyId(), item.title(), item.username()));
+	                    returned++;
+	                }
+	            }
+
+	            // One refresh for the whole batch
+	            loadDashboardData();
+	            loadBorrowedBooksData();
+	            loadBooksData();
+
+	            JOptionPane.showMessageDialog(dialog,
+	                    "Batch saved.\nChecked out: " + checkedOut + "\nReturned: " + returned,
+	                    "Batch Summary", JOptionPane.INFORMATION_MESSAGE);
+	            loadDesk.run();
+	        }, ex -> {
+	            ex.printStackTrace();
+	            JOptionPane.showMessageDialog(dialog, "Error saving batch: " + ex.getMessage(), "Database Error",
+	                    JOptionPane.ERROR_MESSAGE);
+	            statusLabel.setText("Ready to scan");
+	            scanField.setEnabled(true);
+	            commitButton.setEnabled(true);
+	            clearButton.setEnabled(true);
+	        });
+	    });
+
+	    closeButton.addActionListener(e -> {
+	        if (!desk.getQueue().isEmpty()) {
+	            int option = JOptionPane.showConfirmDialog(dialog,
+	                    "Discard " + desk.getQueue().size() + " queued item(s)?", "Close Batch Desk",
+	                    JOptionPane.YES_NO_OPTION);
+	            if (option != JOptionPane.YES_OPTION) {
+	                return;
+	            }
+	        }
+	        dialog.dispose();
+	    });
+
+	    loadDesk.run();
+	    dialog.add(mainPanel);
+	    dialog.setVisible(true);
+	}
+
 	/**
 	 * Show dialog to select a member
 	 */
@@ -3197,7 +3444,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 
 		// Load available books
 		try {
-			String sql = "SELECT isbn, title, author, genre, year, available FROM books WHERE available = true ORDER BY title";
+			String sql = "SELECT isbn, title, author, genre, year, available_copies > 0 AS available FROM titles "
+					+ "WHERE available_copies > 0 ORDER BY title";
 			PreparedStatement stmt = connection.prepareStatement(sql);
 			ResultSet rs = stmt.executeQuery();
 
@@ -3246,8 +3494,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 			model.setRowCount(0);
 
 			try {
-				String sql = "SELECT isbn, title, author, genre, year, available FROM books "
-						+ "WHERE available = true AND "
+				String sql = "SELECT isbn, title, author, genre, year, available_copies > 0 AS available FROM titles "
+						+ "WHERE available_copies > 0 AND "
 						+ "(LOWER(isbn) LIKE ? OR LOWER(title) LIKE ? OR LOWER(author) LIKE ?) " + "ORDER BY title";
 				PreparedStatement stmt = connection.prepareStatement(sql);
 
@@ -3342,7 +3590,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    mainPanel.add(searchPanel, BorderLayout.NORTH);
 
 	    // Borrowed books table
-	    String[] columns = { "ISBN", "Title", "Borrowed By", "Borrow Date", "Due Date", "Status" };
+	    String[] columns = { "Barcode", "ISBN", "Title", "Borrowed By", "Borrow Date", "Due Date", "Status" };
 	    DefaultTableModel model = new DefaultTableModel(columns, 0) {
 	        @Override
 	        public boolean isCellEditable(int row, int column) {
@@ -3361,7 +3609,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 
 	    // Load borrowed books
 	    try {
-	        String sql = "SELECT b.isbn, b.title, u.username, u.full_name, bb.borrow_date, bb.due_date, "
+	        String sql = "SELECT b.barcode, b.isbn, b.title, u.username, u.full_name, bb.borrow_date, bb.due_date, "
 	                + "CASE WHEN bb.due_date < CURRENT_DATE() THEN 'Overdue' ELSE 'On Time' END AS status "
 	                + "FROM borrowed_books bb "
 	                + "JOIN books b ON bb.book_id = b.id "
@@ -3373,6 +3621,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 
 	        while (rs.next()) {
 	            model.addRow(new Object[] { 
+	                rs.getString("barcode"), 
 	                rs.getString("isbn"), 
 	                rs.getString("title"),
 	                rs.getString("username") + " (" + rs.getString("full_name") + ")", 
@@ -3424,13 +3673,14 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	        model.setRowCount(0);
 
 	        try {
-	            String sql = "SELECT b.isbn, b.title, u.username, u.full_name, bb.borrow_date, bb.due_date, "
+	            String sql = "SELECT b.barcode, b.isbn, b.title, u.username, u.full_name, bb.borrow_date, bb.due_date, "
 	                    + "CASE WHEN bb.due_date < CURRENT_DATE() THEN 'Overdue' ELSE 'On Time' END AS status "
 	                    + "FROM borrowed_books bb "
 	                    + "JOIN books b ON bb.book_id = b.id "
 	                    + "JOIN users u ON bb.username = u.username "
 	                    + "WHERE bb.return_date IS NULL AND "
-	                    + "(LOWER(b.isbn) LIKE ? OR LOWER(b.title) LIKE ? OR LOWER(u.username) LIKE ? OR LOWER(u.full_name) LIKE ?) "
+	                    + "(LOWER(b.barcode) LIKE ? OR LOWER(b.isbn) LIKE ? OR LOWER(b.title) LIKE ? "
+	                    + "OR LOWER(u.username) LIKE ? OR LOWER(u.full_name) LIKE ?) "
 	                    + "ORDER BY bb.due_date";
 	            PreparedStatement stmt = connection.prepareStatement(sql);
 
@@ -3439,11 +3689,13 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	            stmt.setString(2, searchPattern);
 	            stmt.setString(3, searchPattern);
 	            stmt.setString(4, searchPattern);
+	            stmt.setString(5, searchPattern);
 
 	            ResultSet rs = stmt.executeQuery();
 
 	            while (rs.next()) {
 	                model.addRow(new Object[] { 
+	                    rs.getString("barcode"), 
 	                    rs.getString("isbn"), 
 	                    rs.getString("title"),
 	                    rs.getString("username") + " (" + rs.getString("full_name") + ")", 
@@ -3467,8 +3719,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	    selectButton.addActionListener(e -> {
 	        int selectedRow = booksTable.getSelectedRow();
 	        if (selectedRow >= 0) {
-	            String isbn = (String) booksTable.getValueAt(selectedRow, 0);
-	            targetField.setText(isbn);
+	            String barcode = (String) booksTable.getValueAt(selectedRow, 0);
+	            targetField.setText(barcode);
 	            dialog.dispose();
 	        } else {
 	            JOptionPane.showMessageDialog(dialog, "Please select a book", "No Selection",
@@ -3483,8 +3735,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	            if (e.getClickCount() == 2) {
 	                int selectedRow = booksTable.getSelectedRow();
 	                if (selectedRow >= 0) {
-	                    String isbn = (String) booksTable.getValueAt(selectedRow, 0);
-	                    targetField.setText(isbn);
+	                    String barcode = (String) booksTable.getValueAt(selectedRow, 0);
+	                    targetField.setText(barcode);
 	                    dialog.dispose();
 	                }
 	            }
@@ -3701,6 +3953,9 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 	                    "Member added successfully!",
 	                    "Success", JOptionPane.INFORMATION_MESSAGE);
 	            
+	            // Let the other dashboards and workstations know
+	            DatabaseEventManager.getInstance().fireEvent(new MemberAddedEvent(username));
+
 	            // Refresh data
 	            loadDashboardData();
 	            loadMembersData();
@@ -3830,7 +4085,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 		private void showEditBookDialog(String isbn) {
 			try {
 				// Get book details
-				String sql = "SELECT * FROM books WHERE isbn = ? LIMIT 1";
+				String sql = "SELECT * FROM titles WHERE isbn = ?";
 				PreparedStatement stmt = connection.prepareStatement(sql);
 				stmt.setString(1, isbn);
 				ResultSet rs = stmt.executeQuery();
@@ -3891,7 +4146,7 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 
 				// Load genres
 				try {
-					String genreSql = "SELECT DISTINCT genre FROM books WHERE genre IS NOT NULL AND genre != '' ORDER BY genre";
+					String genreSql = "SELECT DISTINCT genre FROM titles WHERE genre IS NOT NULL AND genre != '' ORDER BY genre";
 					PreparedStatement genreStmt = connection.prepareStatement(genreSql);
 					ResultSet genreRs = genreStmt.executeQuery();
 
@@ -3980,8 +4235,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 				int availableCopies = 0;
 
 				try {
-					String copiesSql = "SELECT COUNT(*) AS total, SUM(CASE WHEN available = true THEN 1 ELSE 0 END) AS available "
-							+ "FROM books WHERE isbn = ?";
+					String copiesSql = "SELECT copies AS total, available_copies AS available FROM titles "
+							+ "WHERE isbn = ?";
 					PreparedStatement copiesStmt = connection.prepareStatement(copiesSql);
 					copiesStmt.setString(1, isbn);
 					ResultSet copiesRs = copiesStmt.executeQuery();
@@ -4066,8 +4321,8 @@ public class LibrarianDashboard extends JFrame implements DatabaseEventListener
 					addBookCopy(isbn, title);
 					// Update the copies info
 					try {
-						String copiesSql = "SELECT COUNT(*) AS total, SUM(CASE WHEN available = true THEN 1 ELSE 0 END) AS available "
-								+ "FROM books WHERE isbn = ?";
+						String copiesSql = "SELECT copies AS total, available_copies AS available FROM titles "
+								+ "WHERE isbn = ?";
 						PreparedStatement copiesStmt = connection.prepareStatement(copiesSql);
 						copiesStmt.setString(1, isbn);
 						ResultSet copiesRs = copiesStmt.executeQuery();
@@ -0,0 +1,14 @@
+/**
+ * LibraryEvent - An immutable description of a change to the library data, delivered to
+ * DatabaseEventListeners by DatabaseEventManager.
+ *
+ * Every event is a record with the fields its listeners need, so listeners do not have to
+ * query the database to describe what happened.
+ */
+public interface LibraryEvent {
+
+    /**
+     * The type used to dispatch the event
+     */
+    EventType type();
+}
@@ -0,0 +1,178 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LibraryStats - The counters shown on the dashboard cards, kept in the library_stats table.
+ *
+ * The change tracking triggers add to the counters as copies, loans and users are written
+ * (see DatabaseSetup.createChangeTriggers), so every card is read with one small query
+ * instead of a COUNT(*) each. Loans also become overdue as the date moves on, and a counter
+ * can drift if rows are edited with the triggers missing, so a background thread recounts
+ * everything once the counts are RECOUNT_INTERVAL_MINUTES old or from before today. The
+ * recount time is kept in the table, so one workstation's recount serves them all.
+ */
+public class LibraryStats {
+
+    public static final String TOTAL_BOOKS = "total_books";
+    public static final String OPEN_LOANS = "open_loans";
+    public static final String OVERDUE_LOANS = "overdue_loans";
+    public static final String MEMBERS = "members";
+    public static final String LIBRARIANS = "librarians";
+
+    static final String[] COUNTERS = { TOTAL_BOOKS, OPEN_LOANS, OVERDUE_LOANS, MEMBERS, LIBRARIANS };
+
+    // Every counter worked out from scratch, in the order of COUNTERS
+    private static final String RECOUNT_SQL = "SELECT "
+            + "(SELECT COUNT(*) FROM copies), "
+            + "(SELECT COUNT(*) FROM borrowed_books WHERE return_date IS NULL), "
+            + "(SELECT COUNT(*) FROM borrowed_books WHERE return_date IS NULL AND due_date < CURRENT_DATE()), "
+            + "(SELECT COUNT(*) FROM users WHERE role = 'member'), "
+            + "(SELECT COUNT(*) FROM users WHERE role = 'librarian')";
+
+    // How old the counts may get before they are recounted
+    private static final int RECOUNT_INTERVAL_MINUTES = 10;
+
+    // How often the age of the counts is checked
+    private static final long CHECK_INTERVAL_MS = 60 * 1000;
+
+    private static LibraryStats instance;
+
+    private ScheduledExecutorService executor;
+
+    private LibraryStats() {
+    }
+
+    public static synchronized LibraryStats getInstance() {
+        if (instance == null) {
+            instance = new LibraryStats();
+        }
+        return instance;
+    }
+
+    /**
+     * Start recounting in the background (does nothing if already started)
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "BookedIn-stats-recount");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::check, 0, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Read every counter
+     */
+    public Counts read(Connection conn) throws SQLException {
+        Map<String, Integer> values = new HashMap<>();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT name, value FROM library_stats");
+        while (rs.next()) {
+            values.put(rs.getString("name"), rs.getInt("value"));
+        }
+        rs.close();
+        stmt.close();
+        return new Counts(values);
+    }
+
+    /**
+     * Recount every counter from the tables.
+     *
+     * The counters are locked first, which waits for the writes already counted by their
+     * triggers to commit and holds back the triggers of later ones, so the counts read
+     * afterwards (a plain read, locking nothing) match the counters exactly.
+     */
+    public void recount(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            Statement stmt = conn.createStatement();
+            stmt.executeQuery("SELECT name FROM library_stats FOR UPDATE").close();
+            ResultSet rs = stmt.executeQuery(RECOUNT_SQL);
+            rs.next();
+
+            PreparedStatement update = conn.prepareStatement("INSERT INTO library_stats (name, value, reconciled_at) "
+                    + "VALUES (?, ?, NOW()) ON DUPLICATE KEY UPDATE value = VALUES(value), reconciled_at = NOW()");
+            for (int i = 0; i < COUNTERS.length; i++) {
+                update.setString(1, COUNTERS[i]);
+                update.setInt(2, rs.getInt(i + 1));
+                update.addBatch();
+            }
+            update.executeBatch();
+            update.close();
+            rs.close();
+            stmt.close();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void check() {
+        try (Connection conn = DatabaseConnection.borrowConnection()) {
+            PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM library_stats "
+                    + "WHERE reconciled_at >= GREATEST(NOW() - INTERVAL ? MINUTE, CURRENT_DATE())");
+            stmt.setInt(1, RECOUNT_INTERVAL_MINUTES);
+            ResultSet rs = stmt.executeQuery();
+            int fresh = rs.next() ? rs.getInt(1) : 0;
+            rs.close();
+            stmt.close();
+
+            if (fresh < COUNTERS.length) {
+                recount(conn);
+            }
+        } catch (SQLException e) {
+            // Tried again on the next check
+            System.err.println("Error recounting library stats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The counters as read together
+     */
+    public static class Counts {
+        private final Map<String, Integer> values;
+
+        Counts(Map<String, Integer> values) {
+            this.values = values;
+        }
+
+        private int get(String name) {
+            return values.getOrDefault(name, 0);
+        }
+
+        public int getTotalBooks() {
+            return get(TOTAL_BOOKS);
+        }
+
+        public int getOpenLoans() {
+            return get(OPEN_LOANS);
+        }
+
+        public int getOverdueLoans() {
+            return get(OVERDUE_LOANS);
+        }
+
+        public int getMembers() {
+            return get(MEMBERS);
+        }
+
+        public int getLibrarians() {
+            return get(LIBRARIANS);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * A new member account was created
+ */
+public record MemberAddedEvent(String username) implements LibraryEvent {
+
+    @Override
+    public EventType type() {
+        return EventType.MEMBER_ADDED;
+    }
+}
@@ -7,10 +7,11 @@ import java.sql.*;
 import java.util.*;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
-public class MemberDashboard extends JFrame {
+public class MemberDashboard extends JFrame implements DatabaseEventListener {
 
 	private final String username;
 	private JPanel mainContentPanel;
@@ -26,15 +27,40 @@ public class MemberDashboard extends JFrame {
 
 	// Tables
 	private JTable popularBooksTable;
+	private JTable trendingBooksTable;
 	private JTable recentlyViewedTable;
 	private JTable dueReturnsTable;
-	private JTable allBooksTable;
+	private JList<Object[]> allBooksList;
 	private JTable myBooksTable;
 
 	// Search components
 	private JTextField searchField;
 	private JComboBox<String> sortByComboBox;
 
+	// Search as you type: matches come from the in-memory catalog index, so only a burst of
+	// keystrokes is merged into one search (a newer search replaces one in flight)
+	private static final int SEARCH_DEBOUNCE_MS = 30;
+	private javax.swing.Timer searchTimer;
+	private String lastBookSearch = "";
+
+	// Search results: only the visible rows are painted, by one shared renderer
+	private final BookResultsModel bookResultsModel = new BookResultsModel();
+	private JLabel suggestionLabel;
+	private JLabel noResultsLabel;
+
+	// Events arriving within this window are handled together
+	private static final long EVENT_DEBOUNCE_MS = 1000;
+
+	// Background loading
+	private final DashboardStartup startup = new DashboardStartup("MemberDashboard");
+	private JLabel loadingLabel;
+	private final DataVersion dataVersion = new DataVersion();
+	private final DatabaseWorker worker = new DatabaseWorker(busy -> {
+		if (loadingLabel != null) {
+			loadingLabel.setVisible(busy);
+		}
+	});
+
 	public MemberDashboard(String username) {
 		this.username = username;
 		setTitle("BookedIn");
@@ -80,15 +106,100 @@ public class MemberDashboard extends JFrame {
 
 		add(mainContainer);
 
-		// Load user info
-		loadUserInfo();
+		// Trending books follow the event journal, which is opened with the event manager and
+		// read in the background; the card is shown again once it has been
+		DatabaseSetup.initEventManager();
+		TrendingBooks.getInstance().start();
+		TrendingBooks.getInstance().update().thenRun(() -> SwingUtilities.invokeLater(this::loadTrendingBooks));
+
+		// Load user info and initial data from database in parallel
+		startup.track(loadUserInfo());
+		startup.track(loadStatistics());
+		startup.track(loadPopularBooks());
+		startup.track(loadTrendingBooks());
+		startup.track(loadDueReturns());
+		startup.track(loadAllBooks(""));
+		startup.track(loadMyBorrowedBooks());
+		startup.start();
+
+		// Build the catalog search index in the background so the first search is quick
+		worker.load("catalogIndex", conn -> {
+			CatalogIndex.getInstance().refresh(conn);
+			return null;
+		}, ignored -> {
+		});
+
+		// Refresh when books are checked out, returned or renewed here or on another workstation
+		LibraryStats.getInstance().start();
+		ViewRollup.getInstance().start();
+		DatabaseEventManager eventManager = DatabaseEventManager.getInstance();
+		eventManager.addWeakListener(EventType.BOOK_VIEWED, this);
+		eventManager.addWeakListener(EventType.BOOK_CHECKOUT, this);
+		eventManager.addWeakListener(EventType.BOOK_RETURN, this);
+		eventManager.addWeakListener(EventType.BOOK_RENEWAL, this);
+		eventManager.addWeakListener(EventType.DATA_CHANGED, this);
+	}
+
+	@Override
+	public void onDatabaseEvent(DatabaseEventManager.DatabaseEvent event) {
+		EventType type = event.getEventType();
+		if (type == EventType.BOOK_VIEWED || type == EventType.BOOK_CHECKOUT) {
+			// Trending is kept in memory, so it is reloaded once the event is in the scores
+			TrendingBooks.getInstance().update().thenRun(() -> SwingUtilities.invokeLater(this::loadTrendingBooks));
+		}
+		if (type == EventType.BOOK_VIEWED) {
+			return;
+		}
+
+		// Something was just written, make the next version probe go to the database
+		DataVersion.invalidate();
+		SwingUtilities.invokeLater(this::refreshData);
+	}
+
+	/**
+	 * Collect bursts of events into one refresh
+	 */
+	@Override
+	public long getDebounceMillis(EventType eventType) {
+		return EVENT_DEBOUNCE_MS;
+	}
+
+	/**
+	 * Refresh the dashboard cards and loans, but only if the library data has changed
+	 */
+	private void refreshData() {
+		worker.load("refresh", DataVersion::current, version -> {
+			if (!dataVersion.hasMoved(version)) {
+				return;
+			}
+			dataVersion.markSeen(version);
 
-		// Load initial data from database
-		loadStatistics();
-		loadPopularBooks();
-		loadDueReturns();
-		loadAllBooks("");
-		loadMyBorrowedBooks();
+			loadStatistics();
+			loadPopularBooks();
+			loadDueReturns();
+			loadMyBorrowedBooks();
+		});
+	}
+
+	/**
+	 * Hold the first show until the initial loads have published
+	 */
+	@Override
+	public void setVisible(boolean visible) {
+		if (visible && !startup.isReady()) {
+			startup.showWhenReady(() -> super.setVisible(true));
+			return;
+		}
+		if (!visible) {
+			startup.cancelShow();
+		}
+		super.setVisible(visible);
+	}
+
+	@Override
+	public void paint(Graphics g) {
+		super.paint(g);
+		startup.framePainted();
 	}
 	
 	private JPanel createProfilePanel() {
@@ -294,32 +405,33 @@ public class MemberDashboard extends JFrame {
 	}
 	
 	private void loadUserProfile(JTextField nameField, JTextField emailField, JTextField phoneField) {
-	    try {
-	        Connection conn = DatabaseSetup.getConnection();
+	    worker.load("profile", conn -> {
 	        String query = "SELECT full_name, email, phone FROM users WHERE username = ?";
 	        PreparedStatement pstmt = conn.prepareStatement(query);
 	        pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        
+	        String[] profile = null;
 	        if (rs.next()) {
-	            String fullName = rs.getString("full_name");
-	            String email = rs.getString("email");
-	            String phone = rs.getString("phone");
-	            
-	            nameField.setText(fullName != null ? fullName : "");
-	            emailField.setText(email != null ? email : "");
-	            phoneField.setText(phone != null ? phone : "");
+	            profile = new String[] { rs.getString("full_name"), rs.getString("email"), rs.getString("phone") };
 	        }
 	        
 	        rs.close();
 	        pstmt.close();
-	    } catch (SQLException e) {
+	        return profile;
+	    }, profile -> {
+	        if (profile != null) {
+	            nameField.setText(profile[0] != null ? profile[0] : "");
+	            emailField.setText(profile[1] != null ? profile[1] : "");
+	            phoneField.setText(profile[2] != null ? profile[2] : "");
+	        }
+	    }, e -> {
 	        e.printStackTrace();
 	        JOptionPane.showMessageDialog(this, 
 	                "Error loading user profile: " + e.getMessage(), 
 	                "Database Error", 
 	                JOptionPane.ERROR_MESSAGE);
-	    }
+	    });
 	}
 	
 	private void updateUserProfile(String fullName, String email, String phone) {
@@ -501,6 +613,14 @@ public class MemberDashboard extends JFrame {
 		};
 		avatarPanel.setPreferredSize(new Dimension(40, 40));
 
+		// Shown while dashboard data is loading in the background
+		loadingLabel = new JLabel("Loading...");
+		loadingLabel.setForeground(new Color(150, 150, 150));
+		loadingLabel.setFont(new Font("Arial", Font.ITALIC, 12));
+		loadingLabel.setVisible(false);
+
+		userPanel.add(loadingLabel);
+		userPanel.add(Box.createRigidArea(new Dimension(10, 0)));
 		userPanel.add(userNameLabel);
 		userPanel.add(Box.createRigidArea(new Dimension(10, 0)));
 
@@ -557,7 +677,9 @@ public class MemberDashboard extends JFrame {
 		        "Logout Confirmation", JOptionPane.YES_NO_OPTION);
 
 		    if (option == JOptionPane.YES_OPTION) {
-		        // Close the database connection before disposing the dashboard
+		        // Stop background loads and close the database connection before disposing the dashboard
+		        DatabaseEventManager.getInstance().removeAllListeners(this);
+		        worker.dispose();
 		        DatabaseConnection.closeConnection();
 		        System.out.println("Connection closed during logout");
 		        
@@ -672,16 +794,20 @@ public class MemberDashboard extends JFrame {
 		statsPanel.add(myBooksCard);
 
 		// Content panels
-		JPanel contentPanel = new JPanel(new GridLayout(1, 2, 15, 0));
+		JPanel contentPanel = new JPanel(new GridLayout(1, 3, 15, 0));
 		contentPanel.setBackground(new Color(20, 20, 20));
 
 		// Popular books panel
 		JPanel popularBooksPanel = createContentPanel("Popular Books", createPopularBooksTable());
 
+		// Trending books panel
+		JPanel trendingBooksPanel = createContentPanel("Trending This Week", createTrendingBooksTable());
+
 		// Due returns panel
 		JPanel dueReturnsPanel = createContentPanel("Due Returns", createDueReturnsTable());
 
 		contentPanel.add(popularBooksPanel);
+		contentPanel.add(trendingBooksPanel);
 		contentPanel.add(dueReturnsPanel);
 
 		// Main layout assembly
@@ -751,6 +877,19 @@ public class MemberDashboard extends JFrame {
 	}
 
 	private JScrollPane createPopularBooksTable() {
+		popularBooksTable = createRankedBooksTable();
+		return createRankedBooksScrollPane(popularBooksTable);
+	}
+
+	private JScrollPane createTrendingBooksTable() {
+		trendingBooksTable = createRankedBooksTable();
+		return createRankedBooksScrollPane(trendingBooksTable);
+	}
+
+	/**
+	 * A table of books by rank (icon, title, author, count); double-click opens a book
+	 */
+	private JTable createRankedBooksTable() {
 		String[] columns = { "", "Title", "Author", "" };
 		DefaultTableModel model = new DefaultTableModel(columns, 0) {
 			@Override
@@ -759,21 +898,21 @@ public class MemberDashboard extends JFrame {
 			}
 		};
 
-		popularBooksTable = new JTable(model);
-		popularBooksTable.setBackground(new Color(35, 35, 35));
-		popularBooksTable.setForeground(Color.WHITE);
-		popularBooksTable.setIntercellSpacing(new Dimension(10, 5));
-		popularBooksTable.setRowHeight(50);
-		popularBooksTable.setShowGrid(false);
-		popularBooksTable.setDefaultEditor(Object.class, null); // Make cells non-editable
+		JTable table = new JTable(model);
+		table.setBackground(new Color(35, 35, 35));
+		table.setForeground(Color.WHITE);
+		table.setIntercellSpacing(new Dimension(10, 5));
+		table.setRowHeight(50);
+		table.setShowGrid(false);
+		table.setDefaultEditor(Object.class, null); // Make cells non-editable
 
-		popularBooksTable.addMouseListener(new MouseAdapter() {
+		table.addMouseListener(new MouseAdapter() {
 			@Override
 			public void mouseClicked(MouseEvent e) {
 				if (e.getClickCount() == 2) {
-					int row = popularBooksTable.getSelectedRow();
+					int row = table.getSelectedRow();
 					if (row >= 0) {
-						String title = (String) popularBooksTable.getValueAt(row, 1);
+						String title = (String) table.getValueAt(row, 1);
 						if (title != null && !title.isEmpty()) {
 							openBookDetails(title);
 						}
@@ -781,8 +920,11 @@ public class MemberDashboard extends JFrame {
 				}
 			}
 		});
+		return table;
+	}
 
-		JScrollPane scrollPane = new JScrollPane(popularBooksTable);
+	private JScrollPane createRankedBooksScrollPane(JTable table) {
+		JScrollPane scrollPane = new JScrollPane(table);
 		scrollPane.setBackground(new Color(35, 35, 35));
 		scrollPane.setBorder(BorderFactory.createEmptyBorder());
 		scrollPane.getViewport().setBackground(new Color(35, 35, 35));
@@ -894,11 +1036,39 @@ public class MemberDashboard extends JFrame {
 			}
 		});
 
-		// Add action listener for search
+		// Search as the user types
+		searchTimer = new javax.swing.Timer(SEARCH_DEBOUNCE_MS, e -> {
+			String searchText = searchField.getText();
+			if (searchText.equals("Search Books...")) {
+				searchText = "";
+			}
+			if (!searchText.trim().equals(lastBookSearch)) {
+				loadAllBooks(searchText.trim());
+			}
+		});
+		searchTimer.setRepeats(false);
+		searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+			@Override
+			public void insertUpdate(javax.swing.event.DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			@Override
+			public void removeUpdate(javax.swing.event.DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			@Override
+			public void changedUpdate(javax.swing.event.DocumentEvent e) {
+			}
+		});
+
+		// Enter searches right away
 		searchField.addActionListener(e -> {
 			String searchText = searchField.getText();
 			if (!searchText.equals("Search Books...")) {
-				loadAllBooks(searchText);
+				searchTimer.stop();
+				loadAllBooks(searchText.trim());
 			}
 		});
 
@@ -909,7 +1079,7 @@ public class MemberDashboard extends JFrame {
 		JLabel sortByLabel = new JLabel("Sort By:");
 		sortByLabel.setForeground(Color.WHITE);
 
-		sortByComboBox = new JComboBox<>(new String[]{"Title", "Author", "Year", "Genre"});
+		sortByComboBox = new JComboBox<>(new String[]{"Relevance", "Title", "Author", "Year", "Genre"});
 		sortByComboBox.setBackground(new Color(40, 40, 40));
 		sortByComboBox.setForeground(Color.WHITE);
 
@@ -918,25 +1088,80 @@ public class MemberDashboard extends JFrame {
 			if (searchText.equals("Search Books...")) {
 				searchText = "";
 			}
-			loadAllBooks(searchText);
+			loadAllBooks(searchText.trim());
 		});
 
 		sortByPanel.add(sortByLabel);
 		sortByPanel.add(sortByComboBox);
 
-		// Book results container
-		JPanel bookResultsPanel = new JPanel();
-		bookResultsPanel.setLayout(new BoxLayout(bookResultsPanel, BoxLayout.Y_AXIS));
-		bookResultsPanel.setBackground(new Color(30, 30, 30));
+		// Book results list; every row is drawn as a card by the same renderer
+		allBooksList = new JList<>(bookResultsModel);
+		allBooksList.setCellRenderer(new BookResultRenderer());
+		allBooksList.setBackground(new Color(30, 30, 30));
+		allBooksList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		// All rows are the same height, so the list never measures the ones out of view
+		allBooksList.setPrototypeCellValue(new Object[] { 0, "Title", "Author" });
+		allBooksList.putClientProperty("hoverIndex", -1);
 
-		JScrollPane resultsScrollPane = new JScrollPane(bookResultsPanel);
+		allBooksList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				int index = bookResultAt(e.getPoint());
+				if (index >= 0) {
+					Object[] book = bookResultsModel.getElementAt(index);
+					// Record book view
+					recordBookView((Integer) book[0], (String) book[1], (String) book[2]);
+					// Show book details
+					showBookDetails((Integer) book[0]);
+				}
+			}
+
+			@Override
+			public void mouseExited(MouseEvent e) {
+				setHoverIndex(-1);
+			}
+		});
+		allBooksList.addMouseMotionListener(new MouseMotionAdapter() {
+			@Override
+			public void mouseMoved(MouseEvent e) {
+				setHoverIndex(bookResultAt(e.getPoint()));
+			}
+		});
+
+		JScrollPane resultsScrollPane = new JScrollPane(allBooksList);
 		resultsScrollPane.setBorder(BorderFactory.createEmptyBorder());
 		resultsScrollPane.setBackground(new Color(30, 30, 30));
 		resultsScrollPane.getViewport().setBackground(new Color(30, 30, 30));
+		resultsScrollPane.getVerticalScrollBar().setUnitIncrement(16);
+
+		// "Did you mean" and "No books found" go above the list
+		suggestionLabel = new JLabel();
+		suggestionLabel.setForeground(new Color(100, 180, 255));
+		suggestionLabel.setFont(new Font("Arial", Font.ITALIC, 14));
+		suggestionLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+		suggestionLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
+		suggestionLabel.setVisible(false);
+		suggestionLabel.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				// Clicking the corrected spelling searches for exactly that
+				String suggestion = (String) suggestionLabel.getClientProperty("suggestion");
+				searchField.setText(suggestion);
+				searchField.setForeground(Color.WHITE);
+				searchTimer.stop();
+				loadAllBooks(suggestion);
+			}
+		});
 
-		// Dummy table just to hold the panel reference
-		allBooksTable = new JTable();
-		allBooksTable.putClientProperty("resultsPanel", bookResultsPanel);
+		noResultsLabel = new JLabel("No books found");
+		noResultsLabel.setForeground(Color.WHITE);
+		noResultsLabel.setFont(new Font("Arial", Font.ITALIC, 14));
+		noResultsLabel.setVisible(false);
+
+		JPanel resultsHeader = new JPanel(new BorderLayout());
+		resultsHeader.setBackground(new Color(30, 30, 30));
+		resultsHeader.add(suggestionLabel, BorderLayout.NORTH);
+		resultsHeader.add(noResultsLabel, BorderLayout.SOUTH);
 
 		// --- Sidebar Construction ---
 		JPanel searchSidebar1 = new JPanel();
@@ -958,6 +1183,7 @@ public class MemberDashboard extends JFrame {
 		resultListWrapper.setPreferredSize(new Dimension(250, 0));
 		resultListWrapper.setMaximumSize(new Dimension(250, Integer.MAX_VALUE));
 		resultListWrapper.setBackground(new Color(30, 30, 30));
+		resultListWrapper.add(resultsHeader, BorderLayout.NORTH);
 		resultListWrapper.add(resultsScrollPane, BorderLayout.CENTER);
 
 		searchSidebar1.add(resultListWrapper);
@@ -984,51 +1210,23 @@ public class MemberDashboard extends JFrame {
 	}
 
 
-	private JPanel createBookResultItem(int bookId, String title, String author) {
-		JPanel panel = new JPanel();
-		panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-		panel.setBackground(new Color(40, 40, 40));
-		panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-		panel.setMaximumSize(new Dimension(250, 70));
-		panel.putClientProperty("bookId", bookId);
-
-		JLabel titleLabel = new JLabel(title);
-		titleLabel.setForeground(Color.WHITE);
-		titleLabel.setFont(new Font("Arial", Font.BOLD, 14));
-		titleLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-		JLabel authorLabel = new JLabel(author);
-		authorLabel.setForeground(new Color(180, 180, 180));
-		authorLabel.setFont(new Font("Arial", Font.PLAIN, 12));
-		authorLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-		panel.add(titleLabel);
-		panel.add(Box.createRigidArea(new Dimension(0, 5)));
-		panel.add(authorLabel);
-
-		// Add click listener to show book details
-		panel.addMouseListener(new MouseAdapter() {
-			@Override
-			public void mouseClicked(MouseEvent e) {
-				// Record book view
-				recordBookView(bookId);
-				// Show book details
-				showBookDetails(bookId);
-			}
-
-			@Override
-			public void mouseEntered(MouseEvent e) {
-				panel.setBackground(new Color(50, 50, 50));
-				panel.setCursor(new Cursor(Cursor.HAND_CURSOR));
-			}
-
-			@Override
-			public void mouseExited(MouseEvent e) {
-				panel.setBackground(new Color(40, 40, 40));
-			}
-		});
+	/**
+	 * The result under a point in the list, or -1 if the point is below the last one
+	 */
+	private int bookResultAt(Point point) {
+		int index = allBooksList.locationToIndex(point);
+		if (index >= 0 && allBooksList.getCellBounds(index, index).contains(point)) {
+			return index;
+		}
+		return -1;
+	}
 
-		return panel;
+	private void setHoverIndex(int index) {
+		if (!Integer.valueOf(index).equals(allBooksList.getClientProperty("hoverIndex"))) {
+			allBooksList.putClientProperty("hoverIndex", index);
+			allBooksList.setCursor(new Cursor(index >= 0 ? Cursor.HAND_CURSOR : Cursor.DEFAULT_CURSOR));
+			allBooksList.repaint();
+		}
 	}
 
 	private JPanel createBookDetailsView(String title, String author) {
@@ -1310,6 +1508,73 @@ public class MemberDashboard extends JFrame {
 		return myBooksPanel;
 	}
 
+	/**
+	 * Search results as id, title, author rows, replaced all at once by each search
+	 */
+	private static class BookResultsModel extends AbstractListModel<Object[]> {
+		private List<Object[]> rows = new ArrayList<>();
+
+		void setRows(List<Object[]> newRows) {
+			int oldSize = rows.size();
+			rows = newRows;
+			if (oldSize > 0) {
+				fireIntervalRemoved(this, 0, oldSize - 1);
+			}
+			if (!rows.isEmpty()) {
+				fireIntervalAdded(this, 0, rows.size() - 1);
+			}
+		}
+
+		@Override
+		public int getSize() {
+			return rows.size();
+		}
+
+		@Override
+		public Object[] getElementAt(int index) {
+			return rows.get(index);
+		}
+	}
+
+	// Draws each search result as a card with the title over the author
+	private class BookResultRenderer extends JPanel implements ListCellRenderer<Object[]> {
+		private final JPanel card = new JPanel();
+		private final JLabel titleLabel = new JLabel();
+		private final JLabel authorLabel = new JLabel();
+
+		BookResultRenderer() {
+			setLayout(new BorderLayout());
+			setBackground(new Color(30, 30, 30));
+			setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0)); // Gap between cards
+
+			card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
+			card.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+			titleLabel.setForeground(Color.WHITE);
+			titleLabel.setFont(new Font("Arial", Font.BOLD, 14));
+			titleLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+			authorLabel.setForeground(new Color(180, 180, 180));
+			authorLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+			authorLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+			card.add(titleLabel);
+			card.add(Box.createRigidArea(new Dimension(0, 5)));
+			card.add(authorLabel);
+			add(card, BorderLayout.CENTER);
+		}
+
+		@Override
+		public Component getListCellRendererComponent(JList<? extends Object[]> list, Object[] book, int index,
+				boolean isSelected, boolean cellHasFocus) {
+			titleLabel.setText((String) book[1]);
+			authorLabel.setText((String) book[2]);
+			boolean hover = Integer.valueOf(index).equals(list.getClientProperty("hoverIndex"));
+			card.setBackground(hover ? new Color(50, 50, 50) : new Color(40, 40, 40));
+			return this;
+		}
+	}
+
 	// Custom renderer for status column in My Books table
 	private class StatusRenderer extends DefaultTableCellRenderer {
 		@Override
@@ -1362,16 +1627,23 @@ public class MemberDashboard extends JFrame {
 	}
 
 	// Database connection methods
-	private void loadUserInfo() {
-		try {
-			Connection conn = DatabaseSetup.getConnection();
+	private CompletableFuture<Void> loadUserInfo() {
+		return worker.load("userInfo", conn -> {
 			String query = "SELECT full_name FROM users WHERE username = ?";
 			PreparedStatement pstmt = conn.prepareStatement(query);
 			pstmt.setString(1, username);
 			ResultSet rs = pstmt.executeQuery();
 
+			String fullName = null;
 			if (rs.next()) {
-				String fullName = rs.getString("full_name");
+				fullName = rs.getString("full_name");
+			}
+
+			rs.close();
+			pstmt.close();
+			return fullName;
+		}, fullName -> {
+			if (fullName != null) {
 				userNameLabel.setText(fullName);
 
 				// Also update welcome message
@@ -1381,29 +1653,13 @@ public class MemberDashboard extends JFrame {
 				JLabel welcomeLabel = (JLabel) welcomePanel.getComponent(0);
 				welcomeLabel.setText("Welcome back, " + fullName + "!");
 			}
-
-			rs.close();
-			pstmt.close();
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+		});
 	}
 
-	private void loadStatistics() {
-		try {
-			Connection conn = DatabaseSetup.getConnection();
-
-			// Get total books count
-			String totalBooksQuery = "SELECT COUNT(*) AS total_books FROM books";
-			Statement totalStmt = conn.createStatement();
-			ResultSet totalRs = totalStmt.executeQuery(totalBooksQuery);
-
-			int totalBooks = 0;
-			if (totalRs.next()) {
-				totalBooks = totalRs.getInt("total_books");
-			}
-			totalRs.close();
-			totalStmt.close();
+	private CompletableFuture<Void> loadStatistics() {
+		return worker.load("statistics", conn -> {
+			// Get total books count from the maintained counters
+			int totalBooks = LibraryStats.getInstance().read(conn).getTotalBooks();
 
 			// Get borrowed books count
 			String borrowedQuery = "SELECT COUNT(*) AS borrowed_books FROM borrowed_books "
@@ -1419,7 +1675,12 @@ public class MemberDashboard extends JFrame {
 			borrowedRs.close();
 			borrowedStmt.close();
 
-			// Get last viewed book - as a separate query without using LIMIT in a subquery
+			// Get last viewed book, from this session's views if there are any (the latest
+			// ones may not be written yet)
+			BookViewRecorder.View lastView = BookViewRecorder.getInstance().latest(username);
+			if (lastView != null) {
+				return new Object[] { totalBooks, borrowedBooks, lastView.title(), lastView.author() };
+			}
 			String viewQuery = "SELECT b.title, b.author FROM book_views v " + "JOIN books b ON v.book_id = b.id "
 					+ "WHERE v.username = ? " + "ORDER BY v.view_date DESC LIMIT 1";
 			PreparedStatement viewStmt = conn.prepareStatement(viewQuery);
@@ -1435,6 +1696,13 @@ public class MemberDashboard extends JFrame {
 			viewRs.close();
 			viewStmt.close();
 
+			return new Object[] { totalBooks, borrowedBooks, lastViewedBook, lastViewedAuthor };
+		}, stats -> {
+			int totalBooks = (Integer) stats[0];
+			int borrowedBooks = (Integer) stats[1];
+			String lastViewedBook = (String) stats[2];
+			String lastViewedAuthor = (String) stats[3];
+
 			// Update UI with statistics
 			Component[] components = ((JPanel) ((JPanel) ((JPanel) mainContentPanel.getComponent(0)).getComponent(0))
 					.getComponent(2)).getComponents();
@@ -1450,66 +1718,112 @@ public class MemberDashboard extends JFrame {
 			borrowedBooksValue.setText(String.valueOf(borrowedBooks));
 
 			// Recently viewed card (3rd card)
-			JPanel recentlyViewedCard = (JPanel) components[2];
-			JLabel recentlyViewedValue = (JLabel) recentlyViewedCard.getComponent(2);
-			JLabel recentlyViewedSubtitle = (JLabel) recentlyViewedCard.getComponent(4);
-
-			if (lastViewedBook != null) {
-				recentlyViewedValue.setText(lastViewedBook);
-				recentlyViewedSubtitle.setText(lastViewedAuthor);
-			} else {
-				recentlyViewedValue.setText("None yet");
-				recentlyViewedSubtitle.setText("");
-			}
+			showRecentlyViewed(lastViewedBook, lastViewedAuthor);
 
 			// My books card (4th card)
 			JPanel myBooksCard = (JPanel) components[3];
 			JLabel myBooksValue = (JLabel) myBooksCard.getComponent(2);
 			myBooksValue.setText(String.valueOf(borrowedBooks));
-		} catch (SQLException e) {
-			e.printStackTrace();
+		});
+	}
+
+	private void showRecentlyViewed(String title, String author) {
+		Component[] components = ((JPanel) ((JPanel) ((JPanel) mainContentPanel.getComponent(0)).getComponent(0))
+				.getComponent(2)).getComponents();
+		JPanel recentlyViewedCard = (JPanel) components[2];
+		JLabel recentlyViewedValue = (JLabel) recentlyViewedCard.getComponent(2);
+		JLabel recentlyViewedSubtitle = (JLabel) recentlyViewedCard.getComponent(4);
+
+		if (title != null) {
+			recentlyViewedValue.setText(title);
+			recentlyViewedSubtitle.setText(author != null ? author : "");
+		} else {
+			recentlyViewedValue.setText("None yet");
+			recentlyViewedSubtitle.setText("");
 		}
 	}
 
-	private void loadPopularBooks() {
-		try {
-			Connection conn = DatabaseSetup.getConnection();
-			String query = "SELECT b.id, b.title, b.author, COUNT(bb.book_id) as borrow_count " + "FROM books b "
-					+ "LEFT JOIN borrowed_books bb ON b.id = bb.book_id " + "GROUP BY b.id "
+	private CompletableFuture<Void> loadPopularBooks() {
+		return worker.load("popularBooks", conn -> {
+			// Borrow counts are kept on the title rows, so this reads the top of their index
+			String query = "SELECT id, title, author, borrow_count FROM titles "
 					+ "ORDER BY borrow_count DESC " + "LIMIT 3";
 
 			Statement stmt = conn.createStatement();
 			ResultSet rs = stmt.executeQuery(query);
 
-			// Clear existing data
-			DefaultTableModel model = (DefaultTableModel) popularBooksTable.getModel();
-			model.setRowCount(0);
-
-			// Add data to table
+			List<Object[]> rows = new ArrayList<>();
 			while (rs.next()) {
-				int id = rs.getInt("id");
 				String title = rs.getString("title");
 				String author = rs.getString("author");
 				int borrowCount = rs.getInt("borrow_count");
 
-				model.addRow(new Object[] { "📚", title, author, "(" + borrowCount + " Borrows)" });
+				rows.add(new Object[] { "📚", title, author, "(" + borrowCount + " Borrows)" });
 			}
 
 			// Fill remaining rows if needed
-			while (model.getRowCount() < 3) {
-				model.addRow(new Object[] { "", "", "", "" });
+			while (rows.size() < 3) {
+				rows.add(new Object[] { "", "", "", "" });
 			}
 
 			rs.close();
 			stmt.close();
-		} catch (SQLException e) {
-			e.printStackTrace();
+			return rows;
+		}, DatabaseWorker.rowsInto((DefaultTableModel) popularBooksTable.getModel()));
+	}
+
+	private CompletableFuture<Void> loadTrendingBooks() {
+		return worker.load("trendingBooks", conn -> {
+			List<TrendingBooks.Trend> trends = TrendingBooks.getInstance().top(3);
+
+			// Only the current names and authors come from the database (by title id)
+			Map<Integer, String[]> details = new HashMap<>();
+			if (!trends.isEmpty()) {
+				PreparedStatement stmt = conn.prepareStatement("SELECT id, title, author FROM titles WHERE id IN ("
+						+ ChangeTracker.placeholders(trends.size()) + ")");
+				for (int i = 0; i < trends.size(); i++) {
+					stmt.setInt(i + 1, trends.get(i).titleId());
+				}
+				ResultSet rs = stmt.executeQuery();
+				while (rs.next()) {
+					details.put(rs.getInt("id"), new String[] { rs.getString("title"), rs.getString("author") });
+				}
+				rs.close();
+				stmt.close();
+			}
+
+			List<Object[]> rows = new ArrayList<>();
+			for (TrendingBooks.Trend trend : trends) {
+				String[] title = details.getOrDefault(trend.titleId(), new String[] { trend.title(), "" });
+				rows.add(new Object[] { "🔥", title[0], title[1], trendLabel(trend) });
+			}
+
+			// Fill remaining rows if needed
+			while (rows.size() < 3) {
+				rows.add(new Object[] { "", "", "", "" });
+			}
+			return rows;
+		}, DatabaseWorker.rowsInto((DefaultTableModel) trendingBooksTable.getModel()));
+	}
+
+	/**
+	 * "(12 views, 3 borrows)" from a title's decayed counts
+	 */
+	private static String trendLabel(TrendingBooks.Trend trend) {
+		long views = Math.round(trend.views());
+		long borrows = Math.round(trend.borrows());
+		List<String> parts = new ArrayList<>();
+		if (views > 0) {
+			parts.add(views + (views == 1 ? " view" : " views"));
 		}
+		if (borrows > 0) {
+			parts.add(borrows + (borrows == 1 ? " borrow" : " borrows"));
+		}
+		return parts.isEmpty() ? "" : "(" + String.join(", ", parts) + ")";
 	}
 
-	private void loadDueReturns() {
-		try {
-			Connection conn = DatabaseSetup.getConnection();
+	private CompletableFuture<Void> loadDueReturns() {
+		return worker.load("dueReturns", conn -> {
 			String query = "SELECT b.id, b.title, bb.due_date " + "FROM borrowed_books bb "
 					+ "JOIN books b ON bb.book_id = b.id " + "WHERE bb.username = ? AND bb.return_date IS NULL "
 					+ "ORDER BY bb.due_date ASC " + "LIMIT 3";
@@ -1518,17 +1832,12 @@ public class MemberDashboard extends JFrame {
 			pstmt.setString(1, username);
 			ResultSet rs = pstmt.executeQuery();
 
-			// Clear existing data
-			DefaultTableModel model = (DefaultTableModel) dueReturnsTable.getModel();
-			model.setRowCount(0);
-
 			// Current date for comparison
 			LocalDate currentDate = LocalDate.now();
 			DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
 
-			// Add data to table
+			List<Object[]> rows = new ArrayList<>();
 			while (rs.next()) {
-				int id = rs.getInt("id");
 				String title = rs.getString("title");
 				Date dueDate = rs.getDate("due_date");
 				LocalDate dueDateLocal = ((java.sql.Date) dueDate).toLocalDate();
@@ -1549,106 +1858,108 @@ public class MemberDashboard extends JFrame {
 					timeDisplay = "❗";
 				}
 
-				model.addRow(new Object[] { "📚", title, dueDateDisplay, timeDisplay });
+				rows.add(new Object[] { "📚", title, dueDateDisplay, timeDisplay });
 			}
 
 			// Fill remaining rows if needed
-			while (model.getRowCount() < 3) {
-				model.addRow(new Object[] { "", "", "", "" });
+			while (rows.size() < 3) {
+				rows.add(new Object[] { "", "", "", "" });
 			}
 
 			rs.close();
 			pstmt.close();
-		} catch (SQLException e) {
-			e.printStackTrace();
+			return rows;
+		}, DatabaseWorker.rowsInto((DefaultTableModel) dueReturnsTable.getModel()));
+	}
+
+	/**
+	 * Order search hits the way the books query would sort them
+	 */
+	private static Comparator<CatalogIndex.Hit> hitOrder(String sortBy) {
+		Comparator<String> text = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+		switch (sortBy) {
+		case "Author":
+			return Comparator.comparing(CatalogIndex.Hit::getAuthor, text);
+		case "Year":
+			return Comparator.comparingInt(CatalogIndex.Hit::getYear).reversed();
+		case "Genre":
+			return Comparator.comparing(CatalogIndex.Hit::getGenre, text);
+		default:
+			return Comparator.comparing(CatalogIndex.Hit::getTitle, text);
 		}
 	}
 
-	private void loadAllBooks(String searchQuery) {
-		try {
-			Connection conn = DatabaseSetup.getConnection();
+	/**
+	 * Books for the results panel, and a corrected query to offer if the search had misspellings
+	 */
+	private record BookResults(List<Object[]> books, String suggestion) {
+	}
 
-			// Get the sort column
-			String sortBy = (String) sortByComboBox.getSelectedItem();
-			String sortColumn;
-			switch (sortBy) {
-			case "Author":
-				sortColumn = "author";
-				break;
-			case "Year":
-				sortColumn = "year DESC";
-				break;
-			case "Genre":
-				sortColumn = "genre";
-				break;
-			default:
-				sortColumn = "title";
-				break;
-			}
+	private CompletableFuture<Void> loadAllBooks(String searchQuery) {
+		lastBookSearch = searchQuery;
+
+		// Get the sort column
+		String sortBy = (String) sortByComboBox.getSelectedItem();
+		String sortColumn;
+		switch (sortBy) {
+		case "Author":
+			sortColumn = "author";
+			break;
+		case "Year":
+			sortColumn = "year DESC";
+			break;
+		case "Genre":
+			sortColumn = "genre";
+			break;
+		default:
+			sortColumn = "title";
+			break;
+		}
 
-			// Create query
-			String query = "SELECT id, title, author FROM books";
+		return worker.load("allBooks", conn -> {
+			List<Object[]> books = new ArrayList<>();
 
-			// Add search condition if provided
+			// Searches are answered by the catalog index, best match first unless another order was picked.
+			// Misspelt words are matched to the closest title and author words.
 			if (searchQuery != null && !searchQuery.isEmpty()) {
-				query += " WHERE title LIKE ? OR author LIKE ? OR genre LIKE ?";
+				CatalogIndex index = CatalogIndex.getInstance();
+				List<CatalogIndex.Hit> hits = index.search(conn, searchQuery, 0);
+				if (!"Relevance".equals(sortBy)) {
+					hits.sort(hitOrder(sortBy));
+				}
+				for (CatalogIndex.Hit hit : hits) {
+					for (int id : hit.getCopyIds()) {
+						books.add(new Object[] { id, hit.getTitle(), hit.getAuthor() });
+					}
+				}
+				return new BookResults(books, index.suggest(conn, searchQuery));
 			}
 
-			// Add sorting
-			query += " ORDER BY " + sortColumn;
-
+			String query = "SELECT id, title, author FROM books ORDER BY " + sortColumn;
 			PreparedStatement pstmt = conn.prepareStatement(query);
-
-			// Set search parameters if needed
-			if (searchQuery != null && !searchQuery.isEmpty()) {
-				String searchPattern = "%" + searchQuery + "%";
-				pstmt.setString(1, searchPattern);
-				pstmt.setString(2, searchPattern);
-				pstmt.setString(3, searchPattern);
-			}
-
 			ResultSet rs = pstmt.executeQuery();
 
-			// Get the results panel
-			JPanel resultsPanel = (JPanel) allBooksTable.getClientProperty("resultsPanel");
-			resultsPanel.removeAll();
-
-			// Add books to the panel
-			boolean hasResults = false;
 			while (rs.next()) {
-				hasResults = true;
-				int bookId = rs.getInt("id");
-				String title = rs.getString("title");
-				String author = rs.getString("author");
-
-				JPanel bookItem = createBookResultItem(bookId, title, author);
-				resultsPanel.add(bookItem);
-				resultsPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-			}
-
-			// Show a message if no results
-			if (!hasResults) {
-				JLabel noResultsLabel = new JLabel("No books found");
-				noResultsLabel.setForeground(Color.WHITE);
-				noResultsLabel.setFont(new Font("Arial", Font.ITALIC, 14));
-				noResultsLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-				resultsPanel.add(noResultsLabel);
+				books.add(new Object[] { rs.getInt("id"), rs.getString("title"), rs.getString("author") });
 			}
 
-			// Update UI
-			resultsPanel.revalidate();
-			resultsPanel.repaint();
-
 			rs.close();
 			pstmt.close();
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+			return new BookResults(books, null);
+		}, results -> {
+			suggestionLabel.putClientProperty("suggestion", results.suggestion());
+			suggestionLabel.setText("Did you mean: " + results.suggestion() + "?");
+			suggestionLabel.setVisible(results.suggestion() != null);
+
+			// Show a message if no results
+			noResultsLabel.setVisible(results.books().isEmpty());
+
+			bookResultsModel.setRows(results.books());
+		});
 	}
 
-	private void loadMyBorrowedBooks() {
-		try {
-			Connection conn = DatabaseSetup.getConnection();
+	private CompletableFuture<Void> loadMyBorrowedBooks() {
+		return worker.load("myBorrowedBooks", conn -> {
 			String query = "SELECT b.id, b.title, b.author, bb.borrow_date, bb.due_date, "
 					+ "CASE WHEN bb.due_date < CURRENT_DATE THEN 'Overdue' ELSE 'On time' END AS status "
 					+ "FROM borrowed_books bb " + "JOIN books b ON bb.book_id = b.id "
@@ -1658,14 +1969,10 @@ public class MemberDashboard extends JFrame {
 			pstmt.setString(1, username);
 			ResultSet rs = pstmt.executeQuery();
 
-			// Clear existing data
-			DefaultTableModel model = (DefaultTableModel) myBooksTable.getModel();
-			model.setRowCount(0);
-
 			// Format for dates
 			DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM d, yyyy");
 
-			// Add data to table
+			List<Object[]> rows = new ArrayList<>();
 			while (rs.next()) {
 				int id = rs.getInt("id");
 				String title = rs.getString("title");
@@ -1677,9 +1984,16 @@ public class MemberDashboard extends JFrame {
 				String borrowDateStr = ((java.sql.Date) borrowDate).toLocalDate().format(formatter);
 				String dueDateStr = ((java.sql.Date) dueDate).toLocalDate().format(formatter);
 
-				model.addRow(new Object[] { title, author, borrowDateStr, dueDateStr, status, id });
+				rows.add(new Object[] { title, author, borrowDateStr, dueDateStr, status, id });
 			}
 
+			rs.close();
+			pstmt.close();
+			return rows;
+		}, rows -> {
+			DefaultTableModel model = (DefaultTableModel) myBooksTable.getModel();
+			DatabaseWorker.rowsInto(model).accept(rows);
+
 			// If no borrowed books, add a message row
 			if (model.getRowCount() == 0) {
 				model.addRow(new Object[] { "No books borrowed", "", "", "", "", null });
@@ -1689,35 +2003,21 @@ public class MemberDashboard extends JFrame {
 			if (myBooksTable.getColumnCount() > 5) {
 				myBooksTable.getColumnModel().removeColumn(myBooksTable.getColumnModel().getColumn(5));
 			}
-
-			rs.close();
-			pstmt.close();
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+		});
 	}
 
-	private void recordBookView(int bookId) {
-		try {
-			Connection conn = DatabaseSetup.getConnection();
-			String query = "INSERT INTO book_views (book_id, username, view_date) VALUES (?, ?, NOW())";
-			PreparedStatement pstmt = conn.prepareStatement(query);
-			pstmt.setInt(1, bookId);
-			pstmt.setString(2, username);
-			pstmt.executeUpdate();
-			pstmt.close();
+	private void recordBookView(int bookId, String title, String author) {
+		// Queued, written and announced in the background; repeat views of the same book are dropped
+		BookViewRecorder.getInstance().record(bookId, title, author, username);
 
-			// Refresh statistics after viewing
-			loadStatistics();
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
+		// Only the recently viewed card changes, so no statistics reload
+		showRecentlyViewed(title, author);
 	}
 
 	private void openBookDetails(String title) {
 		try {
 			Connection conn = DatabaseSetup.getConnection();
-			String query = "SELECT id FROM books WHERE title = ?";
+			String query = "SELECT id, author FROM books WHERE title = ?";
 			PreparedStatement pstmt = conn.prepareStatement(query);
 			pstmt.setString(1, title);
 			ResultSet rs = pstmt.executeQuery();
@@ -1726,7 +2026,7 @@ public class MemberDashboard extends JFrame {
 				int bookId = rs.getInt("id");
 
 				// Record view in database
-				recordBookView(bookId);
+				recordBookView(bookId, title, rs.getString("author"));
 
 				// Switch to Books panel and show details
 				cardLayout.show(mainContentPanel, "Books");
@@ -1770,70 +2070,37 @@ public class MemberDashboard extends JFrame {
 	}
 
 	private void checkoutBook(int bookId) {
+	    int option = JOptionPane.showConfirmDialog(this,
+	            "Checkout this book? Due date will be 14 days from today.", "Confirm Checkout",
+	            JOptionPane.YES_NO_OPTION);
+	    if (option != JOptionPane.YES_OPTION) {
+	        return;
+	    }
+
 	    try {
 	        Connection conn = DatabaseSetup.getConnection();
 
-	        // Check if book is available
-	        String checkQuery = "SELECT available FROM books WHERE id = ?";
-	        PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
-	        checkStmt.setInt(1, bookId);
-	        ResultSet rs = checkStmt.executeQuery();
-
-	        if (rs.next() && rs.getBoolean("available")) {
-	            // Book is available, confirm checkout
-	            int option = JOptionPane.showConfirmDialog(this,
-	                    "Checkout this book? Due date will be 14 days from today.", "Confirm Checkout",
-	                    JOptionPane.YES_NO_OPTION);
-
-	            if (option == JOptionPane.YES_OPTION) {
-	                // Start transaction
-	                conn.setAutoCommit(false);
-
-	                // Update book status to unavailable
-	                String updateBookQuery = "UPDATE books SET available = 0 WHERE id = ?";
-	                PreparedStatement updateBookStmt = conn.prepareStatement(updateBookQuery);
-	                updateBookStmt.setInt(1, bookId);
-	                updateBookStmt.executeUpdate();
-
-	                // Create borrow record
-	                String borrowQuery = "INSERT INTO borrowed_books (book_id, username, borrow_date, due_date) "
-	                        + "VALUES (?, ?, CURRENT_DATE(), DATE_ADD(CURRENT_DATE(), INTERVAL 14 DAY))";
-	                PreparedStatement borrowStmt = conn.prepareStatement(borrowQuery);
-	                borrowStmt.setInt(1, bookId);
-	                borrowStmt.setString(2, username);
-	                borrowStmt.executeUpdate();
-
-	                conn.commit(); // Commit transaction
-
-	                // Fire event to notify other components
-	                Map<String, Object> eventData = new HashMap<>();
-	                eventData.put("bookId", bookId);
-	                eventData.put("username", username);
-	                eventData.put("action", "checkout");
-	                DatabaseEventManager.getInstance().fireEvent(DatabaseEventManager.EVENT_BOOK_CHECKOUT, eventData);
-	                DatabaseEventManager.getInstance().fireEvent(DatabaseEventManager.EVENT_DATA_CHANGED, null);
-
-	                JOptionPane.showMessageDialog(this, "Book checked out successfully!", "Success",
-	                        JOptionPane.INFORMATION_MESSAGE);
+	        // Claims the copy only if it is still available, and records the loan with it
+	        CirculationService.Checkout checkout = CirculationService.checkOutCopy(conn, bookId, username, null);
 
-	                // Refresh the data
-	                loadStatistics();
-	                loadDueReturns();
-	                loadMyBorrowedBooks();
+	        if (checkout.outcome() == CirculationService.Outcome.CHECKED_OUT) {
+	            // Fire event to notify other components
+	            DatabaseEventManager.getInstance().fireEvent(new CheckoutEvent(bookId, checkout.title(), username));
 
-	                // Refresh book details
-	                showBookDetails(bookId);
+	            JOptionPane.showMessageDialog(this, "Book checked out successfully!", "Success",
+	                    JOptionPane.INFORMATION_MESSAGE);
 
-	                updateBookStmt.close();
-	                borrowStmt.close();
-	            }
+	            // Refresh the data
+	            loadStatistics();
+	            loadDueReturns();
+	            loadMyBorrowedBooks();
 	        } else {
 	            JOptionPane.showMessageDialog(this, "This book is no longer available.", "Error",
 	                    JOptionPane.ERROR_MESSAGE);
 	        }
 
-	        rs.close();
-	        checkStmt.close();
+	        // Refresh book details
+	        showBookDetails(bookId);
 
 	    } catch (SQLException e) {
 	        e.printStackTrace();
@@ -1900,7 +2167,7 @@ public class MemberDashboard extends JFrame {
 				conn.setAutoCommit(false);
 
 				// Update book status to available
-				String updateBookQuery = "UPDATE books SET available = 1 WHERE id = ?";
+				String updateBookQuery = "UPDATE copies SET available = 1 WHERE id = ?";
 				PreparedStatement updateBookStmt = conn.prepareStatement(updateBookQuery);
 				updateBookStmt.setInt(1, bookId);
 				updateBookStmt.executeUpdate();
@@ -1917,12 +2184,7 @@ public class MemberDashboard extends JFrame {
 					conn.commit(); // Commit transaction
 
 					// Fire event to notify other components
-					Map<String, Object> eventData = new HashMap<>();
-					eventData.put("bookId", bookId);
-					eventData.put("username", username);
-					eventData.put("action", "return");
-					DatabaseEventManager.getInstance().fireEvent(DatabaseEventManager.EVENT_BOOK_RETURN, eventData);
-					DatabaseEventManager.getInstance().fireEvent(DatabaseEventManager.EVENT_DATA_CHANGED, null);
+					DatabaseEventManager.getInstance().fireEvent(new ReturnEvent(bookId, getBookTitle(conn, bookId), username));
 
 					JOptionPane.showMessageDialog(this, "Book returned successfully!", "Success",
 							JOptionPane.INFORMATION_MESSAGE);
@@ -2021,13 +2283,26 @@ public class MemberDashboard extends JFrame {
 		}
 	}
 
+	/**
+	 * Look up a book's title for an event
+	 */
+	private String getBookTitle(Connection conn, int bookId) throws SQLException {
+		PreparedStatement stmt = conn.prepareStatement("SELECT title FROM books WHERE id = ?");
+		stmt.setInt(1, bookId);
+		ResultSet rs = stmt.executeQuery();
+		String title = rs.next() ? rs.getString("title") : null;
+		rs.close();
+		stmt.close();
+		return title;
+	}
+
 	private void renewBook(int bookId) {
 	    try {
 	        Connection conn = DatabaseSetup.getConnection();
 
 	        // Check if book is eligible for renewal (not overdue)
-	        String checkQuery = "SELECT due_date FROM borrowed_books "
-	                + "WHERE book_id = ? AND username = ? AND return_date IS NULL";
+	        String checkQuery = "SELECT bb.due_date, b.title FROM borrowed_books bb JOIN books b ON bb.book_id = b.id "
+	                + "WHERE bb.book_id = ? AND bb.username = ? AND bb.return_date IS NULL";
 	        PreparedStatement checkStmt = conn.prepareStatement(checkQuery);
 	        checkStmt.setInt(1, bookId);
 	        checkStmt.setString(2, username);
@@ -2035,6 +2310,7 @@ public class MemberDashboard extends JFrame {
 
 	        if (rs.next()) {
 	            Date dueDate = rs.getDate("due_date");
+	            String title = rs.getString("title");
 	            Date currentDate = new Date(System.currentTimeMillis());
 
 	            if (dueDate.before(currentDate)) {
@@ -2057,12 +2333,7 @@ public class MemberDashboard extends JFrame {
 
 	                    if (rowsAffected > 0) {
 	                        // Fire event to notify other components
-	                        Map<String, Object> eventData = new HashMap<>();
-	                        eventData.put("bookId", bookId);
-	                        eventData.put("username", username);
-	                        eventData.put("action", "renew");
-	                        DatabaseEventManager.getInstance().fireEvent(DatabaseEventManager.EVENT_BOOK_RENEWAL, eventData);
-	                        DatabaseEventManager.getInstance().fireEvent(DatabaseEventManager.EVENT_DATA_CHANGED, null);
+	                        DatabaseEventManager.getInstance().fireEvent(new RenewalEvent(bookId, title, username));
 	                        
 	                        JOptionPane.showMessageDialog(this, "Book renewed successfully for 14 more days!",
 	                                "Success", JOptionPane.INFORMATION_MESSAGE);
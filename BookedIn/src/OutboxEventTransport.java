@@ -0,0 +1,211 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * OutboxEventTransport - Shares events between workstations through the event_outbox table.
+ *
+ * Published events are inserted into event_outbox, whose auto increment seq numbers them.
+ * A row holds the event's type and its record fields as "name=value" pairs.
+ * Every instance polls the table for rows above its watermark (the highest seq it has
+ * handled with nothing missing below it) and delivers the rows written by other instances.
+ * The watermark only moves after a row has been delivered, so an event is delivered at
+ * least once; listeners already treat events as hints to refresh, so a repeat is harmless.
+ *
+ * Inserts that commit out of order leave a short gap below rows that are already visible.
+ * Rows above the watermark are remembered until the gap fills, and a gap still open after
+ * GAP_TIMEOUT_MS is taken to be a rolled back insert and skipped.
+ */
+public class OutboxEventTransport implements EventTransport {
+
+    // How often the outbox is polled for events from other instances
+    private static final long POLL_INTERVAL_MS = 500;
+
+    // Rows read per poll
+    private static final int BATCH_SIZE = 500;
+
+    // A missing seq below a visible row is given this long to commit
+    private static final long GAP_TIMEOUT_MS = 10000;
+
+    // Rows older than this are removed from the outbox
+    private static final int RETENTION_HOURS = 24;
+    private static final long PRUNE_INTERVAL_MS = 10 * 60 * 1000;
+
+    // Identifies this instance's rows so they are not delivered back to it
+    private final String origin = UUID.randomUUID().toString();
+
+    // Events waiting to be inserted (kept until the insert succeeds)
+    private final Queue<String[]> pending = new ConcurrentLinkedQueue<>();
+
+    // Only touched on the outbox thread
+    private long watermark = -1;
+    private final TreeSet<Long> delivered = new TreeSet<>();
+    private long gapSince = 0;
+    private long lastPrune = 0;
+    private boolean failing = false;
+
+    private ScheduledExecutorService executor;
+    private Consumer<LibraryEvent> receiver;
+
+    @Override
+    public synchronized void start(Consumer<LibraryEvent> receiver) {
+        if (executor != null) {
+            return;
+        }
+        this.receiver = receiver;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "BookedIn-event-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::tick, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void publish(LibraryEvent event) {
+        pending.add(new String[] { event.type().name(), EventCodec.encode(event) });
+        if (executor != null) {
+            // Insert right away rather than on the next poll
+            executor.execute(this::flush);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private void tick() {
+        try (Connection conn = DatabaseConnection.borrowConnection()) {
+            insertPending(conn);
+            poll(conn);
+            prune(conn);
+            if (failing) {
+                System.out.println("Event outbox reachable again");
+                failing = false;
+            }
+        } catch (SQLException e) {
+            // Keep polling; the database may come back
+            if (!failing) {
+                System.err.println("Error polling event outbox: " + e.getMessage());
+                failing = true;
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try (Connection conn = DatabaseConnection.borrowConnection()) {
+            insertPending(conn);
+        } catch (SQLException e) {
+            // Left in the queue, the next poll tries again
+            System.err.println("Error publishing event: " + e.getMessage());
+        }
+    }
+
+    private void insertPending(Connection conn) throws SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO event_outbox (origin, event_type, payload) VALUES (?, ?, ?)");
+        try {
+            String[] event;
+            while ((event = pending.peek()) != null) {
+                stmt.setString(1, origin);
+                stmt.setString(2, event[0]);
+                stmt.setString(3, event[1]);
+                stmt.executeUpdate();
+                pending.poll();
+            }
+        } finally {
+            stmt.close();
+        }
+    }
+
+    private void poll(Connection conn) throws SQLException {
+        if (watermark < 0) {
+            // Start from the current end; earlier events are already reflected in the data
+            Statement stmt = conn.createStatement();
+            ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(seq), 0) FROM event_outbox");
+            watermark = rs.next() ? rs.getLong(1) : 0;
+            rs.close();
+            stmt.close();
+            return;
+        }
+
+        PreparedStatement stmt = conn.prepareStatement(
+                "SELECT seq, origin, event_type, payload FROM event_outbox WHERE seq > ? ORDER BY seq LIMIT ?");
+        stmt.setLong(1, watermark);
+        stmt.setInt(2, BATCH_SIZE);
+        ResultSet rs = stmt.executeQuery();
+
+        while (rs.next()) {
+            long seq = rs.getLong("seq");
+            if (delivered.contains(seq)) {
+                continue;
+            }
+            if (!origin.equals(rs.getString("origin"))) {
+                LibraryEvent event = EventCodec.decode(rs.getString("event_type"), rs.getString("payload"));
+                if (event != null) {
+                    receiver.accept(event);
+                }
+            }
+            delivered.add(seq);
+        }
+        rs.close();
+        stmt.close();
+
+        advanceWatermark();
+    }
+
+    private void advanceWatermark() {
+        while (!delivered.isEmpty()) {
+            if (delivered.first() == watermark + 1) {
+                watermark = delivered.pollFirst();
+                gapSince = 0;
+            } else if (gapSince == 0) {
+                gapSince = System.currentTimeMillis();
+                return;
+            } else if (System.currentTimeMillis() - gapSince > GAP_TIMEOUT_MS) {
+                // The missing rows were never committed
+                watermark = delivered.first() - 1;
+                gapSince = 0;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void prune(Connection conn) throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPrune < PRUNE_INTERVAL_MS) {
+            return;
+        }
+        lastPrune = now;
+        Statement stmt = conn.createStatement();
+        stmt.executeUpdate("DELETE FROM event_outbox WHERE created_at < NOW() - INTERVAL "
+                + RETENTION_HOURS + " HOUR");
+        stmt.close();
+
+        // The change log is trimmed on the same schedule
+        ChangeTracker.prune(conn);
+    }
+}
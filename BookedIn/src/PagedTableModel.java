@@ -0,0 +1,438 @@
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableColumn;
+
+/**
+ * PagedTableModel - A table model that reads its rows from the database a page at a time.
+ *
+ * Rows are fetched only when the table asks for them (i.e. when they scroll into view),
+ * PAGE_SIZE at a time, and the most recently used MAX_PAGES pages are kept. Pages are read
+ * by keyset: each one starts after the sort key of the last row of the page before
+ * ("WHERE title > ? ORDER BY title LIMIT n"), so scrolling costs the same deep in the table
+ * as at the top. The last key of every page read is remembered; a page further on than
+ * any remembered key (the scrollbar was dragged) starts from the nearest one and skips the
+ * pages between with OFFSET. A reload counts the matching rows and re-reads the pages in
+ * view, nothing else. Sort keys should be plain indexed columns so both can use an index.
+ *
+ * Rows not loaded yet show as empty cells until their page arrives. Clicking a column header
+ * (see installSortHeader) sorts on the server and reloads.
+ */
+public class PagedTableModel extends AbstractTableModel {
+
+    /**
+     * Adds the WHERE conditions of the current filter, run on the worker thread
+     */
+    public interface Filter {
+        /**
+         * @param params Receives the values of the condition's placeholders
+         * @return The conditions, or null for every row
+         */
+        String conditions(Connection conn, List<Object> params) throws SQLException;
+    }
+
+    /**
+     * Converts the current result set row into a table row
+     */
+    public interface RowReader {
+        Object[] read(ResultSet rs) throws SQLException;
+    }
+
+    // Rows read per query
+    private static final int PAGE_SIZE = 100;
+
+    // Pages kept in memory, least recently used dropped first
+    private static final int MAX_PAGES = 20;
+
+    // Recently used pages re-read by a reload so the visible rows do not blank out
+    private static final int RELOADED_PAGES = 3;
+
+    private final DatabaseWorker worker;
+    private final String name;
+    private final String[] columns;
+    private final int editableColumn;
+    private final String select;
+    private final String from;
+    private final String rowKey;
+    private final RowReader reader;
+    private final String[] sortKeys;
+    private ChangeTracker changeTracker;
+    private Consumer<SQLException> onReloadError = Throwable::printStackTrace;
+
+    // Current query
+    private Filter filter;
+    private int sortColumn;
+    private boolean ascending = true;
+
+    // Loaded state (only touched on the EDT); generation tells results of an old query apart,
+    // loadedGeneration is the one whose rows are showing
+    private long generation = 0;
+    private long loadedGeneration = 0;
+    private String conditions;
+    private List<Object> params = new ArrayList<>();
+    private int rowCount = 0;
+    private boolean restart = true;
+    private TreeMap<Integer, Object[]> pageEnds = new TreeMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private final Map<Integer, List<Object[]>> pages = new LinkedHashMap<Integer, List<Object[]>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    /**
+     * @param worker         Runs the queries
+     * @param name           Prefix of the worker's load keys
+     * @param columns        Column names
+     * @param editableColumn The one editable column (e.g. action buttons), or -1
+     * @param select         Select list, read by reader
+     * @param from           FROM clause, with any joins
+     * @param rowKey         Unique key of a row, breaking ties in the sort order
+     * @param reader         Reads one row
+     */
+    public PagedTableModel(DatabaseWorker worker, String name, String[] columns, int editableColumn, String select,
+            String from, String rowKey, RowReader reader) {
+        this.worker = worker;
+        this.name = name;
+        this.columns = columns;
+        this.editableColumn = editableColumn;
+        this.select = select;
+        this.from = from;
+        this.rowKey = rowKey;
+        this.reader = reader;
+        this.sortKeys = new String[columns.length];
+    }
+
+    /**
+     * Let a column be sorted on (NULLs sort first, as in MySQL)
+     */
+    public void setSortKey(int column, String expression) {
+        sortKeys[column] = expression;
+    }
+
+    /**
+     * The column sorted on until a header is clicked
+     */
+    public void setDefaultSort(int column, boolean ascending) {
+        this.sortColumn = column;
+        this.ascending = ascending;
+    }
+
+    /**
+     * Wrap reloads in the tracker's snapshot so its watermark covers the loaded rows
+     */
+    public void setChangeTracker(ChangeTracker changeTracker) {
+        this.changeTracker = changeTracker;
+    }
+
+    /**
+     * Receives errors from reloads on the EDT (printed to the console by default)
+     */
+    public void setReloadErrorHandler(Consumer<SQLException> onReloadError) {
+        this.onReloadError = onReloadError;
+    }
+
+    /**
+     * Show the rows matching a filter
+     */
+    public CompletableFuture<Void> setFilter(Filter filter) {
+        this.filter = filter;
+        restart = true;
+        return reload();
+    }
+
+    /**
+     * Re-read the row count and the pages most recently looked at. Other pages are read
+     * again when they are next shown.
+     */
+    public CompletableFuture<Void> reload() {
+        long reloadGeneration = ++generation;
+        Filter currentFilter = filter;
+        String sortKey = sortKeys[sortColumn];
+        boolean currentAscending = ascending;
+
+        // A new filter or sort order starts from the top; otherwise the remembered page ends
+        // still mark places in the same order
+        TreeMap<Integer, Object[]> ends = restart ? new TreeMap<>() : new TreeMap<>(pageEnds);
+
+        // The pages to read along with the count, most recently used first
+        List<Integer> recent = restart ? new ArrayList<>() : new ArrayList<>(pages.keySet());
+        restart = false;
+        List<Integer> reread = new ArrayList<>();
+        for (int i = recent.size() - 1; i >= 0 && reread.size() < RELOADED_PAGES; i--) {
+            reread.add(recent.get(i));
+        }
+        if (reread.isEmpty()) {
+            reread.add(0);
+        }
+        // In order, so each page starts where the one just read ends
+        reread.sort(null);
+
+        DatabaseWorker.Query<Snapshot> query = conn -> {
+            Snapshot snapshot = new Snapshot();
+            snapshot.conditions = currentFilter != null ? currentFilter.conditions(conn, snapshot.params) : null;
+            snapshot.rowCount = count(conn, snapshot.conditions, snapshot.params);
+            for (int page : reread) {
+                if (page * PAGE_SIZE < snapshot.rowCount) {
+                    snapshot.pages.put(page, readPage(conn, snapshot.conditions, snapshot.params, ends, page, sortKey,
+                            currentAscending));
+                }
+            }
+            snapshot.pageEnds = ends;
+            return snapshot;
+        };
+
+        return worker.load(name, changeTracker != null ? changeTracker.snapshot(query) : query, snapshot -> {
+            if (reloadGeneration != generation) {
+                return;
+            }
+            int oldCount = rowCount;
+            loadedGeneration = reloadGeneration;
+            conditions = snapshot.conditions;
+            params = snapshot.params;
+            rowCount = snapshot.rowCount;
+            pageEnds = snapshot.pageEnds;
+            pages.clear();
+            pages.putAll(snapshot.pages);
+            loading.clear();
+
+            if (rowCount == oldCount && rowCount > 0) {
+                // Keeps the selection
+                fireTableRowsUpdated(0, rowCount - 1);
+            } else {
+                fireTableDataChanged();
+            }
+        }, onReloadError);
+    }
+
+    /**
+     * Sort on a column's header when it is clicked, and again to reverse the order
+     */
+    public void installSortHeader(JTable table) {
+        updateHeaders(table);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = table.getTableHeader().columnAtPoint(e.getPoint());
+                if (viewColumn < 0) {
+                    return;
+                }
+                int column = table.convertColumnIndexToModel(viewColumn);
+                if (sortKeys[column] == null) {
+                    return;
+                }
+                if (column == sortColumn) {
+                    ascending = !ascending;
+                } else {
+                    sortColumn = column;
+                    ascending = true;
+                }
+                updateHeaders(table);
+                restart = true;
+                reload();
+            }
+        });
+    }
+
+    private void updateHeaders(JTable table) {
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            TableColumn column = table.getColumnModel().getColumn(i);
+            int modelIndex = column.getModelIndex();
+            String arrow = modelIndex == sortColumn ? (ascending ? " \u25B2" : " \u25BC") : "";
+            column.setHeaderValue(columns[modelIndex] + arrow);
+        }
+        table.getTableHeader().repaint();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == editableColumn;
+    }
+
+    /**
+     * The cell's value, or null while its page is being read
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page = row / PAGE_SIZE;
+        List<Object[]> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+
+        // Read ahead in the direction the table is probably scrolling
+        int offset = row % PAGE_SIZE;
+        if (offset >= PAGE_SIZE / 2) {
+            requestPage(page + 1);
+        } else if (page > 0) {
+            requestPage(page - 1);
+        }
+        return offset < rows.size() ? rows.get(offset)[column] : null;
+    }
+
+    private void requestPage(int page) {
+        if (page < 0 || page * PAGE_SIZE >= rowCount || pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+
+        long pageGeneration = loadedGeneration;
+        String pageConditions = conditions;
+        List<Object> pageParams = params;
+        TreeMap<Integer, Object[]> ends = pageEnds;
+        String sortKey = sortKeys[sortColumn];
+        boolean pageAscending = ascending;
+
+        // The nearest page end before this page, copied on the EDT
+        Map.Entry<Integer, Object[]> anchor = ends.floorEntry(page - 1);
+        TreeMap<Integer, Object[]> pageAnchor = new TreeMap<>();
+        if (anchor != null) {
+            pageAnchor.put(anchor.getKey(), anchor.getValue());
+        }
+
+        worker.load(name + " page " + page,
+                conn -> readPage(conn, pageConditions, pageParams, pageAnchor, page, sortKey, pageAscending), rows -> {
+                    if (pageGeneration != loadedGeneration) {
+                        return;
+                    }
+                    loading.remove(page);
+                    pages.put(page, rows);
+                    if (pageAnchor.containsKey(page)) {
+                        pageEnds.put(page, pageAnchor.get(page));
+                    }
+                    int first = page * PAGE_SIZE;
+                    fireTableRowsUpdated(first, Math.min(rowCount, first + PAGE_SIZE) - 1);
+                }, e -> {
+                    // Asked for again when next painted
+                    if (pageGeneration == loadedGeneration) {
+                        loading.remove(page);
+                    }
+                    e.printStackTrace();
+                });
+    }
+
+    private int count(Connection conn, String conditions, List<Object> params) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM " + from + where(conditions, null));
+        setParams(stmt, params, null);
+        ResultSet rs = stmt.executeQuery();
+        int count = rs.next() ? rs.getInt(1) : 0;
+        rs.close();
+        stmt.close();
+        return count;
+    }
+
+    /**
+     * Read a page, starting after the nearest page end in ends and skipping the pages
+     * between; the page's own end is added to ends
+     */
+    private List<Object[]> readPage(Connection conn, String conditions, List<Object> params,
+            TreeMap<Integer, Object[]> ends, int page, String sortKey, boolean ascending) throws SQLException {
+        Map.Entry<Integer, Object[]> anchor = ends.floorEntry(page - 1);
+        Object[] after = anchor != null ? anchor.getValue() : null;
+        int skip = (page - (anchor != null ? anchor.getKey() + 1 : 0)) * PAGE_SIZE;
+
+        String sql = "SELECT " + select + ", " + sortKey + " AS page_sort, " + rowKey + " AS page_key FROM " + from
+                + where(conditions, after != null ? keyset(sortKey, after[0] == null, ascending) : null)
+                + orderBy(sortKey, ascending) + " LIMIT " + PAGE_SIZE + (skip > 0 ? " OFFSET " + skip : "");
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        setParams(stmt, params, after);
+        ResultSet rs = stmt.executeQuery();
+
+        List<Object[]> rows = new ArrayList<>();
+        Object[] end = null;
+        while (rs.next()) {
+            rows.add(reader.read(rs));
+            end = new Object[] { rs.getObject("page_sort"), rs.getObject("page_key") };
+        }
+        if (rows.size() == PAGE_SIZE) {
+            ends.put(page, end);
+        }
+
+        rs.close();
+        stmt.close();
+        return rows;
+    }
+
+    /**
+     * Rows after (sort, key) in the order of orderBy, where NULL sorts lowest. The column
+     * is compared as it is, so an index on it can be used.
+     */
+    private String keyset(String sortKey, boolean afterNull, boolean ascending) {
+        if (ascending) {
+            return afterNull ? "((" + sortKey + " IS NULL AND " + rowKey + " > ?) OR " + sortKey + " IS NOT NULL)"
+                    : "(" + sortKey + " > ? OR (" + sortKey + " = ? AND " + rowKey + " > ?))";
+        }
+        return afterNull ? "(" + sortKey + " IS NULL AND " + rowKey + " < ?)"
+                : "(" + sortKey + " < ? OR (" + sortKey + " = ? AND " + rowKey + " < ?) OR " + sortKey + " IS NULL)";
+    }
+
+    private static String where(String conditions, String keyset) {
+        if (conditions == null && keyset == null) {
+            return "";
+        }
+        if (conditions == null) {
+            return " WHERE " + keyset;
+        }
+        return " WHERE (" + conditions + ")" + (keyset != null ? " AND " + keyset : "");
+    }
+
+    private String orderBy(String sortKey, boolean ascending) {
+        String direction = ascending ? "" : " DESC";
+        return " ORDER BY " + sortKey + direction + ", " + rowKey + direction;
+    }
+
+    private static void setParams(PreparedStatement stmt, List<Object> params, Object[] after) throws SQLException {
+        int index = 1;
+        for (Object param : params) {
+            stmt.setObject(index++, param);
+        }
+        if (after != null && after[0] == null) {
+            stmt.setObject(index++, after[1]);
+        } else if (after != null) {
+            stmt.setObject(index++, after[0]);
+            stmt.setObject(index++, after[0]);
+            stmt.setObject(index++, after[1]);
+        }
+    }
+
+    /**
+     * What a reload read, applied on the EDT
+     */
+    private static class Snapshot {
+        String conditions;
+        final List<Object> params = new ArrayList<>();
+        int rowCount;
+        TreeMap<Integer, Object[]> pageEnds;
+        final Map<Integer, List<Object[]>> pages = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * A member's loan of a copy of a book was renewed
+ */
+public record RenewalEvent(int bookId, String title, String username) implements LibraryEvent {
+
+    @Override
+    public EventType type() {
+        return EventType.BOOK_RENEWAL;
+    }
+}
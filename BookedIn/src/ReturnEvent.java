@@ -0,0 +1,10 @@
+/**
+ * A member returned a copy of a book
+ */
+public record ReturnEvent(int bookId, String title, String username) implements LibraryEvent {
+
+    @Override
+    public EventType type() {
+        return EventType.BOOK_RETURN;
+    }
+}
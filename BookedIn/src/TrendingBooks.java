@@ -0,0 +1,418 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrendingBooks - The titles members are viewing and borrowing now, for the member
+ * dashboard's "Trending This Week" card.
+ *
+ * Every title has a views score and a borrows score that decay exponentially, halving
+ * every HALF_LIFE_MS. Instead of decaying all the scores as time passes, an event at time
+ * t adds e^(rate * (t - base)) to its score: every score is then off by the same factor,
+ * so recording an event is O(1) and the order of the titles never has to be worked out
+ * again. The factor is applied when scores are read, and folded into the stored scores
+ * (moving base up) before it can overflow.
+ *
+ * Views and checkouts are read from the event journal, which holds every event this
+ * workstation has seen with the time it happened. The scores are written to a snapshot
+ * file every SNAPSHOT_INTERVAL_MS along with the journal offset they cover, so a restart
+ * loads the snapshot and replays only the journal after it. Without a journal (another
+ * instance has it open) events come from the event manager and no snapshot is kept.
+ *
+ * Scores are kept by title id. Events name the copy, so each copy's title is looked up in
+ * the copies table once and remembered (a copy never changes title). The journal is read
+ * and copies are looked up on a background thread; top() only reads the scores. Nothing
+ * here reads book_views.
+ */
+public class TrendingBooks {
+
+    // How long an event takes to count half as much
+    private static final long HALF_LIFE_MS = 84L * 60 * 60 * 1000;
+    private static final double DECAY_RATE = Math.log(2) / HALF_LIFE_MS;
+
+    // A checkout counts as this many views
+    private static final double BORROW_WEIGHT = 3;
+
+    // Stored scores are rebased before their common factor gets past e^MAX_EXPONENT
+    private static final double MAX_EXPONENT = 100;
+
+    // Titles whose score has decayed below this are dropped when rebasing or snapshotting
+    private static final double MIN_SCORE = 0.05;
+
+    private static final long SNAPSHOT_INTERVAL_MS = 5 * 60 * 1000;
+
+    // Copies looked up per query
+    private static final int LOOKUP_BATCH = 500;
+
+    private static TrendingBooks instance;
+
+    // Scores by title id, scaled to base (guarded by "this")
+    private final Map<Integer, Score> scores = new HashMap<>();
+    private long base = System.currentTimeMillis();
+
+    // Events from the event manager waiting to be recorded (guarded by "this")
+    private final List<Pending> queued = new ArrayList<>();
+
+    // The journal position, snapshot and copy titles belong to the catch-up (guarded by replayLock)
+    private final Object replayLock = new Object();
+    private final Map<Integer, Integer> titleOfCopy = new HashMap<>();
+    private long journalOffset = 0;
+    private boolean loaded = false;
+
+    private EventJournal journal;
+    private File snapshotFile;
+    private ScheduledExecutorService executor;
+    private boolean started = false;
+
+    private TrendingBooks() {
+    }
+
+    public static synchronized TrendingBooks getInstance() {
+        if (instance == null) {
+            instance = new TrendingBooks();
+        }
+        return instance;
+    }
+
+    /**
+     * Start following views and checkouts (does nothing if already started). Call after
+     * the event manager's journal is set. The snapshot and journal are read in the
+     * background; update() tells when they have been.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "BookedIn-trending");
+            t.setDaemon(true);
+            return t;
+        });
+
+        DatabaseEventManager eventManager = DatabaseEventManager.getInstance();
+        journal = eventManager.getJournal();
+        if (journal == null) {
+            for (EventType type : new EventType[] { EventType.BOOK_VIEWED, EventType.BOOK_CHECKOUT }) {
+                eventManager.addListener(type, event -> {
+                    for (LibraryEvent payload : event.getPayloads()) {
+                        queue(payload, System.currentTimeMillis());
+                    }
+                    update();
+                });
+            }
+            return;
+        }
+
+        snapshotFile = new File(System.getProperty("user.home"), ".bookedin" + File.separator + "trending.snapshot");
+        executor.execute(this::catchUp);
+        executor.scheduleWithFixedDelay(this::saveSnapshot, SNAPSHOT_INTERVAL_MS, SNAPSHOT_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::saveSnapshot, "BookedIn-trending-close"));
+    }
+
+    /**
+     * Record the views and checkouts seen since the last update, in the background
+     *
+     * @return A future that completes once they are in the scores
+     */
+    public CompletableFuture<Void> update() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = executor;
+        }
+        if (current == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(this::catchUp, current);
+    }
+
+    /**
+     * The titles trending most right now, highest first, as far as the background thread
+     * has caught up
+     *
+     * @param count Maximum number of titles
+     */
+    public synchronized List<Trend> top(int count) {
+        long now = System.currentTimeMillis();
+        double factor = Math.exp(-DECAY_RATE * (now - base));
+
+        // Keep the best few in a small heap rather than sorting every title
+        PriorityQueue<Map.Entry<Integer, Score>> best = new PriorityQueue<>(
+                Comparator.comparingDouble((Map.Entry<Integer, Score> e) -> e.getValue().total()));
+        for (Map.Entry<Integer, Score> entry : scores.entrySet()) {
+            if (entry.getValue().total() * factor < MIN_SCORE) {
+                continue;
+            }
+            best.add(entry);
+            if (best.size() > count) {
+                best.poll();
+            }
+        }
+
+        List<Trend> trends = new ArrayList<>();
+        while (!best.isEmpty()) {
+            Map.Entry<Integer, Score> entry = best.poll();
+            trends.add(0, new Trend(entry.getKey(), entry.getValue().title, entry.getValue().views * factor,
+                    entry.getValue().borrows * factor));
+        }
+        return trends;
+    }
+
+    /**
+     * A view or checkout waiting for its copy's title, or null for any other event
+     */
+    private static Pending pending(LibraryEvent event, long timestamp) {
+        if (event instanceof BookViewedEvent viewed) {
+            return new Pending(viewed.bookId(), viewed.title(), false, timestamp);
+        } else if (event instanceof CheckoutEvent checkout) {
+            return new Pending(checkout.bookId(), checkout.title(), true, timestamp);
+        }
+        return null;
+    }
+
+    private synchronized void queue(LibraryEvent event, long timestamp) {
+        Pending view = pending(event, timestamp);
+        if (view != null) {
+            queued.add(view);
+        }
+    }
+
+    private void record(int titleId, Pending event) {
+        double exponent = DECAY_RATE * (event.timestamp() - base);
+        if (exponent > MAX_EXPONENT) {
+            rebase(event.timestamp());
+            exponent = 0;
+        }
+        Score score = scores.computeIfAbsent(titleId, t -> new Score());
+        if (event.title() != null && !event.title().isEmpty()) {
+            // Events are recorded oldest first, so this is the latest name seen
+            score.title = event.title();
+        }
+        if (event.borrow()) {
+            score.borrows += Math.exp(exponent);
+        } else {
+            score.views += Math.exp(exponent);
+        }
+    }
+
+    /**
+     * Fold the common factor into the stored scores so they are scaled to the given time
+     */
+    private void rebase(long time) {
+        double factor = Math.exp(-DECAY_RATE * (time - base));
+        Iterator<Score> it = scores.values().iterator();
+        while (it.hasNext()) {
+            Score score = it.next();
+            score.views *= factor;
+            score.borrows *= factor;
+            if (score.total() < MIN_SCORE) {
+                it.remove();
+            }
+        }
+        base = time;
+    }
+
+    /**
+     * Apply the journal records written since the last call (after the snapshot, the
+     * first time) and any events queued from the event manager
+     */
+    private void catchUp() {
+        synchronized (replayLock) {
+            List<Pending> events = new ArrayList<>();
+            if (journal != null) {
+                if (!loaded) {
+                    loadSnapshot();
+                    loaded = true;
+                }
+                try {
+                    journalOffset = journal.replay(journalOffset, entry -> {
+                        if (entry.getType() == EventType.BOOK_VIEWED || entry.getType() == EventType.BOOK_CHECKOUT) {
+                            LibraryEvent event = entry.getEvent();
+                            Pending view = event != null ? pending(event, entry.getTimestamp()) : null;
+                            if (view != null) {
+                                events.add(view);
+                            }
+                        }
+                    });
+                } catch (IOException e) {
+                    System.err.println("Error reading event journal for trending books: " + e.getMessage());
+                }
+            }
+            synchronized (this) {
+                events.addAll(queued);
+                queued.clear();
+            }
+            if (events.isEmpty()) {
+                return;
+            }
+
+            try {
+                lookUpTitles(events);
+            } catch (SQLException e) {
+                // Tried again on the next update
+                System.err.println("Error looking up trending titles: " + e.getMessage());
+                synchronized (this) {
+                    queued.addAll(0, events);
+                }
+                return;
+            }
+            synchronized (this) {
+                for (Pending event : events) {
+                    Integer titleId = titleOfCopy.get(event.copyId());
+                    if (titleId != null) {
+                        record(titleId, event);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Remember the title of each copy not seen before (copies since deleted are left out)
+     */
+    private void lookUpTitles(List<Pending> events) throws SQLException {
+        Set<Integer> unknown = new LinkedHashSet<>();
+        for (Pending event : events) {
+            if (!titleOfCopy.containsKey(event.copyId())) {
+                unknown.add(event.copyId());
+            }
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+
+        List<Integer> copyIds = new ArrayList<>(unknown);
+        try (Connection conn = DatabaseConnection.borrowConnection()) {
+            for (int from = 0; from < copyIds.size(); from += LOOKUP_BATCH) {
+                List<Integer> batch = copyIds.subList(from, Math.min(copyIds.size(), from + LOOKUP_BATCH));
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT id, title_id FROM copies WHERE id IN ("
+                        + ChangeTracker.placeholders(batch.size()) + ")")) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        stmt.setInt(i + 1, batch.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            titleOfCopy.put(rs.getInt(1), rs.getInt(2));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the last snapshot: "base offset", then "views borrows titleId title" per title
+     * (tab separated)
+     */
+    private synchronized void loadSnapshot() {
+        if (!snapshotFile.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(snapshotFile.toPath(), StandardCharsets.UTF_8)) {
+            String[] header = reader.readLine().split("\t");
+            long snapshotBase = Long.parseLong(header[0]);
+            long offset = Long.parseLong(header[1]);
+            if (offset > journal.getEndOffset()) {
+                // Written against a different journal, replay this one from the start
+                return;
+            }
+
+            Map<Integer, Score> loaded = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                Score score = new Score();
+                score.views = Double.parseDouble(fields[0]);
+                score.borrows = Double.parseDouble(fields[1]);
+                score.title = fields[3];
+                loaded.put(Integer.parseInt(fields[2]), score);
+            }
+            scores.clear();
+            scores.putAll(loaded);
+            base = snapshotBase;
+            journalOffset = offset;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable trending snapshot: " + e.getMessage());
+        }
+    }
+
+    private void saveSnapshot() {
+        StringBuilder text = new StringBuilder();
+        synchronized (replayLock) {
+            if (journal == null) {
+                return;
+            }
+            catchUp();
+            synchronized (this) {
+                rebase(System.currentTimeMillis());
+                text.append(base).append('\t').append(journalOffset).append('\n');
+                for (Map.Entry<Integer, Score> entry : scores.entrySet()) {
+                    String title = entry.getValue().title != null ? entry.getValue().title : "";
+                    text.append(entry.getValue().views).append('\t').append(entry.getValue().borrows).append('\t')
+                            .append(entry.getKey()).append('\t').append(title.replace('\n', ' ')).append('\n');
+                }
+            }
+        }
+
+        // Written beside the snapshot and moved over it, so a crash never leaves half a file
+        File temp = new File(snapshotFile.getPath() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(text.toString());
+            }
+            Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error saving trending snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A title's decayed scores, scaled to base, and the latest name it was seen with
+     */
+    private static class Score {
+        String title;
+        double views;
+        double borrows;
+
+        double total() {
+            return views + BORROW_WEIGHT * borrows;
+        }
+    }
+
+    /**
+     * A view or checkout of a copy, with the title named in the event
+     */
+    private record Pending(int copyId, String title, boolean borrow, long timestamp) {
+    }
+
+    /**
+     * A trending title (with the latest name it was seen with) and its decayed view and
+     * checkout counts
+     */
+    public record Trend(int titleId, String title, double views, double borrows) {
+    }
+}
@@ -0,0 +1,238 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ViewRollup - Keeps the book_views table small by compacting it in the background.
+ *
+ * A raw view is kept while it is under RAW_RETENTION_DAYS old and among its user's
+ * KEEP_PER_USER latest; the recently viewed card only ever reads the newest ones (the
+ * activity feed reads activity_log). Older views are added to daily counts per title (title_view_daily) and per
+ * member (member_view_daily) and deleted, in the same transaction, BATCH_SIZE at a time.
+ * Candidates are picked with plain (non-locking) reads through the book_views indexes:
+ * old views by view_date, and each user's views past their KEEP_PER_USER newest by
+ * (username, view_date). The transaction then only touches those rows by id, so it does
+ * not hold up the view recorder's inserts.
+ *
+ * Every workstation runs the job, but a MySQL named lock lets only one compact at once, so
+ * no view is counted twice. The tables and indexes come from DatabaseSetup, or from
+ * CatalogMigration.upgrade() on an older database.
+ */
+public class ViewRollup {
+
+    private static final int RAW_RETENTION_DAYS = 30;
+    private static final int KEEP_PER_USER = 50;
+
+    // Views compacted per transaction
+    private static final int BATCH_SIZE = 5000;
+
+    private static final long INITIAL_DELAY_MS = 60 * 1000;
+    private static final long RUN_INTERVAL_MS = 60 * 60 * 1000;
+
+    private static final String LOCK_NAME = "bookedin_view_rollup";
+
+    private static ViewRollup instance;
+
+    private ScheduledExecutorService executor;
+
+    private ViewRollup() {
+    }
+
+    public static synchronized ViewRollup getInstance() {
+        if (instance == null) {
+            instance = new ViewRollup();
+        }
+        return instance;
+    }
+
+    /**
+     * Start compacting in the background (does nothing if already started)
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "BookedIn-view-rollup");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::run, INITIAL_DELAY_MS, RUN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        try (Connection conn = DatabaseConnection.borrowConnection()) {
+            if (!lock(conn)) {
+                // Another workstation is compacting
+                return;
+            }
+            try {
+                int total = 0;
+                List<Integer> ids;
+                do {
+                    ids = oldViews(conn);
+                    total += compact(conn, ids);
+                } while (ids.size() == BATCH_SIZE);
+
+                for (String username : viewersOverLimit(conn)) {
+                    do {
+                        ids = surplusViews(conn, username);
+                        total += compact(conn, ids);
+                    } while (ids.size() == BATCH_SIZE);
+                }
+                if (total > 0) {
+                    System.out.println("Rolled up " + total + " book views");
+                }
+            } finally {
+                unlock(conn);
+            }
+        } catch (SQLException e) {
+            // Tried again on the next run
+            System.err.println("Error rolling up book views: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Views older than RAW_RETENTION_DAYS, oldest first, through the view_date index
+     */
+    private List<Integer> oldViews(Connection conn) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("SELECT id FROM book_views "
+                + "WHERE view_date < CURRENT_DATE() - INTERVAL ? DAY ORDER BY view_date LIMIT ?");
+        stmt.setInt(1, RAW_RETENTION_DAYS);
+        stmt.setInt(2, BATCH_SIZE);
+        return readIds(stmt);
+    }
+
+    /**
+     * The users with more than KEEP_PER_USER views, counted in one pass over the
+     * (username, view_date) index
+     */
+    private List<String> viewersOverLimit(Connection conn) throws SQLException {
+        List<String> usernames = new ArrayList<>();
+        PreparedStatement stmt = conn.prepareStatement("SELECT username FROM book_views "
+                + "GROUP BY username HAVING COUNT(*) > ?");
+        stmt.setInt(1, KEEP_PER_USER);
+        ResultSet rs = stmt.executeQuery();
+        while (rs.next()) {
+            usernames.add(rs.getString(1));
+        }
+        rs.close();
+        stmt.close();
+        return usernames;
+    }
+
+    /**
+     * A user's views after their KEEP_PER_USER newest, found by walking their part of the
+     * (username, view_date) index
+     */
+    private List<Integer> surplusViews(Connection conn, String username) throws SQLException {
+        PreparedStatement boundary = conn.prepareStatement("SELECT view_date, id FROM book_views "
+                + "WHERE username = ? ORDER BY view_date DESC, id DESC LIMIT 1 OFFSET ?");
+        boundary.setString(1, username);
+        boundary.setInt(2, KEEP_PER_USER - 1);
+        ResultSet rs = boundary.executeQuery();
+        java.sql.Timestamp lastKept = null;
+        int lastKeptId = 0;
+        if (rs.next()) {
+            lastKept = rs.getTimestamp(1);
+            lastKeptId = rs.getInt(2);
+        }
+        rs.close();
+        boundary.close();
+        if (lastKept == null) {
+            return new ArrayList<>();
+        }
+
+        PreparedStatement stmt = conn.prepareStatement("SELECT id FROM book_views WHERE username = ? "
+                + "AND (view_date < ? OR (view_date = ? AND id < ?)) LIMIT ?");
+        stmt.setString(1, username);
+        stmt.setTimestamp(2, lastKept);
+        stmt.setTimestamp(3, lastKept);
+        stmt.setInt(4, lastKeptId);
+        stmt.setInt(5, BATCH_SIZE);
+        return readIds(stmt);
+    }
+
+    private static List<Integer> readIds(PreparedStatement stmt) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        ResultSet rs = stmt.executeQuery();
+        while (rs.next()) {
+            ids.add(rs.getInt(1));
+        }
+        rs.close();
+        stmt.close();
+        return ids;
+    }
+
+    /**
+     * Roll up and delete the given views in one transaction
+     *
+     * @return How many views were compacted
+     */
+    private int compact(Connection conn, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        conn.setAutoCommit(false);
+        Statement stmt = conn.createStatement();
+        try {
+            stmt.executeUpdate("DROP TEMPORARY TABLE IF EXISTS book_views_compacted");
+            stmt.executeUpdate("CREATE TEMPORARY TABLE book_views_compacted (id INT PRIMARY KEY)");
+
+            PreparedStatement insert = conn.prepareStatement("INSERT INTO book_views_compacted (id) VALUES (?)");
+            for (int id : ids) {
+                insert.setInt(1, id);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            insert.close();
+
+            // Only the picked rows are read and locked, by primary key
+            stmt.executeUpdate("INSERT INTO title_view_daily (title_id, view_day, views) "
+                    + "SELECT c.title_id, DATE(v.view_date), COUNT(*) FROM book_views_compacted x "
+                    + "JOIN book_views v ON v.id = x.id JOIN copies c ON c.id = v.book_id "
+                    + "GROUP BY c.title_id, DATE(v.view_date) "
+                    + "ON DUPLICATE KEY UPDATE views = views + VALUES(views)");
+            stmt.executeUpdate("INSERT INTO member_view_daily (username, view_day, views) "
+                    + "SELECT v.username, DATE(v.view_date), COUNT(*) FROM book_views_compacted x "
+                    + "JOIN book_views v ON v.id = x.id "
+                    + "GROUP BY v.username, DATE(v.view_date) "
+                    + "ON DUPLICATE KEY UPDATE views = views + VALUES(views)");
+            int compacted = stmt.executeUpdate(
+                    "DELETE v FROM book_views v JOIN book_views_compacted x ON x.id = v.id");
+            conn.commit();
+            return compacted;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            stmt.executeUpdate("DROP TEMPORARY TABLE IF EXISTS book_views_compacted");
+            stmt.close();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private boolean lock(Connection conn) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, 0)");
+        stmt.setString(1, LOCK_NAME);
+        ResultSet rs = stmt.executeQuery();
+        boolean locked = rs.next() && rs.getInt(1) == 1;
+        rs.close();
+        stmt.close();
+        return locked;
+    }
+
+    private void unlock(Connection conn) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)");
+        stmt.setString(1, LOCK_NAME);
+        stmt.executeQuery().close();
+        stmt.close();
+    }
+}